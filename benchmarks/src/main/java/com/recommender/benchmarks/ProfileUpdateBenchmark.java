@@ -0,0 +1,48 @@
+package com.recommender.benchmarks;
+
+import com.recommender.model.UserEvent;
+import com.recommender.model.UserProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying one event to a profile, for profiles of increasing history size.
+ * Profiles are bounded, so the cost should not depend on the history size after the
+ * first update has trimmed the generated history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfileUpdateBenchmark {
+
+    private static final int EVENT_COUNT = 4096;
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    @Param({"10", "1000", "100000"})
+    public int historySize;
+
+    private UserProfile userProfile;
+    private UserEvent[] events;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generateEvents() {
+        events = SyntheticData.events("user-1", EVENT_COUNT, CATALOG_SIZE, 11L);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetProfile() {
+        userProfile = SyntheticData.profile("user-1", 10, historySize, CATALOG_SIZE, 7L);
+        next = 0;
+    }
+
+    @Benchmark
+    public UserProfile updateWithEvent() {
+        userProfile.updateWithEvent(events[next++ & (EVENT_COUNT - 1)]);
+        return userProfile;
+    }
+}
@@ -0,0 +1,116 @@
+package com.recommender.benchmarks;
+
+import com.recommender.catalog.CatalogSnapshot;
+import com.recommender.catalog.ItemCatalog;
+import com.recommender.catalog.ItemNeighborIndex;
+import com.recommender.catalog.ItemVectorIndex;
+import com.recommender.catalog.RankedItems;
+import com.recommender.catalog.ScoringKernel;
+import com.recommender.catalog.ScoringPool;
+import com.recommender.catalog.TopKHeap;
+import com.recommender.catalog.TopNScorer;
+import com.recommender.catalog.UserScoringContext;
+import com.recommender.ml.ScoringModel;
+import com.recommender.model.Item;
+import com.recommender.model.UserProfile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring and top-N selection for one user across catalog sizes.
+ * {@code topNFromCandidates} is the path used by {@code RecommendationGenerator};
+ * {@code topNFullScan} scores every item and shows what candidate generation saves;
+ * {@code topNSharded} scores the candidates in parallel shards, as very large catalogs do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    private static final int TOP_N = 10;
+    private static final int POPULAR_POOL_SIZE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    @Param({"3", "10"})
+    public int preferredCategories;
+
+    private ItemCatalog itemCatalog;
+    private TopNScorer topNScorer;
+    private TopNScorer shardedScorer;
+    private ScoringPool scoringPool;
+    private UserProfile userProfile;
+    private long nowMillis;
+
+    private final UserScoringContext scanContext = new UserScoringContext();
+    private final TopKHeap scanHeap = new TopKHeap();
+    private final int[] scanOrdinals = new int[TOP_N];
+    private final double[] scanScores = new double[TOP_N];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nowMillis = System.currentTimeMillis();
+        itemCatalog = new ItemCatalog();
+        ItemVectorIndex itemVectorIndex = new ItemVectorIndex(16, 100, 64, "", 0, 0.5, 1000);
+        for (Item item : SyntheticData.items(catalogSize, 42L, nowMillis)) {
+            itemCatalog.upsert(item.getId(), item);
+            itemVectorIndex.upsert(item.getId(), item);
+        }
+        scoringPool = new ScoringPool(0, 0);
+        topNScorer = new TopNScorer(itemCatalog, new ItemNeighborIndex(), itemVectorIndex, 50,
+                scoringPool, Integer.MAX_VALUE, 65536);
+        shardedScorer = new TopNScorer(itemCatalog, new ItemNeighborIndex(), itemVectorIndex, 50,
+                scoringPool, 0, 4096);
+        userProfile = SyntheticData.profile("user-1", preferredCategories, 20, catalogSize, 7L);
+    }
+
+    @Benchmark
+    public void topNFromCandidates(Blackhole blackhole) {
+        RankedItems ranked = topNScorer.rank(userProfile, ScoringModel.DEFAULT, POPULAR_POOL_SIZE,
+                TOP_N, nowMillis);
+        for (int i = 0; i < ranked.size(); i++) {
+            blackhole.consume(ranked.ordinal(i));
+            blackhole.consume(ranked.score(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scoringPool.close();
+    }
+
+    @Benchmark
+    public void topNSharded(Blackhole blackhole) {
+        RankedItems ranked = shardedScorer.rank(userProfile, ScoringModel.DEFAULT, POPULAR_POOL_SIZE,
+                TOP_N, nowMillis);
+        for (int i = 0; i < ranked.size(); i++) {
+            blackhole.consume(ranked.ordinal(i));
+            blackhole.consume(ranked.score(i));
+        }
+    }
+
+    @Benchmark
+    public void topNFullScan(Blackhole blackhole) {
+        CatalogSnapshot catalog = itemCatalog.snapshot();
+        scanContext.reset(itemCatalog, catalog, userProfile, nowMillis);
+        scanHeap.reset(TOP_N);
+
+        for (int ordinal = 0; ordinal < catalog.limit(); ordinal++) {
+            if (catalog.isLive(ordinal) && !scanContext.isExcluded(ordinal)) {
+                scanHeap.offer(ordinal, ScoringKernel.DEFAULT.score(catalog, ordinal, scanContext));
+            }
+        }
+
+        int count = scanHeap.drainDescending(scanOrdinals, scanScores);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(scanOrdinals[i]);
+            blackhole.consume(scanScores[i]);
+        }
+    }
+}
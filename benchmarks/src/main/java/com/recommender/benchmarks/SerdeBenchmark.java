@@ -0,0 +1,76 @@
+package com.recommender.benchmarks;
+
+import com.recommender.model.Item;
+import com.recommender.model.Recommendation;
+import com.recommender.model.UserProfile;
+import com.recommender.utils.SerdeFactory;
+import org.apache.kafka.common.serialization.Serde;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize/deserialize round-trips of the model classes written to topics and stores,
+ * in each supported format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerdeBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"10", "1000"})
+    public int profileHistorySize;
+
+    private Serde<UserProfile> userProfileSerde;
+    private Serde<Item> itemSerde;
+    private Serde<Recommendation> recommendationSerde;
+
+    private UserProfile userProfile;
+    private Item item;
+    private Recommendation recommendation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SerdeFactory serdeFactory = new SerdeFactory(new StandardEnvironment(), format);
+        userProfileSerde = serdeFactory.userProfiles(TOPIC);
+        itemSerde = serdeFactory.items(TOPIC);
+        recommendationSerde = serdeFactory.recommendations(TOPIC);
+
+        userProfile = SyntheticData.profile("user-1", 10, profileHistorySize, 1_000_000, 7L);
+        item = SyntheticData.item(1, new Random(42L), System.currentTimeMillis());
+        recommendation = SyntheticData.recommendation("user-1", 10, 3L);
+    }
+
+    @Benchmark
+    public UserProfile userProfileRoundTrip() {
+        byte[] bytes = userProfileSerde.serializer().serialize(TOPIC, userProfile);
+        return userProfileSerde.deserializer().deserialize(TOPIC, bytes);
+    }
+
+    @Benchmark
+    public Item itemRoundTrip() {
+        byte[] bytes = itemSerde.serializer().serialize(TOPIC, item);
+        return itemSerde.deserializer().deserialize(TOPIC, bytes);
+    }
+
+    @Benchmark
+    public Recommendation recommendationRoundTrip() {
+        byte[] bytes = recommendationSerde.serializer().serialize(TOPIC, recommendation);
+        return recommendationSerde.deserializer().deserialize(TOPIC, bytes);
+    }
+
+    @Benchmark
+    public int userProfileEncodedSize() {
+        return userProfileSerde.serializer().serialize(TOPIC, userProfile).length;
+    }
+}
@@ -0,0 +1,161 @@
+package com.recommender.benchmarks;
+
+import com.recommender.model.Item;
+import com.recommender.model.Recommendation;
+import com.recommender.model.UserEvent;
+import com.recommender.model.UserProfile;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic generators for benchmark inputs.
+ * Every generator takes a seed, so repeated runs measure the same data.
+ */
+public final class SyntheticData {
+
+    public static final int CATEGORY_COUNT = 50;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private SyntheticData() {
+    }
+
+    public static String itemId(int index) {
+        return "item-" + index;
+    }
+
+    public static String category(int index) {
+        return "category-" + index;
+    }
+
+    /**
+     * Creates an item with one to three categories, a few numeric features
+     * and a creation time within the last 60 days.
+     */
+    public static Item item(int index, Random random, long nowMillis) {
+        Set<String> categories = new HashSet<>();
+        int categoryCount = 1 + random.nextInt(3);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(category(random.nextInt(CATEGORY_COUNT)));
+        }
+
+        Map<String, Double> features = new HashMap<>();
+        features.put("price", 5 + random.nextDouble() * 500);
+        features.put("rating", 1 + random.nextDouble() * 4);
+        features.put("discount", random.nextDouble());
+
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("brand", "brand-" + random.nextInt(200));
+
+        long created = nowMillis - (long) (random.nextDouble() * 60 * DAY_MS);
+        return Item.builder()
+                .id(itemId(index))
+                .name("Item " + index)
+                .description("Synthetic item " + index)
+                .categories(categories)
+                .features(features)
+                .metadata(metadata)
+                .popularity(random.nextDouble())
+                .creationTimestamp(created)
+                .lastUpdateTimestamp(created)
+                .build();
+    }
+
+    public static List<Item> items(int count, long seed, long nowMillis) {
+        Random random = new Random(seed);
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(i, random, nowMillis));
+        }
+        return items;
+    }
+
+    /**
+     * Creates a profile with preferences for a few categories and the given amount of history
+     * in each of recently viewed, purchased and rated items.
+     */
+    public static UserProfile profile(String userId, int preferredCategories, int historySize,
+                                      int catalogSize, long seed) {
+        Random random = new Random(seed);
+        UserProfile profile = UserProfile.builder().userId(userId).build();
+
+        for (int i = 0; i < preferredCategories; i++) {
+            profile.getCategoryPreferences().put(category(random.nextInt(CATEGORY_COUNT)), random.nextDouble());
+        }
+        profile.getFeaturePreferences().put("price", random.nextDouble());
+        profile.getFeaturePreferences().put("rating", random.nextDouble());
+
+        for (int i = 0; i < historySize; i++) {
+            profile.getRecentlyViewedItems().add(itemId(random.nextInt(catalogSize)));
+            profile.getPurchasedItems().add(itemId(random.nextInt(catalogSize)));
+            profile.getItemRatings().put(itemId(random.nextInt(catalogSize)), 1.0 + random.nextInt(5));
+        }
+        profile.setLastActivityTimestamp(System.currentTimeMillis());
+        return profile;
+    }
+
+    /**
+     * Creates a stream of mixed events for one user, weighted towards views.
+     */
+    public static UserEvent[] events(String userId, int count, int catalogSize, long seed) {
+        Random random = new Random(seed);
+        UserEvent[] events = new UserEvent[count];
+        Instant now = Instant.now();
+        for (int i = 0; i < count; i++) {
+            events[i] = event(userId, random, catalogSize, now.plusMillis(i), "session-" + (i / 50));
+        }
+        return events;
+    }
+
+    /**
+     * Creates one event for a random item; three out of four events are views.
+     */
+    public static UserEvent event(String userId, Random random, int catalogSize, Instant timestamp,
+                                  String sessionId) {
+        UserEvent.EventType[] types = UserEvent.EventType.values();
+        UserEvent.EventType type = random.nextInt(4) == 0
+                ? types[random.nextInt(types.length)]
+                : UserEvent.EventType.VIEW;
+        return UserEvent.builder()
+                .userId(userId)
+                .itemId(itemId(random.nextInt(catalogSize)))
+                .eventType(type)
+                .timestamp(timestamp)
+                .score(type == UserEvent.EventType.RATE ? 1.0 + random.nextInt(5) : null)
+                .sessionId(sessionId)
+                .build();
+    }
+
+    /**
+     * Creates a recommendation with the given number of explained items.
+     */
+    public static Recommendation recommendation(String userId, int itemCount, long seed) {
+        Random random = new Random(seed);
+        List<Recommendation.RecommendedItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Map<String, Double> components = new HashMap<>();
+            components.put("category_match", random.nextDouble());
+            components.put("popularity", random.nextDouble() * 0.3);
+            items.add(Recommendation.RecommendedItem.builder()
+                    .itemId(itemId(random.nextInt(100_000)))
+                    .score(random.nextDouble())
+                    .scoreComponents(components)
+                    .explanation("Based on your interest in " + category(random.nextInt(CATEGORY_COUNT)))
+                    .build());
+        }
+        return Recommendation.builder()
+                .id("rec-" + seed)
+                .userId(userId)
+                .timestamp(Instant.now())
+                .contextId("homepage")
+                .items(items)
+                .modelVersion("1.0.0")
+                .build();
+    }
+}
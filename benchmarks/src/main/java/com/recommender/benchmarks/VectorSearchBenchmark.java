@@ -0,0 +1,70 @@
+package com.recommender.benchmarks;
+
+import com.recommender.catalog.HnswIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-K search in the item feature vector index used by {@code ItemVectorIndex}.
+ * Building the index for a million items takes a few minutes per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorSearchBenchmark {
+
+    private static final int K = 50;
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"100000", "1000000"})
+    public int itemCount;
+
+    @Param({"16"})
+    public int dimensions;
+
+    @Param({"64"})
+    public int efSearch;
+
+    private HnswIndex index;
+    private float[][] queries;
+    private int nextQuery;
+
+    private final String[] keys = new String[K];
+    private final float[] similarities = new float[K];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42L);
+        index = new HnswIndex(16, 100);
+        for (int i = 0; i < itemCount; i++) {
+            index.put(SyntheticData.itemId(i), randomVector(random));
+        }
+        queries = new float[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = randomVector(random);
+        }
+    }
+
+    @Benchmark
+    public void topK(Blackhole blackhole) {
+        float[] query = queries[nextQuery++ & (QUERY_COUNT - 1)];
+        int found = index.search(query, K, efSearch, keys, similarities);
+        for (int i = 0; i < found; i++) {
+            blackhole.consume(keys[i]);
+        }
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,19 @@
+package com.recommender.benchmarks.load;
+
+import com.recommender.model.UserEvent;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination the load generator publishes events to.
+ */
+interface EventSink extends AutoCloseable {
+
+    /**
+     * Publishes an event without waiting for it to be accepted.
+     *
+     * @param event The event
+     * @return A future completed once the event has been accepted
+     */
+    CompletableFuture<?> publish(UserEvent event);
+}
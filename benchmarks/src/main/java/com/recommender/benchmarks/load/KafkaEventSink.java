@@ -0,0 +1,64 @@
+package com.recommender.benchmarks.load;
+
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.Item;
+import com.recommender.model.UserEvent;
+import com.recommender.utils.JsonSerde;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Produces events straight to the user-events topic, keyed by user like the application does.
+ * Also used to seed the items topic in every mode.
+ */
+final class KafkaEventSink implements EventSink {
+
+    private final Producer<String, Object> producer;
+
+    KafkaEventSink(String bootstrapServers) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerde.JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        producer = new KafkaProducer<>(props);
+    }
+
+    @Override
+    public CompletableFuture<?> publish(UserEvent event) {
+        return send(KafkaConfig.USER_EVENTS_TOPIC, event.getUserId(), event);
+    }
+
+    CompletableFuture<?> publishItem(Item item) {
+        return send(KafkaConfig.ITEMS_TOPIC, item.getId(), item);
+    }
+
+    void flush() {
+        producer.flush();
+    }
+
+    private CompletableFuture<?> send(String topic, String key, Object value) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        producer.send(new ProducerRecord<>(topic, key, value), (metadata, exception) -> {
+            if (exception != null) {
+                result.completeExceptionally(exception);
+            } else {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
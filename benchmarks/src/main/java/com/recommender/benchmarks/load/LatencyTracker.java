@@ -0,0 +1,50 @@
+package com.recommender.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches published events to the recommendations they cause.
+ * For each user the oldest event not yet followed by a recommendation is remembered;
+ * the next recommendation for that user closes it. Events sent while one is pending
+ * are folded into the same measurement, since the pipeline coalesces them as well.
+ */
+final class LatencyTracker {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, Long> pendingSince = new ConcurrentHashMap<>();
+    private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+    private volatile boolean recording;
+
+    void eventSent(String userId, long sentNanos) {
+        pendingSince.putIfAbsent(userId, sentNanos);
+    }
+
+    void recommendationReceived(String userId, long receivedNanos) {
+        Long sentNanos = pendingSince.remove(userId);
+        if (sentNanos != null && recording) {
+            recorder.recordValue(Math.min(receivedNanos - sentNanos, MAX_LATENCY_NANOS));
+        }
+    }
+
+    /**
+     * Starts recording, discarding everything measured during warmup.
+     */
+    void startRecording() {
+        recorder.reset();
+        recording = true;
+    }
+
+    Histogram snapshot() {
+        return recorder.getIntervalHistogram();
+    }
+
+    int pending() {
+        return pendingSince.size();
+    }
+}
@@ -0,0 +1,187 @@
+package com.recommender.benchmarks.load;
+
+import com.recommender.KafkaRealtimeRecommenderApplication;
+import com.recommender.benchmarks.SyntheticData;
+import com.recommender.model.Item;
+import com.recommender.model.UserEvent;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a synthetic population of users and items against the application and reports
+ * throughput and event-to-recommendation latency.
+ *
+ * <p>Options (all {@code --name=value}):
+ * <ul>
+ *   <li>{@code target}: {@code kafka} to produce to user-events, {@code rest} to post to the API (default kafka)</li>
+ *   <li>{@code embedded}: start a single-node embedded broker and the application in this JVM (default false)</li>
+ *   <li>{@code bootstrap-servers}, {@code base-url}: where an external broker and application run</li>
+ *   <li>{@code users}, {@code items}: population sizes (default 10000 each)</li>
+ *   <li>{@code rate}: events per second (default 1000)</li>
+ *   <li>{@code warmup-seconds}, {@code duration-seconds}, {@code drain-seconds}: run phases (default 10/60/10)</li>
+ *   <li>{@code seed}: seed of the synthetic data (default 42)</li>
+ *   <li>{@code report-file}: also write the report as JSON to this file</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGeneratorOptions options = LoadGeneratorOptions.parse(args);
+
+        EmbeddedKafkaBroker broker = null;
+        ConfigurableApplicationContext application = null;
+        String bootstrapServers = options.bootstrapServers;
+        String baseUrl = options.baseUrl;
+
+        try {
+            if (options.embedded) {
+                broker = startBroker();
+                bootstrapServers = broker.getBrokersAsString();
+                application = startApplication(bootstrapServers);
+                baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+            }
+
+            LoadReport report = run(options, bootstrapServers, baseUrl);
+            System.out.println(report.toText());
+            if (options.reportFile != null) {
+                report.writeJson(options.reportFile);
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (broker != null) {
+                broker.destroy();
+            }
+        }
+    }
+
+    private static LoadReport run(LoadGeneratorOptions options, String bootstrapServers, String baseUrl)
+            throws Exception {
+        LatencyTracker latencyTracker = new LatencyTracker();
+
+        try (KafkaEventSink kafkaSink = new KafkaEventSink(bootstrapServers);
+             EventSink eventSink = options.target == LoadGeneratorOptions.Target.REST
+                     ? new RestEventSink(baseUrl, options.maxConcurrentRequests) : kafkaSink;
+             RecommendationWatcher watcher = new RecommendationWatcher(bootstrapServers, latencyTracker)) {
+
+            seedItems(options, kafkaSink);
+            watcher.start();
+
+            Random random = new Random(options.seed);
+            AtomicLong sendFailures = new AtomicLong();
+
+            System.out.println("Warming up for " + options.warmupSeconds + "s");
+            drive(options, eventSink, latencyTracker, random, sendFailures, options.warmupSeconds);
+
+            latencyTracker.startRecording();
+            sendFailures.set(0);
+            long recommendationsBefore = watcher.received();
+            long start = System.nanoTime();
+
+            System.out.println("Measuring for " + options.durationSeconds + "s");
+            long eventsSent = drive(options, eventSink, latencyTracker, random, sendFailures,
+                    options.durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            // Give the pipeline time to emit recommendations for the last events
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.drainSeconds);
+            while (latencyTracker.pending() > 0 && System.nanoTime() < drainUntil) {
+                Thread.sleep(100);
+            }
+
+            Histogram latency = latencyTracker.snapshot();
+            return new LoadReport(options, eventsSent, sendFailures.get(),
+                    watcher.received() - recommendationsBefore, latencyTracker.pending(),
+                    elapsedSeconds, latency);
+        }
+    }
+
+    private static void seedItems(LoadGeneratorOptions options, KafkaEventSink kafkaSink) throws InterruptedException {
+        System.out.println("Publishing " + options.items + " items");
+        Random random = new Random(options.seed);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < options.items; i++) {
+            Item item = SyntheticData.item(i, random, now);
+            kafkaSink.publishItem(item);
+        }
+        kafkaSink.flush();
+
+        // The catalog is loaded through a global store; let it catch up before events arrive
+        Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Sends events at the target rate for the given time. Send times follow a fixed schedule,
+     * so a stalled sink shows up as a burst afterwards instead of silently lowering the rate.
+     */
+    private static long drive(LoadGeneratorOptions options, EventSink eventSink, LatencyTracker latencyTracker,
+                              Random random, AtomicLong sendFailures, int seconds) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, options.rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long next = start;
+        long sent = 0;
+
+        while (next < end) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+
+            int user = random.nextInt(options.users);
+            String userId = "user-" + user;
+            UserEvent event = SyntheticData.event(userId, random, options.items, Instant.now(),
+                    "session-" + user);
+
+            latencyTracker.eventSent(userId, System.nanoTime());
+            eventSink.publish(event).whenComplete((result, exception) -> {
+                if (exception != null) {
+                    sendFailures.incrementAndGet();
+                }
+            });
+
+            sent++;
+            next += intervalNanos;
+        }
+        return sent;
+    }
+
+    private static EmbeddedKafkaBroker startBroker() {
+        Map<String, String> brokerProperties = new HashMap<>();
+        // Exactly-once processing needs a transaction log, which a single broker can only replicate once
+        brokerProperties.put("transaction.state.log.replication.factor", "1");
+        brokerProperties.put("transaction.state.log.min.isr", "1");
+        brokerProperties.put("offsets.topic.replication.factor", "1");
+
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1, false, 1)
+                .brokerProperties(brokerProperties);
+        broker.afterPropertiesSet();
+        System.out.println("Started embedded broker at " + broker.getBrokersAsString());
+        return broker;
+    }
+
+    private static ConfigurableApplicationContext startApplication(String bootstrapServers) {
+        // A fresh application id keeps local state from earlier runs out of the measurement
+        return SpringApplication.run(KafkaRealtimeRecommenderApplication.class,
+                "--spring.kafka.bootstrap-servers=" + bootstrapServers,
+                "--spring.kafka.streams.application-id=recommender-load-" + System.currentTimeMillis(),
+                "--server.port=0",
+                "--recommender.streams.num-standby-replicas=0",
+                "--logging.level.com.recommender=WARN");
+    }
+}
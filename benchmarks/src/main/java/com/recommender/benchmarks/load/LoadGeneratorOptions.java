@@ -0,0 +1,66 @@
+package com.recommender.benchmarks.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, parsed from {@code --name=value} arguments.
+ */
+final class LoadGeneratorOptions {
+
+    enum Target {
+        /** Events are posted to the REST API, one request per event */
+        REST,
+        /** Events are produced straight to the user-events topic */
+        KAFKA
+    }
+
+    final Target target;
+    final boolean embedded;
+    final String bootstrapServers;
+    final String baseUrl;
+    final int users;
+    final int items;
+    final int rate;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int drainSeconds;
+    final int maxConcurrentRequests;
+    final long seed;
+    final String reportFile;
+
+    private LoadGeneratorOptions(Map<String, String> values) {
+        target = Target.valueOf(values.getOrDefault("target", "kafka").toUpperCase());
+        embedded = Boolean.parseBoolean(values.getOrDefault("embedded", "false"));
+        bootstrapServers = values.getOrDefault("bootstrap-servers", "localhost:9092");
+        baseUrl = values.getOrDefault("base-url", "http://localhost:8080");
+        users = Integer.parseInt(values.getOrDefault("users", "10000"));
+        items = Integer.parseInt(values.getOrDefault("items", "10000"));
+        rate = Integer.parseInt(values.getOrDefault("rate", "1000"));
+        durationSeconds = Integer.parseInt(values.getOrDefault("duration-seconds", "60"));
+        warmupSeconds = Integer.parseInt(values.getOrDefault("warmup-seconds", "10"));
+        drainSeconds = Integer.parseInt(values.getOrDefault("drain-seconds", "10"));
+        maxConcurrentRequests = Integer.parseInt(values.getOrDefault("max-concurrent-requests", "256"));
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        reportFile = values.get("report-file");
+    }
+
+    static LoadGeneratorOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadGeneratorOptions(values);
+    }
+
+    @Override
+    public String toString() {
+        return "target=" + target + ", embedded=" + embedded + ", users=" + users + ", items=" + items
+                + ", rate=" + rate + "/s, duration=" + durationSeconds + "s, warmup=" + warmupSeconds
+                + "s, seed=" + seed;
+    }
+}
@@ -0,0 +1,71 @@
+package com.recommender.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Results of the measured part of a load test run.
+ */
+final class LoadReport {
+
+    private final LoadGeneratorOptions options;
+    private final long eventsSent;
+    private final long sendFailures;
+    private final long recommendationsReceived;
+    private final long unmatchedEvents;
+    private final double elapsedSeconds;
+    private final Histogram latency;
+
+    LoadReport(LoadGeneratorOptions options, long eventsSent, long sendFailures, long recommendationsReceived,
+               long unmatchedEvents, double elapsedSeconds, Histogram latency) {
+        this.options = options;
+        this.eventsSent = eventsSent;
+        this.sendFailures = sendFailures;
+        this.recommendationsReceived = recommendationsReceived;
+        this.unmatchedEvents = unmatchedEvents;
+        this.elapsedSeconds = elapsedSeconds;
+        this.latency = latency;
+    }
+
+    String toText() {
+        return String.format(Locale.ROOT,
+                "Load test: %s%n"
+                        + "  events sent:          %d (%.1f/s), %d failed%n"
+                        + "  recommendations:      %d (%.1f/s)%n"
+                        + "  users still waiting:  %d%n"
+                        + "  event -> recommendation latency (ms), %d samples:%n"
+                        + "    p50 %.1f   p99 %.1f   p99.9 %.1f   max %.1f",
+                options, eventsSent, eventsSent / elapsedSeconds, sendFailures,
+                recommendationsReceived, recommendationsReceived / elapsedSeconds,
+                unmatchedEvents, latency.getTotalCount(),
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()));
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"target\":\"%s\",\"users\":%d,\"items\":%d,\"targetRate\":%d,\"elapsedSeconds\":%.3f,"
+                        + "\"eventsSent\":%d,\"sendFailures\":%d,\"eventsPerSecond\":%.1f,"
+                        + "\"recommendationsReceived\":%d,\"unmatchedEvents\":%d,"
+                        + "\"latencyMs\":{\"samples\":%d,\"p50\":%.3f,\"p99\":%.3f,\"p999\":%.3f,\"max\":%.3f}}",
+                options.target, options.users, options.items, options.rate, elapsedSeconds,
+                eventsSent, sendFailures, eventsSent / elapsedSeconds,
+                recommendationsReceived, unmatchedEvents,
+                latency.getTotalCount(),
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()));
+    }
+
+    void writeJson(String file) throws IOException {
+        Files.write(Paths.get(file), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
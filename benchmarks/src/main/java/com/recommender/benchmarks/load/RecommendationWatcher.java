@@ -0,0 +1,91 @@
+package com.recommender.benchmarks.load;
+
+import com.recommender.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Tails the recommendations topic and reports each record's arrival to the {@link LatencyTracker}.
+ * Records are keyed by user, so the value is never deserialized.
+ */
+final class RecommendationWatcher implements Runnable, AutoCloseable {
+
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final LatencyTracker latencyTracker;
+    private final AtomicLong received = new AtomicLong();
+    private final Thread thread;
+
+    RecommendationWatcher(String bootstrapServers, LatencyTracker latencyTracker) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        // Only count recommendations the application has committed
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        this.consumer = new KafkaConsumer<>(props);
+        this.latencyTracker = latencyTracker;
+        this.thread = new Thread(this, "recommendation-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Assigns all partitions, skips existing records and starts tailing.
+     * Returns once the consumer is positioned, so no recommendation caused by the load is missed.
+     */
+    void start() {
+        List<PartitionInfo> partitions = consumer.partitionsFor(KafkaConfig.RECOMMENDATIONS_TOPIC, Duration.ofSeconds(30));
+        List<TopicPartition> topicPartitions = partitions.stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .collect(Collectors.toList());
+        consumer.assign(topicPartitions);
+        consumer.seekToEnd(topicPartitions);
+        // seekToEnd is lazy; resolve the positions before any event is sent
+        topicPartitions.forEach(consumer::position);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(100));
+                long now = System.nanoTime();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (record.key() != null) {
+                        latencyTracker.recommendationReceived(record.key(), now);
+                    }
+                }
+                received.addAndGet(records.count());
+            }
+        } catch (WakeupException e) {
+            // Closing
+        } finally {
+            consumer.close();
+        }
+    }
+
+    long received() {
+        return received.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        consumer.wakeup();
+        thread.join(5000);
+    }
+}
@@ -0,0 +1,74 @@
+package com.recommender.benchmarks.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.recommender.model.UserEvent;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Posts events to {@code /api/events}, one request per event as the client SDKs do.
+ * Concurrent requests are capped so that a slow server is measured as lower throughput
+ * rather than an unbounded request queue in the generator.
+ */
+final class RestEventSink implements EventSink {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final URI eventsUri;
+    private final Semaphore concurrentRequests;
+
+    RestEventSink(String baseUrl, int maxConcurrentRequests) {
+        this.eventsUri = URI.create(baseUrl + "/api/events");
+        this.concurrentRequests = new Semaphore(maxConcurrentRequests);
+    }
+
+    @Override
+    public CompletableFuture<?> publish(UserEvent event) {
+        HttpRequest request = HttpRequest.newBuilder(eventsUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toRequestJson(event)))
+                .build();
+
+        concurrentRequests.acquireUninterruptibly();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 300) {
+                        throw new IllegalStateException("HTTP " + response.statusCode());
+                    }
+                    return response;
+                })
+                .whenComplete((response, exception) -> concurrentRequests.release());
+    }
+
+    private String toRequestJson(UserEvent event) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("userId", event.getUserId());
+        body.put("itemId", event.getItemId());
+        body.put("eventType", event.getEventType());
+        body.put("score", event.getScore());
+        body.put("sessionId", event.getSessionId());
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        // HttpClient has no close before Java 21; its threads are daemons
+    }
+}
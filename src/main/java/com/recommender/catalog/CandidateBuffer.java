@@ -0,0 +1,57 @@
+package com.recommender.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, de-duplicating buffer of candidate item ordinals.
+ * Meant to be kept per thread and reused across users, so that collecting
+ * candidates does not allocate once the buffer has grown to its working size.
+ */
+public final class CandidateBuffer {
+
+    private int[] ordinals = new int[256];
+    private long[] seen = new long[16];
+    private int size;
+
+    /**
+     * Adds an ordinal unless it is already in the buffer.
+     *
+     * @param ordinal The item ordinal
+     */
+    public void add(int ordinal) {
+        int word = ordinal >>> 6;
+        if (word >= seen.length) {
+            seen = Arrays.copyOf(seen, Math.max(seen.length * 2, word + 1));
+        }
+
+        long bit = 1L << ordinal;
+        if ((seen[word] & bit) != 0) {
+            return;
+        }
+        seen[word] |= bit;
+
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        ordinals[size++] = ordinal;
+    }
+
+    /**
+     * Empties the buffer, touching only the entries that were added.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int ordinal = ordinals[i];
+            seen[ordinal >>> 6] &= ~(1L << ordinal);
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return ordinals[index];
+    }
+}
@@ -0,0 +1,156 @@
+package com.recommender.catalog;
+
+import com.recommender.model.Item;
+
+import java.util.Arrays;
+
+/**
+ * Columnar, primitive-backed view of the item catalog.
+ * Each item is addressed by a dense ordinal; popularity and creation time live in
+ * parallel primitive arrays and categories are stored as a fixed-stride bitset per item,
+ * so scoring can walk the catalog without touching boxed {@link Item} objects.
+ *
+ * <p>The arrays of a snapshot never change size. When the catalog outgrows them,
+ * {@link ItemCatalog} publishes a new snapshot, and readers holding the old one keep reading
+ * its arrays. A snapshot is not a point-in-time copy: slots are updated and cleared in place by
+ * the single catalog writer, published through {@link #publish(int)}, and ordinals of removed
+ * items are reused. A reader that races with the writer may see a slot mid-update, mixing an
+ * item's old and new values, or find that an ordinal now holds another item or none.
+ * Readers must therefore re-check {@link #isLive} and treat null IDs and items as a missing item;
+ * a score taken from a mixed slot is only transient, as the change that caused it is propagated
+ * to the affected users and re-scored.
+ */
+public final class CatalogSnapshot {
+
+    final String[] itemIds;
+    final Item[] items;
+    final double[] popularity;
+    final long[] creationTimestamps;
+    final long[] categoryBits;
+    final int wordsPerItem;
+
+    // Written last by the catalog writer so that readers see every slot written before it
+    private volatile int limit;
+
+    CatalogSnapshot(int capacity, int wordsPerItem) {
+        this.itemIds = new String[capacity];
+        this.items = new Item[capacity];
+        this.popularity = new double[capacity];
+        this.creationTimestamps = new long[capacity];
+        this.categoryBits = new long[capacity * wordsPerItem];
+        this.wordsPerItem = wordsPerItem;
+    }
+
+    /**
+     * Creates a larger copy of this snapshot.
+     *
+     * @param capacity The new item capacity
+     * @param wordsPerItem The new number of category words per item
+     * @return The copy
+     */
+    CatalogSnapshot grow(int capacity, int wordsPerItem) {
+        CatalogSnapshot copy = new CatalogSnapshot(capacity, wordsPerItem);
+        int size = limit;
+        System.arraycopy(itemIds, 0, copy.itemIds, 0, size);
+        System.arraycopy(items, 0, copy.items, 0, size);
+        System.arraycopy(popularity, 0, copy.popularity, 0, size);
+        System.arraycopy(creationTimestamps, 0, copy.creationTimestamps, 0, size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            System.arraycopy(categoryBits, ordinal * this.wordsPerItem,
+                    copy.categoryBits, ordinal * wordsPerItem, this.wordsPerItem);
+        }
+        copy.limit = size;
+        return copy;
+    }
+
+    /**
+     * Writes an item into its slot.
+     *
+     * @param ordinal The item ordinal
+     * @param itemId The item ID
+     * @param item The item
+     * @param categoryOrdinals The ordinals of the item's categories
+     * @param categoryCount The number of valid entries in categoryOrdinals
+     */
+    void set(int ordinal, String itemId, Item item, int[] categoryOrdinals, int categoryCount) {
+        itemIds[ordinal] = itemId;
+        items[ordinal] = item;
+        popularity[ordinal] = item.getPopularity();
+        creationTimestamps[ordinal] = item.getCreationTimestamp();
+
+        int base = ordinal * wordsPerItem;
+        Arrays.fill(categoryBits, base, base + wordsPerItem, 0L);
+        for (int i = 0; i < categoryCount; i++) {
+            int category = categoryOrdinals[i];
+            categoryBits[base + (category >>> 6)] |= 1L << category;
+        }
+    }
+
+    /**
+     * Empties an item slot.
+     *
+     * @param ordinal The item ordinal
+     */
+    void clear(int ordinal) {
+        itemIds[ordinal] = null;
+        items[ordinal] = null;
+        popularity[ordinal] = 0.0;
+        creationTimestamps[ordinal] = 0L;
+        int base = ordinal * wordsPerItem;
+        Arrays.fill(categoryBits, base, base + wordsPerItem, 0L);
+    }
+
+    /**
+     * Makes all slot writes so far visible to readers.
+     *
+     * @param newLimit One past the highest ordinal in use
+     */
+    void publish(int newLimit) {
+        limit = newLimit;
+    }
+
+    /**
+     * @return One past the highest ordinal in use
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * @return The number of item slots
+     */
+    public int capacity() {
+        return itemIds.length;
+    }
+
+    /**
+     * @return The number of 64-bit category words stored per item
+     */
+    public int wordsPerItem() {
+        return wordsPerItem;
+    }
+
+    public boolean isLive(int ordinal) {
+        return itemIds[ordinal] != null;
+    }
+
+    public String itemId(int ordinal) {
+        return itemIds[ordinal];
+    }
+
+    public Item item(int ordinal) {
+        return items[ordinal];
+    }
+
+    public double popularity(int ordinal) {
+        return popularity[ordinal];
+    }
+
+    public long creationTimestamp(int ordinal) {
+        return creationTimestamps[ordinal];
+    }
+
+    public long categoryWord(int ordinal, int word) {
+        return categoryBits[ordinal * wordsPerItem + word];
+    }
+}
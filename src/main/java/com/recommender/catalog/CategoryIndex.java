@@ -0,0 +1,68 @@
+package com.recommender.catalog;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from category to the ordinals of the items in that category.
+ * Postings are maintained incrementally as items are added, changed or removed,
+ * so candidate lookups never have to scan the whole catalog.
+ */
+public class CategoryIndex {
+
+    private final ConcurrentHashMap<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Moves an item from its previous categories to its current ones.
+     *
+     * @param ordinal The item ordinal
+     * @param previousCategories The categories the item was indexed under, or null if it is new
+     * @param currentCategories The categories the item belongs to now, or null if it was removed
+     */
+    public void update(int ordinal, Collection<String> previousCategories, Collection<String> currentCategories) {
+        if (previousCategories != null) {
+            for (String category : previousCategories) {
+                if (currentCategories == null || !currentCategories.contains(category)) {
+                    remove(category, ordinal);
+                }
+            }
+        }
+
+        if (currentCategories != null) {
+            for (String category : currentCategories) {
+                if (category != null) {
+                    postings.computeIfAbsent(category, c -> ConcurrentHashMap.newKeySet()).add(ordinal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the ordinals of all items in a category.
+     *
+     * @param category The category
+     * @return A live, read-only view of the posting list
+     */
+    public Set<Integer> itemsIn(String category) {
+        Set<Integer> items = postings.get(category);
+        return items != null ? Collections.unmodifiableSet(items) : Collections.emptySet();
+    }
+
+    /**
+     * Gets the number of categories that currently have at least one item.
+     *
+     * @return The number of categories
+     */
+    public int categoryCount() {
+        return postings.size();
+    }
+
+    private void remove(String category, int ordinal) {
+        postings.computeIfPresent(category, (c, items) -> {
+            items.remove(ordinal);
+            return items.isEmpty() ? null : items;
+        });
+    }
+}
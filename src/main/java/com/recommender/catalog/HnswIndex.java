@@ -0,0 +1,685 @@
+package com.recommender.catalog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest-neighbor search
+ * by cosine similarity.
+ * Vectors are normalized on insert; dimensions missing from a shorter vector count as zero,
+ * so the dimension can grow as new features appear. Updating a key inserts a new node and
+ * retires the old one, which stays in the graph for navigation but is never returned.
+ * {@link #compact} rebuilds the graph from the live nodes to reclaim retired ones.
+ * One writer and any number of concurrent readers are supported.
+ */
+public final class HnswIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357;  // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int m;
+    private final int maxLinksBase;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per-thread search buffers; visited marks use a generation stamp so they never need clearing
+    private final ThreadLocal<SearchScratch> scratch = ThreadLocal.withInitial(SearchScratch::new);
+
+    private final Map<String, Integer> nodeByKey = new HashMap<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private float[][] vectors = new float[INITIAL_CAPACITY][];
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+    private boolean[] retired = new boolean[INITIAL_CAPACITY];
+    private int nodeCount;
+    private int liveCount;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    /**
+     * @param m The number of links per node on upper levels; level 0 keeps twice as many
+     * @param efConstruction The candidate list size used while inserting
+     */
+    public HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.maxLinksBase = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    /**
+     * Adds or replaces the vector stored under a key.
+     * Replacing a key with an identical vector is a no-op, so replaying a catalog is cheap.
+     *
+     * @param key The key, e.g. an item ID
+     * @param vector The vector; it is copied
+     */
+    public void put(String key, float[] vector) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByKey.get(key);
+            if (existing != null) {
+                if (Arrays.equals(vectors[existing], normalized)) {
+                    return;
+                }
+                retire(existing);
+            }
+            if (normalized == null) {
+                return;
+            }
+            int node = insert(key, normalized);
+            nodeByKey.put(key, node);
+            liveCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a key from the results.
+     *
+     * @param key The key
+     */
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByKey.remove(key);
+            if (existing != null) {
+                retire(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the keys whose vectors are most similar to a query.
+     *
+     * @param query The query vector
+     * @param k The number of results wanted
+     * @param ef The candidate list size; larger is more accurate and slower
+     * @param outKeys Receives the keys, most similar first
+     * @param outSimilarities Receives the cosine similarities
+     * @return The number of results written
+     */
+    public int search(float[] query, int k, int ef, String[] outKeys, float[] outSimilarities) {
+        float[] normalized = normalize(query);
+        if (normalized == null) {
+            return 0;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return 0;
+            }
+            SearchScratch buffers = scratch.get();
+
+            int current = entryPoint;
+            for (int level = topLevel; level > 0; level--) {
+                current = greedyClosest(normalized, current, level);
+            }
+
+            NodeHeap results = searchLevel(normalized, current, Math.max(ef, k), 0, buffers);
+
+            // Results come out farthest first; skip retired nodes and keep the k closest
+            int resultCount = results.size();
+            int[] nodes = buffers.resultNodes(resultCount);
+            float[] distances = buffers.resultDistances(resultCount);
+            for (int i = resultCount - 1; i >= 0; i--) {
+                distances[i] = results.peekDistance();
+                nodes[i] = results.poll();
+            }
+
+            int written = 0;
+            for (int i = 0; i < resultCount && written < k; i++) {
+                if (!retired[nodes[i]]) {
+                    outKeys[written] = keys[nodes[i]];
+                    outSimilarities[written] = 1.0f - distances[i];
+                    written++;
+                }
+            }
+            return written;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of keys that can be returned
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of retired nodes still in the graph
+     */
+    public int retiredCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the live nodes, dropping every retired node.
+     * Only called by the writer; the new graph is built while readers keep searching the old one,
+     * and swapped in under the write lock.
+     */
+    public void compact() {
+        List<String> liveKeys = new ArrayList<>();
+        List<float[]> liveVectors = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int node = 0; node < nodeCount; node++) {
+                if (!retired[node]) {
+                    liveKeys.add(keys[node]);
+                    liveVectors.add(vectors[node]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        HnswIndex rebuilt = new HnswIndex(m, efConstruction);
+        for (int i = 0; i < liveKeys.size(); i++) {
+            // Vectors are already normalized
+            rebuilt.nodeByKey.put(liveKeys.get(i), rebuilt.insert(liveKeys.get(i), liveVectors.get(i)));
+        }
+
+        lock.writeLock().lock();
+        try {
+            nodeByKey.clear();
+            nodeByKey.putAll(rebuilt.nodeByKey);
+            keys = rebuilt.keys;
+            vectors = rebuilt.vectors;
+            links = rebuilt.links;
+            retired = rebuilt.retired;
+            nodeCount = rebuilt.nodeCount;
+            liveCount = rebuilt.nodeCount;
+            entryPoint = rebuilt.entryPoint;
+            topLevel = rebuilt.topLevel;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return A copy of the keys that can be returned
+     */
+    public List<String> keys() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(nodeByKey.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the graph, including retired nodes, so that it can be loaded without re-inserting.
+     * The graph is copied under the read lock and written after releasing it, so a slow stream
+     * does not hold up {@link #put} and {@link #remove}. Vectors are shared with the copy, as they
+     * are never modified once inserted; links and retired flags change in place and are copied.
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        int count;
+        int entry;
+        int top;
+        String[] keysCopy;
+        float[][] vectorsCopy;
+        boolean[] retiredCopy;
+        int[][][] linksCopy;
+        lock.readLock().lock();
+        try {
+            count = nodeCount;
+            entry = entryPoint;
+            top = topLevel;
+            keysCopy = Arrays.copyOf(keys, count);
+            vectorsCopy = Arrays.copyOf(vectors, count);
+            retiredCopy = Arrays.copyOf(retired, count);
+            linksCopy = new int[count][][];
+            for (int node = 0; node < count; node++) {
+                int[][] nodeLinks = links[node];
+                linksCopy[node] = new int[nodeLinks.length][];
+                for (int level = 0; level < nodeLinks.length; level++) {
+                    // Only the count and the links in use; the rest of the array is spare capacity
+                    linksCopy[node][level] = Arrays.copyOf(nodeLinks[level], nodeLinks[level][0] + 1);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(m);
+        out.writeInt(count);
+        out.writeInt(entry);
+        out.writeInt(top);
+        for (int node = 0; node < count; node++) {
+            out.writeUTF(keysCopy[node]);
+            out.writeBoolean(retiredCopy[node]);
+            out.writeInt(vectorsCopy[node].length);
+            for (float value : vectorsCopy[node]) {
+                out.writeFloat(value);
+            }
+            out.writeInt(linksCopy[node].length);
+            for (int[] levelLinks : linksCopy[node]) {
+                out.writeInt(levelLinks[0]);
+                for (int i = 1; i <= levelLinks[0]; i++) {
+                    out.writeInt(levelLinks[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of this index with a graph written by {@link #writeTo}.
+     *
+     * @param in The stream to read from
+     * @throws IOException If reading fails or the data was written with different parameters
+     */
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not an HNSW snapshot");
+        }
+        if (in.readInt() != m) {
+            throw new IOException("Snapshot was built with different parameters");
+        }
+
+        lock.writeLock().lock();
+        try {
+            int count = in.readInt();
+            int entry = in.readInt();
+            int top = in.readInt();
+
+            nodeByKey.clear();
+            ensureCapacity(count);
+            liveCount = 0;
+            for (int node = 0; node < count; node++) {
+                keys[node] = in.readUTF();
+                retired[node] = in.readBoolean();
+                float[] vector = new float[in.readInt()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = in.readFloat();
+                }
+                vectors[node] = vector;
+                int levels = in.readInt();
+                links[node] = new int[levels][];
+                for (int level = 0; level < levels; level++) {
+                    int linkCount = in.readInt();
+                    int[] levelLinks = new int[maxLinks(level) + 1];
+                    levelLinks[0] = linkCount;
+                    for (int i = 1; i <= linkCount; i++) {
+                        levelLinks[i] = in.readInt();
+                    }
+                    links[node][level] = levelLinks;
+                }
+                if (!retired[node]) {
+                    nodeByKey.put(keys[node], node);
+                    liveCount++;
+                }
+            }
+            nodeCount = count;
+            entryPoint = entry;
+            topLevel = top;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes everything from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodeByKey.clear();
+            Arrays.fill(keys, 0, nodeCount, null);
+            Arrays.fill(vectors, 0, nodeCount, null);
+            Arrays.fill(links, 0, nodeCount, null);
+            nodeCount = 0;
+            liveCount = 0;
+            entryPoint = -1;
+            topLevel = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int insert(String key, float[] vector) {
+        int node = nodeCount;
+        ensureCapacity(node + 1);
+        int level = randomLevel();
+
+        keys[node] = key;
+        vectors[node] = vector;
+        retired[node] = false;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxLinks(l) + 1];
+        }
+        nodeCount++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+
+        SearchScratch buffers = scratch.get();
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            NodeHeap candidates = searchLevel(vector, current, efConstruction, l, buffers);
+
+            // Keep the m closest candidates as this node's links; the heap pops farthest first
+            int[] closest = buffers.resultNodes(candidates.size());
+            int count = candidates.size();
+            for (int i = count - 1; i >= 0; i--) {
+                closest[i] = candidates.poll();
+            }
+            current = closest[0];
+
+            int linkCount = Math.min(m, count);
+            for (int i = 0; i < linkCount; i++) {
+                link(node, closest[i], l);
+                link(closest[i], node, l);
+            }
+        }
+
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a directed link, dropping the neighbor's farthest link if it is full.
+     */
+    private void link(int from, int to, int level) {
+        int[] fromLinks = links[from][level];
+        int count = fromLinks[0];
+        if (count < fromLinks.length - 1) {
+            fromLinks[++count] = to;
+            fromLinks[0] = count;
+            return;
+        }
+
+        float[] origin = vectors[from];
+        int farthest = -1;
+        float farthestDistance = distance(origin, vectors[to]);
+        for (int i = 1; i <= count; i++) {
+            float d = distance(origin, vectors[fromLinks[i]]);
+            if (d > farthestDistance) {
+                farthestDistance = d;
+                farthest = i;
+            }
+        }
+        if (farthest > 0) {
+            fromLinks[farthest] = to;
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float d = distance(query, vectors[neighbors[i]]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one level.
+     *
+     * @return A max-heap of the ef closest nodes found
+     */
+    private NodeHeap searchLevel(float[] query, int start, int ef, int level, SearchScratch buffers) {
+        int stamp = buffers.nextStamp(nodeCount);
+        int[] visited = buffers.visited;
+        NodeHeap candidates = buffers.candidates;
+        NodeHeap results = buffers.results;
+        candidates.reset(false);
+        results.reset(true);
+
+        float startDistance = distance(query, vectors[start]);
+        visited[start] = stamp;
+        candidates.push(start, startDistance);
+        results.push(start, startDistance);
+
+        while (candidates.size() > 0) {
+            float closestDistance = candidates.peekDistance();
+            if (results.size() >= ef && closestDistance > results.peekDistance()) {
+                break;
+            }
+            int closest = candidates.poll();
+
+            int[] neighbors = links[closest][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited[neighbor] == stamp) {
+                    continue;
+                }
+                visited[neighbor] = stamp;
+
+                float d = distance(query, vectors[neighbor]);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(neighbor, d);
+                    results.push(neighbor, d);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private void retire(int node) {
+        if (!retired[node]) {
+            retired[node] = true;
+            liveCount--;
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxLinksBase : m;
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - random.nextDouble();  // (0, 1]
+        return (int) (-Math.log(uniform) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (keys.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        vectors = Arrays.copyOf(vectors, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+        retired = Arrays.copyOf(retired, newCapacity);
+    }
+
+    /**
+     * Cosine distance between normalized vectors.
+     */
+    private static float distance(float[] a, float[] b) {
+        int length = Math.min(a.length, b.length);
+        float dot = 0.0f;
+        for (int i = 0; i < length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1.0f - dot;
+    }
+
+    /**
+     * @return A normalized copy, or null for a zero or missing vector
+     */
+    private static float[] normalize(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        double norm = 0.0;
+        for (float value : vector) {
+            norm += (double) value * value;
+        }
+        if (norm == 0.0) {
+            return null;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Binary heap of node IDs ordered by distance; a min-heap or, when reversed, a max-heap.
+     */
+    private static final class NodeHeap {
+        private int[] nodes = new int[64];
+        private float[] distances = new float[64];
+        private int size;
+        private boolean max;
+
+        void reset(boolean max) {
+            this.max = max;
+            this.size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekDistance() {
+            return distances[0];
+        }
+
+        void push(int node, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        int poll() {
+            int top = nodes[0];
+            size--;
+            int lastNode = nodes[size];
+            float lastDistance = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!before(distances[child], lastDistance)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            distances[i] = lastDistance;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+
+    /**
+     * Buffers reused by searches on one thread.
+     */
+    private static final class SearchScratch {
+        final NodeHeap candidates = new NodeHeap();
+        final NodeHeap results = new NodeHeap();
+        int[] visited = new int[INITIAL_CAPACITY];
+        int stamp;
+        private int[] resultNodes = new int[64];
+        private float[] resultDistances = new float[64];
+
+        int nextStamp(int nodeCount) {
+            if (visited.length < nodeCount) {
+                visited = Arrays.copyOf(visited, Math.max(nodeCount, visited.length * 2));
+            }
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+
+        int[] resultNodes(int size) {
+            if (resultNodes.length < size) {
+                resultNodes = new int[size];
+            }
+            return resultNodes;
+        }
+
+        float[] resultDistances(int size) {
+            if (resultDistances.length < size) {
+                resultDistances = new float[size];
+            }
+            return resultDistances;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.recommender.catalog;
+
+import com.recommender.model.Item;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory view of the item catalog used for candidate generation and scoring.
+ * Kept up to date incrementally from the items topic and shared by all stream threads.
+ * Item data is held column-wise in a {@link CatalogSnapshot}; items are addressed by
+ * dense ordinals that are recycled when items are removed.
+ * Writes come from a single updater thread; reads are lock-free.
+ */
+@Component
+public class ItemCatalog {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CHANGE_LOG_CAPACITY = 4096;
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final Map<String, Integer> categoryOrdinals = new ConcurrentHashMap<>();
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final ItemChangeLog changes = new ItemChangeLog(CHANGE_LOG_CAPACITY);
+
+    // All items ordered by descending popularity, used for the popular-items candidate pool
+    private final NavigableSet<PopularityEntry> byPopularity = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(PopularityEntry::getPopularity).reversed()
+                    .thenComparingInt(PopularityEntry::getOrdinal));
+
+    private volatile CatalogSnapshot columns = new CatalogSnapshot(INITIAL_CAPACITY, 1);
+    private int nextOrdinal;
+    private int[] categoryScratch = new int[16];
+
+    /**
+     * Adds an item to the catalog or replaces the existing version of it.
+     *
+     * @param itemId The item ID
+     * @param item The current version of the item
+     */
+    public synchronized void upsert(String itemId, Item item) {
+        Integer existing = ordinals.get(itemId);
+        int ordinal = existing != null ? existing : allocateOrdinal();
+
+        // Resolve category ordinals, registering categories seen for the first time
+        int categoryCount = 0;
+        if (item.getCategories() != null) {
+            if (categoryScratch.length < item.getCategories().size()) {
+                categoryScratch = new int[item.getCategories().size()];
+            }
+            for (String category : item.getCategories()) {
+                if (category != null) {
+                    categoryScratch[categoryCount++] = categoryOrdinals.computeIfAbsent(
+                            category, c -> categoryOrdinals.size());
+                }
+            }
+        }
+
+        CatalogSnapshot snapshot = ensureCapacity(ordinal + 1, wordsFor(categoryOrdinals.size()));
+        Item previous = snapshot.item(ordinal);
+
+        snapshot.set(ordinal, itemId, item, categoryScratch, categoryCount);
+        ordinals.put(itemId, ordinal);
+
+        categoryIndex.update(ordinal,
+                previous != null ? previous.getCategories() : null,
+                item.getCategories());
+
+        if (previous != null) {
+            byPopularity.remove(new PopularityEntry(ordinal, previous.getPopularity()));
+        }
+        byPopularity.add(new PopularityEntry(ordinal, item.getPopularity()));
+
+        snapshot.publish(Math.max(snapshot.limit(), ordinal + 1));
+        changes.append(itemId, previous != null ? previous.getCategories() : null, item.getCategories());
+    }
+
+    /**
+     * Removes an item from the catalog.
+     *
+     * @param itemId The item ID
+     */
+    public synchronized void remove(String itemId) {
+        Integer ordinal = ordinals.remove(itemId);
+        if (ordinal == null) {
+            return;
+        }
+
+        CatalogSnapshot snapshot = columns;
+        Item previous = snapshot.item(ordinal);
+
+        categoryIndex.update(ordinal, previous.getCategories(), null);
+        byPopularity.remove(new PopularityEntry(ordinal, previous.getPopularity()));
+
+        snapshot.clear(ordinal);
+        snapshot.publish(snapshot.limit());
+        freeOrdinals.push(ordinal);
+        changes.append(itemId, previous.getCategories(), null);
+    }
+
+    /**
+     * Gets an item by ID.
+     *
+     * @param itemId The item ID
+     * @return The item, or null if it is not in the catalog
+     */
+    public Item get(String itemId) {
+        Integer ordinal = ordinals.get(itemId);
+        return ordinal != null ? snapshot().item(ordinal) : null;
+    }
+
+    /**
+     * Gets the ordinal of an item.
+     *
+     * @param itemId The item ID
+     * @return The ordinal, or -1 if the item is not in the catalog
+     */
+    public int ordinalOf(String itemId) {
+        Integer ordinal = ordinals.get(itemId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Gets the ordinal of a category.
+     *
+     * @param category The category
+     * @return The ordinal, or -1 if no item has ever been in this category
+     */
+    public int categoryOrdinal(String category) {
+        Integer ordinal = categoryOrdinals.get(category);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Gets the number of items in the catalog.
+     *
+     * @return The catalog size
+     */
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Gets the log of recent item changes, published after the change is visible in the catalog.
+     *
+     * @return The change log
+     */
+    public ItemChangeLog changes() {
+        return changes;
+    }
+
+    /**
+     * Gets the current columnar view of the catalog.
+     *
+     * @return The catalog snapshot
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = columns;
+        // Volatile read of the limit makes every slot write published before it visible
+        snapshot.limit();
+        return snapshot;
+    }
+
+    /**
+     * Collects candidate item ordinals for a user: every item in one of the given categories
+     * plus the most popular items overall.
+     *
+     * @param categories The categories the user has a preference for
+     * @param popularPoolSize The number of popular items to always include
+     * @param candidates The buffer to fill; it is cleared first
+     */
+    public void collectCandidates(Collection<String> categories, int popularPoolSize,
+                                  CandidateBuffer candidates) {
+        candidates.clear();
+
+        if (categories != null) {
+            for (String category : categories) {
+                for (Integer ordinal : categoryIndex.itemsIn(category)) {
+                    candidates.add(ordinal);
+                }
+            }
+        }
+
+        Iterator<PopularityEntry> popular = byPopularity.iterator();
+        for (int i = 0; i < popularPoolSize && popular.hasNext(); i++) {
+            candidates.add(popular.next().getOrdinal());
+        }
+    }
+
+    private int allocateOrdinal() {
+        Integer free = freeOrdinals.poll();
+        return free != null ? free : nextOrdinal++;
+    }
+
+    private CatalogSnapshot ensureCapacity(int requiredCapacity, int requiredWords) {
+        CatalogSnapshot snapshot = columns;
+        if (snapshot.capacity() >= requiredCapacity && snapshot.wordsPerItem() >= requiredWords) {
+            return snapshot;
+        }
+
+        int capacity = snapshot.capacity();
+        while (capacity < requiredCapacity) {
+            capacity *= 2;
+        }
+
+        CatalogSnapshot grown = snapshot.grow(capacity, Math.max(snapshot.wordsPerItem(), requiredWords));
+        columns = grown;
+        return grown;
+    }
+
+    private static int wordsFor(int categoryCount) {
+        return Math.max(1, (categoryCount + 63) >>> 6);
+    }
+
+    /**
+     * Entry in the popularity ordering.
+     */
+    private static final class PopularityEntry {
+        private final int ordinal;
+        private final double popularity;
+
+        PopularityEntry(int ordinal, double popularity) {
+            this.ordinal = ordinal;
+            this.popularity = popularity;
+        }
+
+        int getOrdinal() {
+            return ordinal;
+        }
+
+        double getPopularity() {
+            return popularity;
+        }
+    }
+}
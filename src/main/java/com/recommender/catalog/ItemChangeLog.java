@@ -0,0 +1,112 @@
+package com.recommender.catalog;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Bounded log of recent item changes, written by the catalog updater and read by any number
+ * of consumers that each keep their own position.
+ * A consumer that falls more than the capacity behind cannot see the changes it missed; it is told
+ * how many there were, so it can fall back to work that does not depend on them.
+ */
+public class ItemChangeLog {
+
+    /**
+     * An item that was added, changed or removed, with the categories it was in before and after.
+     */
+    public static final class ItemChange {
+        private final String itemId;
+        private final Set<String> categories;
+
+        ItemChange(String itemId, Set<String> categories) {
+            this.itemId = itemId;
+            this.categories = categories;
+        }
+
+        public String itemId() {
+            return itemId;
+        }
+
+        public Set<String> categories() {
+            return categories;
+        }
+    }
+
+    private final ItemChange[] entries;
+    private final int mask;
+
+    // Sequence number of the next change; entries below it are published
+    private volatile long head;
+
+    /**
+     * @param capacity The number of changes kept, rounded up to a power of two
+     */
+    public ItemChangeLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new ItemChange[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Appends a change. Only called by the single catalog writer.
+     *
+     * @param itemId The item ID
+     * @param previousCategories The item's categories before the change, or null if it is new
+     * @param currentCategories The item's categories after the change, or null if it was removed
+     */
+    void append(String itemId, Collection<String> previousCategories, Collection<String> currentCategories) {
+        Set<String> categories = new HashSet<>();
+        if (previousCategories != null) {
+            categories.addAll(previousCategories);
+        }
+        if (currentCategories != null) {
+            categories.addAll(currentCategories);
+        }
+        categories.remove(null);
+
+        long sequence = head;
+        entries[(int) (sequence & mask)] = new ItemChange(itemId, Collections.unmodifiableSet(categories));
+        head = sequence + 1;
+    }
+
+    /**
+     * @return The position after the latest change, for consumers that only want future changes
+     */
+    public long head() {
+        return head;
+    }
+
+    /**
+     * Passes every change after a position to a consumer.
+     *
+     * @param position The consumer's position
+     * @param consumer Receives the changes, oldest first
+     * @param overrun Receives the number of changes that were overwritten before they could be read,
+     *                if any; called at most once, after the changes that could be read
+     * @return The consumer's new position
+     */
+    public long read(long position, Consumer<ItemChange> consumer, LongConsumer overrun) {
+        long end = head;
+        long start = Math.max(position, end - entries.length);
+        for (long sequence = start; sequence < end; sequence++) {
+            ItemChange change = entries[(int) (sequence & mask)];
+            // The writer may have lapped this slot while we were reading; the newer entry is
+            // a change we would have seen anyway, so handing it out is harmless
+            if (change != null) {
+                consumer.accept(change);
+            }
+        }
+
+        // Changes before the oldest slot still intact when we finished were lost, whether before
+        // we started or by being lapped while we read
+        long oldestIntact = Math.min(end, head - entries.length);
+        if (oldestIntact > position) {
+            overrun.accept(oldestIntact - position);
+        }
+        return end;
+    }
+}
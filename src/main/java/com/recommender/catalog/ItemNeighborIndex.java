@@ -0,0 +1,66 @@
+package com.recommender.catalog;
+
+import com.recommender.model.ItemNeighbors;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of each item's strongest co-occurring items, used for candidate generation.
+ * Kept up to date from the item neighbors topic and shared by all stream threads.
+ * Each list is bounded, so memory grows only with the number of items.
+ */
+@Component
+public class ItemNeighborIndex {
+
+    private static final String[] NONE = new String[0];
+
+    private final Map<String, String[]> neighbors = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces an item's neighbors.
+     *
+     * @param itemId The item ID
+     * @param itemNeighbors The item's neighbors, strongest first
+     */
+    public void update(String itemId, ItemNeighbors itemNeighbors) {
+        if (itemNeighbors.getNeighbors() == null || itemNeighbors.getNeighbors().isEmpty()) {
+            neighbors.remove(itemId);
+            return;
+        }
+        String[] ids = new String[itemNeighbors.getNeighbors().size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = itemNeighbors.getNeighbors().get(i).getItemId();
+        }
+        neighbors.put(itemId, ids);
+    }
+
+    /**
+     * Removes an item's neighbors.
+     *
+     * @param itemId The item ID
+     */
+    public void remove(String itemId) {
+        neighbors.remove(itemId);
+    }
+
+    /**
+     * Gets the items most often seen together with an item.
+     *
+     * @param itemId The item ID
+     * @return The neighbor item IDs, strongest first; empty if none are known
+     */
+    public String[] neighborsOf(String itemId) {
+        return neighbors.getOrDefault(itemId, NONE);
+    }
+
+    /**
+     * Gets the number of items with known neighbors.
+     *
+     * @return The number of items
+     */
+    public int size() {
+        return neighbors.size();
+    }
+}
@@ -0,0 +1,276 @@
+package com.recommender.catalog;
+
+import com.recommender.model.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest-neighbor index over item feature vectors, used to find the items closest
+ * to a user's feature preferences.
+ * Each feature name is given a dimension the first time it is seen, so items and users are
+ * compared on the same axes. Features are expected to be on comparable scales.
+ * The index is kept up to date from the items topic and written to local disk periodically and
+ * on shutdown; on restart the snapshot is loaded and replaying the catalog only re-inserts items
+ * whose features changed.
+ * Updated and removed items leave retired nodes in the graph; once they outnumber a configured
+ * fraction of the live items, the graph is rebuilt from the live items.
+ */
+@Component
+@Slf4j
+public class ItemVectorIndex {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final HnswIndex index;
+    private final int efSearch;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService snapshotExecutor;
+    private final double maxRetiredFraction;
+    private final int minRetiredToCompact;
+
+    private final Map<String, Integer> dimensions = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    // Query buffers are reused per thread
+    private final ThreadLocal<float[]> similarities;
+
+    public ItemVectorIndex(
+            @Value("${recommender.ann.m:16}") int m,
+            @Value("${recommender.ann.ef-construction:100}") int efConstruction,
+            @Value("${recommender.ann.ef-search:64}") int efSearch,
+            @Value("${recommender.ann.snapshot-path:}") String snapshotPath,
+            @Value("${recommender.ann.snapshot-interval-ms:300000}") long snapshotIntervalMs,
+            @Value("${recommender.ann.max-retired-fraction:0.5}") double maxRetiredFraction,
+            @Value("${recommender.ann.min-retired-to-compact:1000}") int minRetiredToCompact) {
+        this.index = new HnswIndex(m, efConstruction);
+        this.efSearch = efSearch;
+        this.maxRetiredFraction = maxRetiredFraction;
+        this.minRetiredToCompact = minRetiredToCompact;
+        this.similarities = ThreadLocal.withInitial(() -> new float[Math.max(efSearch, 16)]);
+        this.snapshotPath = snapshotPath.isEmpty() ? null : Paths.get(snapshotPath);
+
+        if (this.snapshotPath != null) {
+            loadSnapshot();
+            snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "item-vector-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotExecutor.scheduleWithFixedDelay(this::saveSnapshotIfDirty,
+                    snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            snapshotExecutor = null;
+        }
+    }
+
+    /**
+     * Adds or updates an item's vector. Items without numeric features are removed.
+     * Must only be called from one thread at a time.
+     *
+     * @param itemId The item ID
+     * @param item The item
+     */
+    public void upsert(String itemId, Item item) {
+        Map<String, Double> features = item.getFeatures();
+        if (features == null || features.isEmpty()) {
+            remove(itemId);
+            return;
+        }
+
+        // Size the vector by the item's own features, so an unchanged item maps to the same vector
+        int length = 0;
+        for (String feature : features.keySet()) {
+            length = Math.max(length, dimensionOf(feature) + 1);
+        }
+        float[] vector = new float[length];
+        for (Map.Entry<String, Double> feature : features.entrySet()) {
+            if (feature.getValue() != null) {
+                vector[dimensions.get(feature.getKey())] = feature.getValue().floatValue();
+            }
+        }
+
+        index.put(itemId, vector);
+        dirty = true;
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes an item.
+     *
+     * @param itemId The item ID
+     */
+    public void remove(String itemId) {
+        index.remove(itemId);
+        dirty = true;
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes the items that no longer exist, e.g. after loading a snapshot older than the catalog.
+     *
+     * @param exists Tests whether an item ID is still in the catalog
+     */
+    public void retainIf(Predicate<String> exists) {
+        for (String itemId : index.keys()) {
+            if (!exists.test(itemId)) {
+                remove(itemId);
+            }
+        }
+    }
+
+    /**
+     * Finds the items whose features best match a set of feature preferences.
+     *
+     * @param featurePreferences Feature name to preference weight
+     * @param outItemIds Receives the item IDs, best match first; its length is the number wanted
+     * @return The number of item IDs written
+     */
+    public int nearest(Map<String, Double> featurePreferences, String[] outItemIds) {
+        if (featurePreferences == null || featurePreferences.isEmpty() || outItemIds.length == 0) {
+            return 0;
+        }
+
+        // Features no item has are ignored
+        float[] query = new float[dimensions.size()];
+        boolean any = false;
+        for (Map.Entry<String, Double> preference : featurePreferences.entrySet()) {
+            Integer dimension = dimensions.get(preference.getKey());
+            if (dimension != null && dimension < query.length && preference.getValue() != null) {
+                query[dimension] = preference.getValue().floatValue();
+                any = true;
+            }
+        }
+        if (!any) {
+            return 0;
+        }
+
+        float[] scratch = similarities.get();
+        if (scratch.length < outItemIds.length) {
+            scratch = new float[outItemIds.length];
+            similarities.set(scratch);
+        }
+        return index.search(query, outItemIds.length, efSearch, outItemIds, scratch);
+    }
+
+    /**
+     * Gets the number of indexed items.
+     *
+     * @return The number of items
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Writes the index to the snapshot file, replacing the previous snapshot atomically.
+     */
+    public synchronized void saveSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        // Clear first, so changes made while writing are picked up by the next snapshot
+        dirty = false;
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                index.writeTo(out);
+                // Dimensions are only ever added, and before the vectors that use them,
+                // so copying them after the graph covers every vector in it
+                Map<String, Integer> dimensionsCopy = Map.copyOf(dimensions);
+                out.writeInt(dimensionsCopy.size());
+                for (Map.Entry<String, Integer> dimension : dimensionsCopy.entrySet()) {
+                    out.writeUTF(dimension.getKey());
+                    out.writeInt(dimension.getValue());
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved item vector index with {} items to {}", index.size(), snapshotPath);
+        } catch (IOException e) {
+            dirty = true;
+            log.error("Error saving item vector index to {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdownNow();
+            saveSnapshotIfDirty();
+        }
+    }
+
+    private void saveSnapshotIfDirty() {
+        if (dirty) {
+            saveSnapshot();
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version");
+            }
+            index.readFrom(in);
+            int dimensionCount = in.readInt();
+            for (int i = 0; i < dimensionCount; i++) {
+                dimensions.put(in.readUTF(), in.readInt());
+            }
+            log.info("Loaded item vector index with {} items from {}", index.size(), snapshotPath);
+        } catch (IOException e) {
+            // A stale or damaged snapshot only costs a rebuild from the catalog
+            log.warn("Ignoring item vector snapshot {}: {}", snapshotPath, e.getMessage());
+            dimensions.clear();
+            index.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the graph once retired nodes make up too much of it, on the writer's thread.
+     */
+    private void compactIfNeeded() {
+        int retired = index.retiredCount();
+        if (retired < minRetiredToCompact || retired <= maxRetiredFraction * index.size()) {
+            return;
+        }
+        long start = System.nanoTime();
+        index.compact();
+        log.info("Compacted item vector index: dropped {} retired nodes, {} items in {} ms",
+                retired, index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private int dimensionOf(String feature) {
+        Integer dimension = dimensions.get(feature);
+        if (dimension == null) {
+            dimension = dimensions.size();
+            dimensions.put(feature, dimension);
+        }
+        return dimension;
+    }
+}
@@ -0,0 +1,83 @@
+package com.recommender.catalog;
+
+/**
+ * Result of ranking a user's candidates: item ordinals and scores, best first, together with
+ * the snapshot and scoring context they were computed against.
+ * Instances are scratch space, either {@link TopNScorer}'s per-thread buffers or owned by a
+ * caller such as a fork-join task, and are overwritten by the next ranking into them.
+ */
+public final class RankedItems {
+
+    final UserScoringContext user = new UserScoringContext();
+    final CandidateBuffer candidates = new CandidateBuffer();
+    final TopKHeap topItems = new TopKHeap();
+
+    CatalogSnapshot snapshot;
+    ScoringKernel kernel;
+
+    private String[] nearestItems = new String[0];
+    private int[] ordinals = new int[16];
+    private double[] scores = new double[16];
+    private int size;
+
+    String[] nearestItems(int count) {
+        if (nearestItems.length != count) {
+            nearestItems = new String[count];
+        }
+        return nearestItems;
+    }
+
+    void drain(TopKHeap heap) {
+        if (ordinals.length < heap.size()) {
+            ordinals = new int[heap.size()];
+            scores = new double[heap.size()];
+        }
+        size = heap.drainDescending(ordinals, scores);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int ordinal(int rank) {
+        return ordinals[rank];
+    }
+
+    public double score(int rank) {
+        return scores[rank];
+    }
+
+    /**
+     * @return The kernel the items were scored with
+     */
+    public ScoringKernel kernel() {
+        return kernel;
+    }
+
+    /**
+     * @return The catalog snapshot the items were scored against
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the category component of an item's score, for explanations.
+     *
+     * @param rank The position in the ranking
+     * @return The category match score
+     */
+    public double categoryScore(int rank) {
+        return kernel.categoryScore(snapshot, ordinals[rank], user);
+    }
+
+    /**
+     * Gets the collaborative component of an item's score, for explanations.
+     *
+     * @param rank The position in the ranking
+     * @return The factor score
+     */
+    public double factorScore(int rank) {
+        return kernel.factorScore(snapshot, ordinals[rank], user);
+    }
+}
@@ -0,0 +1,63 @@
+package com.recommender.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Worker threads that stream threads hand scoring work to, so scoring throughput can grow with
+ * the number of cores rather than the number of stream threads.
+ * The pool is bounded and separate from the common pool; a stream thread waits for the work it
+ * submits, so the pool never runs more scoring than its parallelism however many tasks submit.
+ * By default it has one thread per core left over after the stream threads, which are busy
+ * reading stores and writing results while the pool scores.
+ */
+@Component
+@Slf4j
+public class ScoringPool {
+
+    private final ForkJoinPool pool;
+
+    public ScoringPool(@Value("${recommender.scoring.parallelism:0}") int parallelism,
+                       @Value("${recommender.streams.num-stream-threads:1}") int streamThreads) {
+        int threads = parallelism > 0
+                ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - streamThreads);
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("recommendation-scorer-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        log.info("Scoring pool started with {} threads", threads);
+    }
+
+    /**
+     * @return The number of worker threads
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Runs a task on the pool and waits for it.
+     * Called from one of the pool's own workers, the task runs within the current task instead,
+     * so nested parallel work shares the pool's threads.
+     *
+     * @param task The task
+     * @param <T> The task's result type
+     * @return The task's result
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.recommender.catalog;
+
+/**
+ * Bounded min-heap of (item ordinal, score) pairs backed by primitive arrays.
+ * Keeps the K highest scores seen so far; the root is the weakest entry kept.
+ * Reusable across users via {@link #reset(int)}.
+ */
+public final class TopKHeap {
+
+    private int[] ordinals = new int[16];
+    private double[] scores = new double[16];
+    private int size;
+    private int capacity;
+
+    /**
+     * Empties the heap and sets how many entries it keeps.
+     *
+     * @param k The number of entries to keep
+     */
+    public void reset(int k) {
+        if (ordinals.length < k) {
+            ordinals = new int[k];
+            scores = new double[k];
+        }
+        capacity = k;
+        size = 0;
+    }
+
+    /**
+     * Offers a scored item to the heap.
+     *
+     * @param ordinal The item ordinal
+     * @param score The item score
+     */
+    public void offer(int ordinal, double score) {
+        if (size < capacity) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && score > scores[0]) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merges all entries of another heap into this one.
+     *
+     * @param other The heap to merge
+     */
+    public void addAll(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the heap into the given arrays, best score first.
+     *
+     * @param outOrdinals Receives the item ordinals
+     * @param outScores Receives the scores
+     * @return The number of entries written
+     */
+    public int drainDescending(int[] outOrdinals, double[] outScores) {
+        int count = size;
+        // Popping the minimum repeatedly fills the output from the back
+        for (int i = count - 1; i >= 0; i--) {
+            outOrdinals[i] = ordinals[0];
+            outScores[i] = scores[0];
+            size--;
+            if (size > 0) {
+                ordinals[0] = ordinals[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    private void siftUp(int index) {
+        int ordinal = ordinals[index];
+        double score = scores[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            ordinals[index] = ordinals[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index) {
+        int ordinal = ordinals[index];
+        double score = scores[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            ordinals[index] = ordinals[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+}
@@ -0,0 +1,206 @@
+package com.recommender.catalog;
+
+import com.recommender.ml.ScoringModel;
+import com.recommender.model.UserProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scores a user's candidate items and keeps the best N.
+ * Candidates are the items in the user's preferred categories, the items that co-occur with
+ * what the user recently viewed, the items whose features are nearest the user's feature
+ * preferences, and a pool of popular items;
+ * scoring runs on the columnar catalog snapshot with reused buffers, so ranking a user
+ * does not allocate per item. Stream threads use per-thread buffers; fork-join tasks pass their
+ * own, since a worker waiting on a join may run another task that ranks on the same thread.
+ * In catalogs of at least a configured size, a user with more candidates than one shard has
+ * their candidates split into contiguous shards that are scored in parallel on the
+ * {@link ScoringPool}, and the best N of each shard are merged.
+ */
+@Component
+public class TopNScorer {
+
+    // Scoring buffers are reused per thread, for callers outside the scoring pool
+    private static final ThreadLocal<RankedItems> SCRATCH = ThreadLocal.withInitial(RankedItems::new);
+
+    private final ItemCatalog itemCatalog;
+    private final ItemNeighborIndex itemNeighborIndex;
+    private final ItemVectorIndex itemVectorIndex;
+    private final int nearestFeatureCandidates;
+    private final ScoringPool scoringPool;
+    private final int parallelCatalogSize;
+    private final int shardSize;
+
+    public TopNScorer(ItemCatalog itemCatalog, ItemNeighborIndex itemNeighborIndex,
+                      ItemVectorIndex itemVectorIndex,
+                      @Value("${recommender.ann.candidates:50}") int nearestFeatureCandidates,
+                      ScoringPool scoringPool,
+                      @Value("${recommender.scoring.parallel-catalog-size:1000000}") int parallelCatalogSize,
+                      @Value("${recommender.scoring.shard-size:65536}") int shardSize) {
+        this.itemCatalog = itemCatalog;
+        this.itemNeighborIndex = itemNeighborIndex;
+        this.itemVectorIndex = itemVectorIndex;
+        this.nearestFeatureCandidates = nearestFeatureCandidates;
+        this.scoringPool = scoringPool;
+        this.parallelCatalogSize = parallelCatalogSize;
+        this.shardSize = Math.max(1, shardSize);
+    }
+
+    /**
+     * Loads a user into a scoring context: the profile translated into ordinals and the
+     * user's latent factors from the model's factor tables.
+     *
+     * @param user The context to reset
+     * @param catalog The snapshot that will be scored against
+     * @param userProfile The user's profile
+     * @param model The scoring model
+     * @param nowMillis The reference time for recency scoring
+     */
+    public void prepare(UserScoringContext user, CatalogSnapshot catalog, UserProfile userProfile,
+                        ScoringModel model, long nowMillis) {
+        user.reset(itemCatalog, catalog, userProfile, nowMillis);
+        user.loadFactors(model.factors(), userProfile.getUserId());
+    }
+
+    /**
+     * Ranks candidate items for a user, into this thread's buffers.
+     * Not for use inside fork-join tasks.
+     *
+     * @param userProfile The user's profile
+     * @param model The scoring model; experiment variants may change the kernel for this user
+     * @param popularPoolSize The number of popular items always scored
+     * @param n The number of items to keep
+     * @param nowMillis The reference time for recency scoring
+     * @return The best items, best first; only valid until the next call on the same thread
+     */
+    public RankedItems rank(UserProfile userProfile, ScoringModel model, int popularPoolSize,
+                            int n, long nowMillis) {
+        return rank(SCRATCH.get(), itemCatalog.snapshot(), userProfile, model, popularPoolSize, n, nowMillis);
+    }
+
+    /**
+     * Ranks candidate items for a user against a given snapshot, into caller-owned buffers, so
+     * that a batch of users can share one snapshot. Safe to call from several threads at once
+     * with different buffers; fork-join tasks must use this rather than the per-thread buffers.
+     *
+     * @param ranked The buffers to rank into; overwritten
+     * @param catalog The snapshot to score against
+     * @param userProfile The user's profile
+     * @param model The scoring model; experiment variants may change the kernel for this user
+     * @param popularPoolSize The number of popular items always scored
+     * @param n The number of items to keep
+     * @param nowMillis The reference time for recency scoring
+     * @return The given buffers, holding the best items, best first
+     */
+    public RankedItems rank(RankedItems ranked, CatalogSnapshot catalog, UserProfile userProfile,
+                            ScoringModel model, int popularPoolSize, int n, long nowMillis) {
+        ScoringKernel kernel = model.kernelFor(userProfile.getUserId());
+        ranked.snapshot = catalog;
+        ranked.kernel = kernel;
+
+        // Translate the profile into ordinals; purchased items are excluded
+        UserScoringContext user = ranked.user;
+        prepare(user, catalog, userProfile, model, nowMillis);
+
+        // Collect candidates from the category index and the popular-items pool
+        CandidateBuffer candidates = ranked.candidates;
+        itemCatalog.collectCandidates(
+                userProfile.getCategoryPreferences() != null ?
+                        userProfile.getCategoryPreferences().keySet() : null,
+                popularPoolSize, candidates);
+
+        // Add the items most often seen together with the user's recently viewed items
+        if (userProfile.getRecentlyViewedItems() != null) {
+            for (String viewed : userProfile.getRecentlyViewedItems()) {
+                for (String neighbor : itemNeighborIndex.neighborsOf(viewed)) {
+                    int ordinal = itemCatalog.ordinalOf(neighbor);
+                    if (ordinal >= 0) {
+                        candidates.add(ordinal);
+                    }
+                }
+            }
+        }
+
+        // Add the items whose features are nearest the user's feature preferences
+        String[] nearest = ranked.nearestItems(nearestFeatureCandidates);
+        int nearestCount = itemVectorIndex.nearest(userProfile.getFeaturePreferences(), nearest);
+        for (int i = 0; i < nearestCount; i++) {
+            int ordinal = itemCatalog.ordinalOf(nearest[i]);
+            if (ordinal >= 0) {
+                candidates.add(ordinal);
+            }
+        }
+
+        // Keep the best N candidates
+        TopKHeap topItems = ranked.topItems;
+        topItems.reset(n);
+
+        if (itemCatalog.size() >= parallelCatalogSize && candidates.size() > shardSize) {
+            topItems.addAll(scoringPool.invoke(
+                    new ShardTask(catalog, kernel, user, candidates, n, 0, candidates.size())));
+        } else {
+            score(catalog, kernel, user, candidates, 0, candidates.size(), topItems);
+        }
+
+        ranked.drain(topItems);
+        return ranked;
+    }
+
+    private static void score(CatalogSnapshot catalog, ScoringKernel kernel, UserScoringContext user,
+                              CandidateBuffer candidates, int from, int to, TopKHeap topItems) {
+        for (int i = from; i < to; i++) {
+            int ordinal = candidates.get(i);
+            // The catalog may have grown past this snapshot since the candidates were collected
+            if (ordinal >= catalog.capacity() || !catalog.isLive(ordinal) || user.isExcluded(ordinal)) {
+                continue;
+            }
+            topItems.offer(ordinal, kernel.score(catalog, ordinal, user));
+        }
+    }
+
+    /**
+     * Scores a contiguous range of candidates, splitting it in halves down to one shard each.
+     * Shards only read the snapshot, the user context and the candidates, and each keeps its
+     * own heap, which is merged into its parent's.
+     */
+    private final class ShardTask extends RecursiveTask<TopKHeap> {
+
+        private final CatalogSnapshot catalog;
+        private final ScoringKernel kernel;
+        private final UserScoringContext user;
+        private final CandidateBuffer candidates;
+        private final int n;
+        private final int from;
+        private final int to;
+
+        ShardTask(CatalogSnapshot catalog, ScoringKernel kernel, UserScoringContext user,
+                  CandidateBuffer candidates, int n, int from, int to) {
+            this.catalog = catalog;
+            this.kernel = kernel;
+            this.user = user;
+            this.candidates = candidates;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from > shardSize) {
+                int middle = (from + to) >>> 1;
+                ShardTask left = new ShardTask(catalog, kernel, user, candidates, n, from, middle);
+                left.fork();
+                TopKHeap right = new ShardTask(catalog, kernel, user, candidates, n, middle, to).compute();
+                TopKHeap merged = left.join();
+                merged.addAll(right);
+                return merged;
+            }
+            TopKHeap shard = new TopKHeap();
+            shard.reset(n);
+            score(catalog, kernel, user, candidates, from, to, shard);
+            return shard;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.recommender.catalog;
+
+import com.recommender.ml.FactorModel;
+import com.recommender.ml.FactorTable;
+import com.recommender.model.UserProfile;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Per-user inputs to the {@link ScoringKernel}, translated into catalog ordinals:
+ * category preferences as a dense array plus a category bitmask, purchased items as
+ * an item bitset, the user's latent factors if a factor model knows them, and the reference
+ * time used for recency.
+ * Meant to be kept per thread and reset for each user.
+ */
+public final class UserScoringContext {
+
+    private double[] categoryPreferences = new double[64];
+    private long[] categoryMask = new long[1];
+    private long[] excluded = new long[16];
+    private int[] excludedOrdinals = new int[16];
+    private int excludedCount;
+    private long nowMillis;
+    private float[] userFactors = new float[0];
+    private FactorTable itemFactors;
+
+    /**
+     * Loads a user's profile into this context.
+     *
+     * @param catalog The catalog used to resolve ordinals
+     * @param snapshot The snapshot that will be scored against
+     * @param userProfile The user's profile
+     * @param nowMillis The reference time for recency scoring
+     */
+    public void reset(ItemCatalog catalog, CatalogSnapshot snapshot, UserProfile userProfile, long nowMillis) {
+        this.nowMillis = nowMillis;
+        this.itemFactors = null;
+
+        // Category preferences
+        int words = snapshot.wordsPerItem();
+        if (categoryMask.length < words) {
+            categoryMask = new long[words];
+        } else {
+            Arrays.fill(categoryMask, 0L);
+        }
+
+        if (userProfile.getCategoryPreferences() != null) {
+            // Preferences are decayed sums of event scores; scale them to [-1, 1] so the
+            // category term stays comparable to the popularity and recency terms
+            double maxPreference = 0.0;
+            for (Double value : userProfile.getCategoryPreferences().values()) {
+                if (value != null) {
+                    maxPreference = Math.max(maxPreference, Math.abs(value));
+                }
+            }
+
+            for (Map.Entry<String, Double> preference : userProfile.getCategoryPreferences().entrySet()) {
+                int category = catalog.categoryOrdinal(preference.getKey());
+                // Categories unknown to this snapshot cannot match any of its items; a zero
+                // preference still counts as a match, diluting the average as it always has
+                if (category < 0 || category >= words << 6 || preference.getValue() == null) {
+                    continue;
+                }
+                if (category >= categoryPreferences.length) {
+                    categoryPreferences = Arrays.copyOf(categoryPreferences,
+                            Math.max(categoryPreferences.length * 2, category + 1));
+                }
+                categoryPreferences[category] = maxPreference > 0.0
+                        ? preference.getValue() / maxPreference
+                        : 0.0;
+                categoryMask[category >>> 6] |= 1L << category;
+            }
+        }
+
+        // Purchased items
+        for (int i = 0; i < excludedCount; i++) {
+            int ordinal = excludedOrdinals[i];
+            excluded[ordinal >>> 6] &= ~(1L << ordinal);
+        }
+        excludedCount = 0;
+
+        if (userProfile.getPurchasedItems() != null) {
+            for (String itemId : userProfile.getPurchasedItems()) {
+                int ordinal = catalog.ordinalOf(itemId);
+                if (ordinal >= 0) {
+                    exclude(ordinal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the user's latent factors; without them the factor score is zero.
+     * Must be called after {@link #reset}.
+     *
+     * @param model The factor model
+     * @param userId The user ID
+     */
+    public void loadFactors(FactorModel model, String userId) {
+        int row = model.userFactors().rowOf(userId);
+        if (row < 0) {
+            return;
+        }
+        if (userFactors.length != model.rank()) {
+            userFactors = new float[model.rank()];
+        }
+        model.userFactors().copyRow(row, userFactors);
+        itemFactors = model.itemFactors();
+    }
+
+    /**
+     * Checks whether an item must not be recommended to this user.
+     *
+     * @param ordinal The item ordinal
+     * @return True if the item is excluded
+     */
+    public boolean isExcluded(int ordinal) {
+        int word = ordinal >>> 6;
+        return word < excluded.length && (excluded[word] & (1L << ordinal)) != 0;
+    }
+
+    public long nowMillis() {
+        return nowMillis;
+    }
+
+    /**
+     * @return The predicted affinity for an item, or zero if the user or the item has no factors
+     */
+    double factorScore(String itemId) {
+        if (itemFactors == null) {
+            return 0.0;
+        }
+        int row = itemFactors.rowOf(itemId);
+        return row >= 0 ? itemFactors.dot(row, userFactors) : 0.0;
+    }
+
+    double categoryPreference(int category) {
+        return categoryPreferences[category];
+    }
+
+    long categoryMask(int word) {
+        return categoryMask[word];
+    }
+
+    private void exclude(int ordinal) {
+        int word = ordinal >>> 6;
+        if (word >= excluded.length) {
+            excluded = Arrays.copyOf(excluded, Math.max(excluded.length * 2, word + 1));
+        }
+        if (excludedCount == excludedOrdinals.length) {
+            excludedOrdinals = Arrays.copyOf(excludedOrdinals, excludedCount * 2);
+        }
+        excluded[word] |= 1L << ordinal;
+        excludedOrdinals[excludedCount++] = ordinal;
+    }
+}
@@ -1,12 +1,14 @@
 package com.recommender.config;
 
 import com.recommender.model.Item;
+import com.recommender.model.RecommendationImpression;
 import com.recommender.model.UserEvent;
 import com.recommender.utils.JsonSerde;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.streams.StreamsConfig;
 import org.springframework.beans.factory.annotation.Value;
@@ -36,13 +38,53 @@ public class KafkaConfig {
     @Value("${spring.kafka.streams.application-id}")
     private String applicationId;
 
+    @Value("${recommender.streams.application-server}")
+    private String applicationServer;
+
+    @Value("${recommender.streams.num-standby-replicas:1}")
+    private int numStandbyReplicas;
+
+    @Value("${recommender.streams.num-stream-threads:1}")
+    private int numStreamThreads;
+
+    @Value("${recommender.mf.factors-segment-ms:600000}")
+    private long modelFactorsSegmentMs;
+
+    @Value("${recommender.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${recommender.producer.batch-size:65536}")
+    private int producerBatchSize;
+
     // Topic names
     public static final String USER_EVENTS_TOPIC = "user-events";
     public static final String USER_PROFILES_TOPIC = "user-profiles";
     public static final String RECOMMENDATIONS_TOPIC = "recommendations";
     public static final String ITEMS_TOPIC = "items";
     public static final String MODEL_UPDATES_TOPIC = "model-updates";
+    public static final String MODEL_FACTORS_TOPIC = "model-factors";
     public static final String AB_TEST_RESULTS_TOPIC = "ab-test-results";
+    public static final String ITEM_NEIGHBORS_TOPIC = "item-neighbors";
+    public static final String RECOMMENDATION_IMPRESSIONS_TOPIC = "recommendation-impressions";
+    public static final String FEATURES_TOPIC = "features";
+    public static final String FEATURE_DICTIONARY_TOPIC = "feature-dictionary";
+    public static final String USER_SESSIONS_TOPIC = "user-sessions";
+
+    // Repartition topic names, without the application ID prefix and -repartition suffix
+    public static final String SESSIONS_BY_ID_REPARTITION = "sessions-by-id";
+
+    // State store names
+    public static final String ITEMS_STORE = "items-store";
+    public static final String USER_PROFILES_STORE = "user-profiles-store";
+    public static final String RECOMMENDATIONS_STORE = "recommendations-store";
+    public static final String USER_PROFILES_TABLE_STORE = "user-profiles-table";
+    public static final String USER_INTERESTS_STORE = "user-interests-store";
+    public static final String SESSION_ITEMS_STORE = "session-items-store";
+    public static final String ITEM_NEIGHBOR_SKETCHES_STORE = "item-neighbor-sketches";
+    public static final String ITEM_NEIGHBORS_STORE = "item-neighbors-store";
+    public static final String USER_SESSIONS_STORE = "user-sessions-store";
+    public static final String PENDING_REGENERATIONS_STORE = "pending-regenerations-store";
+    public static final String EXPERIMENT_ATTRIBUTIONS_STORE = "experiment-attributions-store";
 
     /**
      * Kafka Streams configuration.
@@ -60,6 +102,11 @@ public class KafkaConfig {
         props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000);
         // Configure processing guarantee
         props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        // Advertise this instance for interactive queries and keep standbys for failover reads
+        props.put(StreamsConfig.APPLICATION_SERVER_CONFIG, applicationServer);
+        props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, numStandbyReplicas);
+        // The scoring pool sizes itself to the cores the stream threads leave
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, numStreamThreads);
         return new KafkaStreamsConfiguration(props);
     }
 
@@ -120,6 +167,18 @@ public class KafkaConfig {
                 .build();
     }
 
+    /**
+     * Create the item neighbors topic.
+     */
+    @Bean
+    public NewTopic itemNeighborsTopic() {
+        return TopicBuilder.name(ITEM_NEIGHBORS_TOPIC)
+                .partitions(4)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
     /**
      * Create the model updates topic.
      */
@@ -131,6 +190,69 @@ public class KafkaConfig {
                 .build();
     }
 
+    /**
+     * Create the model factors topic.
+     * Chunks are keyed by version and chunk number and the trainer deletes the previous version's
+     * chunks once a new one is complete, so compaction keeps about one version; short segments let
+     * the cleaner reach superseded versions soon after they are deleted.
+     */
+    @Bean
+    public NewTopic modelFactorsTopic() {
+        return TopicBuilder.name(MODEL_FACTORS_TOPIC)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(modelFactorsSegmentMs))
+                .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, "0.1")
+                .build();
+    }
+
+    /**
+     * Create the recommendation impressions topic.
+     * Shares a state store with user events, so it must have the same number of partitions.
+     */
+    @Bean
+    public NewTopic recommendationImpressionsTopic() {
+        return TopicBuilder.name(RECOMMENDATION_IMPRESSIONS_TOPIC)
+                .partitions(8)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Create the features topic.
+     */
+    @Bean
+    public NewTopic featuresTopic() {
+        return TopicBuilder.name(FEATURES_TOPIC)
+                .partitions(8)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Create the feature dictionary topic.
+     */
+    @Bean
+    public NewTopic featureDictionaryTopic() {
+        return TopicBuilder.name(FEATURE_DICTIONARY_TOPIC)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Create the user sessions topic.
+     */
+    @Bean
+    public NewTopic userSessionsTopic() {
+        return TopicBuilder.name(USER_SESSIONS_TOPIC)
+                .partitions(8)
+                .replicas(1)
+                .build();
+    }
+
     /**
      * Create the A/B test results topic.
      */
@@ -154,6 +276,9 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Let pipelined sends (e.g. batch event uploads) share produce requests
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
     
@@ -172,4 +297,29 @@ public class KafkaConfig {
     public KafkaTemplate<String, Item> itemKafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+    
+    /**
+     * Kafka template for publishing factor chunks, manifests and the tombstones that delete
+     * superseded chunks.
+     */
+    @Bean
+    public KafkaTemplate<String, Object> modelFactorKafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+    
+    /**
+     * Kafka template for publishing recommendation impressions.
+     */
+    @Bean
+    public KafkaTemplate<String, RecommendationImpression> impressionKafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+    
+    /**
+     * Kafka template for publishing feature dictionary entries.
+     */
+    @Bean
+    public KafkaTemplate<String, Integer> featureDictionaryKafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
 }
@@ -0,0 +1,61 @@
+package com.recommender.config;
+
+import com.recommender.model.UserEvent;
+import com.recommender.utils.JsonSerde;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the non-blocking event ingestion path.
+ * The reactive sender owns its own producer so that a saturated ingestion path
+ * cannot stall sends made through the {@code KafkaTemplate}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recommender.events.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveIngestionConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${recommender.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${recommender.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${recommender.events.reactive.max-in-flight:10000}")
+    private int maxInFlight;
+
+    @Value("${recommender.events.reactive.max-block-ms:100}")
+    private long maxBlockMs;
+
+    /**
+     * Reactive sender for user events.
+     */
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, UserEvent> userEventSender() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerde.JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        // Fail fast instead of parking the sender thread when the producer buffer is full
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+
+        SenderOptions<String, UserEvent> options = SenderOptions.<String, UserEvent>create(props)
+                .maxInFlight(maxInFlight);
+        return KafkaSender.create(options);
+    }
+}
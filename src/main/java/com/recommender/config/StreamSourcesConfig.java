@@ -0,0 +1,31 @@
+package com.recommender.config;
+
+import com.recommender.model.UserEvent;
+import com.recommender.streams.UserEventTimestampExtractor;
+import com.recommender.utils.JsonSerde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared Kafka Streams sources.
+ * A topic can only be registered once per topology, so streams that several
+ * processors consume are defined here and injected where needed.
+ */
+@Configuration
+public class StreamSourcesConfig {
+
+    /**
+     * Stream of user events, shared by all processors that consume the user events topic.
+     * Records are timestamped with the time the event happened.
+     */
+    @Bean
+    public KStream<String, UserEvent> userEventStream(StreamsBuilder streamsBuilder) {
+        return streamsBuilder.stream(KafkaConfig.USER_EVENTS_TOPIC,
+                Consumed.with(Serdes.String(), new JsonSerde<>(UserEvent.class))
+                        .withTimestampExtractor(new UserEventTimestampExtractor()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.recommender.controller;
+
+import com.recommender.model.Recommendation;
+import com.recommender.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for instance-to-instance recommendation lookups.
+ * Only answers from this instance's local state and never forwards,
+ * so routed requests cannot loop between instances.
+ */
+@RestController
+@RequestMapping("/internal/recommendations")
+@Slf4j
+@RequiredArgsConstructor
+public class InternalRecommendationController {
+
+    private final RecommendationService recommendationService;
+
+    /**
+     * Gets a user's recommendation from local state.
+     *
+     * @param userId The user ID
+     * @param allowStale Whether standby replicas may answer
+     * @return The recommendation, 404 if there is none, or 503 if the local store is not queryable
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<Recommendation> getLocalRecommendation(
+            @PathVariable String userId,
+            @RequestParam(required = false, defaultValue = "false") boolean allowStale) {
+
+        try {
+            Recommendation recommendation = recommendationService.getLocalRecommendation(userId, allowStale);
+            if (recommendation == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(recommendation, HttpStatus.OK);
+        } catch (InvalidStateStoreException e) {
+            log.warn("Local recommendations store not queryable for user {}: {}", userId, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
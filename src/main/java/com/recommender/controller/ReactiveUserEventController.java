@@ -0,0 +1,49 @@
+package com.recommender.controller;
+
+import com.recommender.dto.EventAcknowledgement;
+import com.recommender.dto.UserEventRequest;
+import com.recommender.service.ReactiveUserEventService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * REST controller for non-blocking event ingestion.
+ * The request thread is released as soon as the event is handed to the producer;
+ * the response is written once Kafka acknowledges the event.
+ * This runs on Spring MVC, not WebFlux: the rest of the API is servlet-based, and with both
+ * stacks present Spring Boot would still start the servlet one. MVC treats a returned
+ * {@link Mono} as an asynchronous request, so no servlet thread waits for the broker; only
+ * reading the small request body and writing the response use blocking servlet I/O.
+ * {@code spring.mvc.async.request-timeout} is set above the producer's delivery timeout so a
+ * request is never timed out while its event may still be written.
+ */
+@RestController
+@RequestMapping("/api/events/async")
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "recommender.events.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveUserEventController {
+
+    private final ReactiveUserEventService reactiveUserEventService;
+
+    /**
+     * Records a user event.
+     *
+     * @param request The user event request
+     * @return The acknowledgement, or 429 if ingestion is saturated
+     */
+    @PostMapping
+    public Mono<ResponseEntity<EventAcknowledgement>> recordEvent(@Valid @RequestBody UserEventRequest request) {
+        log.debug("Received async user event request: {}", request);
+
+        return reactiveUserEventService.publishUserEvent(request.toUserEvent())
+                .map(acknowledgement -> new ResponseEntity<>(acknowledgement, HttpStatus.CREATED));
+    }
+}
@@ -1,15 +1,20 @@
 package com.recommender.controller;
 
+import com.recommender.dto.EventBatchResponse;
 import com.recommender.dto.UserEventRequest;
 import com.recommender.model.UserEvent;
+import com.recommender.service.UserEventBatchService;
 import com.recommender.service.UserEventService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 /**
  * REST controller for user events.
@@ -22,6 +27,7 @@ import javax.validation.Valid;
 public class UserEventController {
     
     private final UserEventService userEventService;
+    private final UserEventBatchService userEventBatchService;
     
     /**
      * Records a user event.
@@ -39,6 +45,22 @@ public class UserEventController {
         return new ResponseEntity<>(savedEvent, HttpStatus.CREATED);
     }
     
+    /**
+     * Records a batch of user events.
+     * The body is streamed, either as newline-delimited JSON or as a JSON array,
+     * and each record is validated on its own.
+     * 
+     * @param request The HTTP request carrying the events
+     * @return The numbers of accepted, rejected and pending records
+     * @throws IOException If the request body cannot be read
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<EventBatchResponse> recordEvents(HttpServletRequest request) throws IOException {
+        EventBatchResponse response = userEventBatchService.publishBatch(request.getInputStream());
+        
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+    
     /**
      * Records a view event.
      * Convenience endpoint for recording view events.
@@ -0,0 +1,23 @@
+package com.recommender.dto;
+
+import com.recommender.model.UserEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO confirming that an event has been written to Kafka.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventAcknowledgement {
+
+    private UserEvent event;
+
+    private int partition;
+
+    private long offset;
+}
@@ -0,0 +1,55 @@
+package com.recommender.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO summarizing the outcome of a batch event upload.
+ * Only the first rejections and pending records are listed individually; the counts cover the
+ * whole batch. Pending records were handed to the producer but not acknowledged before the
+ * response was sent: they may still be written, so clients should not assume either outcome.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventBatchResponse {
+
+    private int received;
+
+    private int accepted;
+
+    private int rejected;
+
+    private int pending;
+
+    // Set when the body could not be read to the end; records after that point are not counted
+    private boolean truncated;
+
+    @Builder.Default
+    private List<RejectedEvent> rejections = new ArrayList<>();
+
+    // Zero-based positions of the first pending records in the request body
+    @Builder.Default
+    private List<Integer> pendingRecords = new ArrayList<>();
+
+    /**
+     * A rejected record and the reason for rejecting it.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedEvent {
+
+        // Zero-based position of the record in the request body
+        private int index;
+
+        private String reason;
+    }
+}
@@ -3,6 +3,7 @@ package com.recommender.exception;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -47,6 +48,46 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Handles events refused because ingestion is saturated.
+     * 
+     * @param ex The overload exception
+     * @return A 429 response asking the client to retry
+     */
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionOverloaded(IngestionOverloadedException ex) {
+        log.warn("Rejected event: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                "Too Many Requests",
+                "Event ingestion is saturated, please retry",
+                null);
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+    
+    /**
+     * Handles events that could not be published because Kafka is unavailable.
+     * 
+     * @param ex The unavailability exception
+     * @return A 503 response asking the client to retry
+     */
+    @ExceptionHandler(IngestionUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionUnavailable(IngestionUnavailableException ex) {
+        log.warn("Could not publish event: {} ({})", ex.getMessage(), String.valueOf(ex.getCause()));
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                "Service Unavailable",
+                "Event storage is unavailable, please retry",
+                null);
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(errorResponse);
+    }
+    
     /**
      * Handles all other exceptions.
      * 
@@ -0,0 +1,16 @@
+package com.recommender.exception;
+
+/**
+ * Thrown when an event cannot be accepted because the ingestion path is saturated.
+ * Clients should retry later; the REST API answers with 429.
+ */
+public class IngestionOverloadedException extends RuntimeException {
+
+    public IngestionOverloadedException(String message) {
+        super(message);
+    }
+
+    public IngestionOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.recommender.exception;
+
+/**
+ * Thrown when an event cannot be published because Kafka cannot be reached in time, e.g. the
+ * topic's metadata or the broker's acknowledgement did not arrive before the producer timed out.
+ * Clients should retry later; the REST API answers with 503.
+ */
+public class IngestionUnavailableException extends RuntimeException {
+
+    public IngestionUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.recommender.ml;
+
+import com.recommender.model.UserEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Weighs user events for every pipeline that scores them.
+ * Weights come from the current scoring model: configured at startup and replaced at runtime by
+ * {@code weights} records on the model updates topic, with per-context overrides and time decay.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventWeighting {
+
+    private final ModelRegistry modelRegistry;
+
+    /**
+     * Calculates the weight of a user event.
+     *
+     * @param event The user event
+     * @param now The time the event is weighed at, in milliseconds, for time decay
+     * @return The weight
+     */
+    public double weight(UserEvent event, long now) {
+        long ageMs = event.getTimestamp() != null ? now - event.getTimestamp().toEpochMilli() : 0L;
+        return modelRegistry.current().eventWeights()
+                .weight(event.getEventType(), event.getContextInfo(), ageMs);
+    }
+}
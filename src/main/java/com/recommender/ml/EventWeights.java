@@ -0,0 +1,140 @@
+package com.recommender.ml;
+
+import com.recommender.model.ScoringWeights;
+import com.recommender.model.UserEvent;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable weights of user events, indexed by event type ordinal.
+ * A context (the event's {@code contextInfo}, e.g. "search" or "homepage") can override the
+ * weights of some event types, and weights can decay exponentially with the event's age.
+ * Looking up a weight reads arrays and at most one map entry, and allocates nothing.
+ */
+public final class EventWeights {
+
+    private static final int TYPES = UserEvent.EventType.values().length;
+
+    public static final EventWeights DEFAULT = new EventWeights(defaultWeights(), new HashMap<>(), 0L);
+
+    private final double[] weights;
+    private final Map<String, double[]> contextWeights;
+    private final long halfLifeMs;
+    private final double decayPerMs;
+
+    private EventWeights(double[] weights, Map<String, double[]> contextWeights, long halfLifeMs) {
+        this.weights = weights;
+        this.contextWeights = contextWeights;
+        this.halfLifeMs = halfLifeMs;
+        this.decayPerMs = halfLifeMs > 0 ? Math.log(2.0) / halfLifeMs : 0.0;
+    }
+
+    /**
+     * Reads weights from configuration on top of the defaults:
+     * {@code recommender.events.weights.<TYPE>} for the base weights,
+     * {@code recommender.events.contexts} for the list of contexts with overrides,
+     * {@code recommender.events.context-weights.<context>.<TYPE>} for their overrides, and
+     * {@code recommender.events.half-life-ms} for time decay (0 disables it).
+     *
+     * @param environment The environment to read from
+     * @return The configured weights
+     */
+    public static EventWeights fromEnvironment(Environment environment) {
+        double[] weights = defaultWeights();
+        Map<String, double[]> contextWeights = new HashMap<>();
+        for (UserEvent.EventType type : UserEvent.EventType.values()) {
+            weights[type.ordinal()] = environment.getProperty(
+                    "recommender.events.weights." + type.name(), Double.class, weights[type.ordinal()]);
+        }
+        for (String context : environment.getProperty("recommender.events.contexts", String[].class, new String[0])) {
+            double[] overrides = unset();
+            for (UserEvent.EventType type : UserEvent.EventType.values()) {
+                overrides[type.ordinal()] = environment.getProperty(
+                        "recommender.events.context-weights." + context + "." + type.name(), Double.class, Double.NaN);
+            }
+            contextWeights.put(context, overrides);
+        }
+        long halfLifeMs = environment.getProperty("recommender.events.half-life-ms", Long.class, 0L);
+        return new EventWeights(weights, contextWeights, halfLifeMs);
+    }
+
+    /**
+     * Gets the weight of an event type.
+     *
+     * @param eventType The event type
+     * @param context The event's context, or null
+     * @param ageMs How long before now the event happened; weights do not grow for future events
+     * @return The weight, or zero for a missing type
+     */
+    public double weight(UserEvent.EventType eventType, String context, long ageMs) {
+        if (eventType == null) {
+            return 0.0;
+        }
+        int type = eventType.ordinal();
+        double weight = weights[type];
+        if (context != null && !contextWeights.isEmpty()) {
+            double[] overrides = contextWeights.get(context);
+            if (overrides != null && !Double.isNaN(overrides[type])) {
+                weight = overrides[type];
+            }
+        }
+        return decayPerMs > 0 && ageMs > 0 ? weight * Math.exp(-decayPerMs * ageMs) : weight;
+    }
+
+    /**
+     * @return A copy of these weights with the given event weights applied; weights left out are kept
+     */
+    public EventWeights with(ScoringWeights update) {
+        double[] newWeights = Arrays.copyOf(weights, TYPES);
+        if (update.getEventWeights() != null) {
+            apply(update.getEventWeights(), newWeights);
+        }
+
+        Map<String, double[]> newContextWeights = new HashMap<>(contextWeights);
+        if (update.getContextEventWeights() != null) {
+            for (Map.Entry<String, Map<UserEvent.EventType, Double>> context
+                    : update.getContextEventWeights().entrySet()) {
+                if (context.getKey() == null || context.getValue() == null) {
+                    continue;
+                }
+                double[] existing = newContextWeights.get(context.getKey());
+                double[] overrides = existing != null ? Arrays.copyOf(existing, TYPES) : unset();
+                apply(context.getValue(), overrides);
+                newContextWeights.put(context.getKey(), overrides);
+            }
+        }
+
+        long newHalfLifeMs = update.getEventHalfLifeMs() != null ? update.getEventHalfLifeMs() : halfLifeMs;
+        return new EventWeights(newWeights, newContextWeights, newHalfLifeMs);
+    }
+
+    private static void apply(Map<UserEvent.EventType, Double> update, double[] target) {
+        for (Map.Entry<UserEvent.EventType, Double> weight : update.entrySet()) {
+            if (weight.getKey() != null && weight.getValue() != null) {
+                target[weight.getKey().ordinal()] = weight.getValue();
+            }
+        }
+    }
+
+    private static double[] unset() {
+        double[] overrides = new double[TYPES];
+        Arrays.fill(overrides, Double.NaN);
+        return overrides;
+    }
+
+    private static double[] defaultWeights() {
+        double[] weights = new double[TYPES];
+        weights[UserEvent.EventType.VIEW.ordinal()] = 1.0;
+        weights[UserEvent.EventType.CLICK.ordinal()] = 2.0;
+        weights[UserEvent.EventType.ADD_TO_CART.ordinal()] = 3.0;
+        weights[UserEvent.EventType.PURCHASE.ordinal()] = 5.0;
+        weights[UserEvent.EventType.RATE.ordinal()] = 4.0;
+        weights[UserEvent.EventType.SEARCH.ordinal()] = 0.5;
+        weights[UserEvent.EventType.LIKE.ordinal()] = 2.5;
+        weights[UserEvent.EventType.DISLIKE.ordinal()] = -1.0;
+        return weights;
+    }
+}
@@ -0,0 +1,149 @@
+package com.recommender.ml;
+
+import com.recommender.catalog.ScoringKernel;
+import com.recommender.model.Experiment;
+import com.recommender.model.ExperimentSet;
+import com.recommender.model.ScoringWeights;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running experiments compiled for assignment without lookups or allocation.
+ * A user's variant is a pure function of the experiment ID and user ID: both are hashed into
+ * one of {@value #BUCKETS} buckets, and each variant owns a contiguous range of buckets in
+ * proportion to its allocation. Every instance therefore assigns a user the same way, at
+ * generation time and at serve time, and a user's variant only changes if the allocations do.
+ */
+public final class ExperimentPlan {
+
+    public static final ExperimentPlan EMPTY = new ExperimentPlan(new ExperimentSet());
+
+    static final int BUCKETS = 10_000;
+
+    private final long version;
+    private final Map<String, CompiledExperiment> byId = new HashMap<>();
+
+    // Experiments with at least one variant that changes scoring, in definition order
+    private final CompiledExperiment[] scoringExperiments;
+
+    public ExperimentPlan(ExperimentSet experimentSet) {
+        this.version = experimentSet.getVersion();
+        List<CompiledExperiment> scoring = new ArrayList<>();
+        if (experimentSet.getExperiments() != null) {
+            for (Experiment experiment : experimentSet.getExperiments()) {
+                if (experiment.getId() == null || experiment.getVariants() == null
+                        || experiment.getVariants().isEmpty()) {
+                    continue;
+                }
+                CompiledExperiment compiled = new CompiledExperiment(experiment);
+                byId.put(experiment.getId(), compiled);
+                if (compiled.changesScoring) {
+                    scoring.add(compiled);
+                }
+            }
+        }
+        this.scoringExperiments = scoring.toArray(new CompiledExperiment[0]);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Assigns a user to a variant.
+     *
+     * @param experimentId The experiment ID
+     * @param userId The user ID
+     * @return The variant name, or null if the experiment is not running
+     */
+    public String variantOf(String experimentId, String userId) {
+        CompiledExperiment experiment = experimentId != null ? byId.get(experimentId) : null;
+        return experiment != null ? experiment.variants[experiment.assign(userId)].getName() : null;
+    }
+
+    /**
+     * Gets the kernel to score a user with: the base kernel with the weights of every variant
+     * the user is assigned to applied in experiment order.
+     *
+     * @param userId The user ID
+     * @param base The kernel of the current scoring model
+     * @return The base kernel itself if no assigned variant changes scoring
+     */
+    public ScoringKernel kernelFor(String userId, ScoringKernel base) {
+        ScoringKernel kernel = base;
+        for (CompiledExperiment experiment : scoringExperiments) {
+            ScoringWeights weights = experiment.variants[experiment.assign(userId)].getScoring();
+            if (weights != null) {
+                kernel = new ScoringKernel(
+                        weights.getPopularityWeight() != null ? weights.getPopularityWeight() : kernel.popularityWeight(),
+                        weights.getCategoryWeight() != null ? weights.getCategoryWeight() : kernel.categoryWeight(),
+                        weights.getRecencyWeight() != null ? weights.getRecencyWeight() : kernel.recencyWeight(),
+                        weights.getFactorWeight() != null ? weights.getFactorWeight() : kernel.factorWeight());
+            }
+        }
+        return kernel;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with the SplitMix64 mixer so that similar
+     * user IDs land in unrelated buckets.
+     */
+    static long hash(long seed, String value) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 30;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return hash;
+    }
+
+    private static final class CompiledExperiment {
+
+        private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+
+        final long seed;
+        final Experiment.Variant[] variants;
+        final int[] upperBounds;
+        final boolean changesScoring;
+
+        CompiledExperiment(Experiment experiment) {
+            // Salting with the experiment ID keeps assignments independent across experiments
+            this.seed = hash(FNV_OFFSET, experiment.getId());
+            this.variants = experiment.getVariants().toArray(new Experiment.Variant[0]);
+            this.upperBounds = new int[variants.length];
+
+            long total = 0;
+            boolean scoring = false;
+            for (Experiment.Variant variant : variants) {
+                total += Math.max(0, variant.getAllocation());
+                scoring |= variant.getScoring() != null;
+            }
+            long cumulative = 0;
+            for (int i = 0; i < variants.length; i++) {
+                cumulative += Math.max(0, variants[i].getAllocation());
+                upperBounds[i] = total > 0
+                        ? (int) (cumulative * BUCKETS / total)
+                        : (i + 1) * BUCKETS / variants.length;
+            }
+            this.changesScoring = scoring;
+        }
+
+        int assign(String userId) {
+            int bucket = (int) Long.remainderUnsigned(hash(seed, userId), BUCKETS);
+            for (int i = 0; i < upperBounds.length; i++) {
+                if (bucket < upperBounds[i]) {
+                    return i;
+                }
+            }
+            return variants.length - 1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.recommender.ml;
+
+/**
+ * One version of a matrix-factorization model: user and item factor tables of the same rank.
+ * A user's predicted affinity for an item is the dot product of their factor rows.
+ * Versions published by one training run share a lineage, the version the run started from;
+ * successive versions of a lineage only drift, while a new lineage may be unrelated.
+ * Instances are immutable once published.
+ */
+public final class FactorModel {
+
+    public static final FactorModel EMPTY = new FactorModel(0L, 0L, FactorTable.EMPTY, FactorTable.EMPTY);
+
+    private final long version;
+    private final long lineage;
+    private final FactorTable userFactors;
+    private final FactorTable itemFactors;
+
+    public FactorModel(long version, long lineage, FactorTable userFactors, FactorTable itemFactors) {
+        this.version = version;
+        this.lineage = lineage;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long lineage() {
+        return lineage;
+    }
+
+    public int rank() {
+        return itemFactors.rank();
+    }
+
+    public FactorTable userFactors() {
+        return userFactors;
+    }
+
+    public FactorTable itemFactors() {
+        return itemFactors;
+    }
+}
@@ -0,0 +1,128 @@
+package com.recommender.ml;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latent factors for a set of users or items, one row of {@code rank} floats per ID.
+ * The factor values live in a direct buffer outside the JVM heap, so a large model adds
+ * little to garbage collection; only the ID-to-row map is on the heap.
+ * A table is filled by one thread and must be safely published before it is read.
+ */
+public final class FactorTable {
+
+    public static final FactorTable EMPTY = new FactorTable(0, 0);
+
+    private final int rank;
+    private final Map<String, Integer> rows;
+    private FloatBuffer values;
+    private int size;
+
+    /**
+     * @param rank The number of factors per row
+     * @param expectedRows The number of rows to allocate up front
+     */
+    public FactorTable(int rank, int expectedRows) {
+        this.rank = rank;
+        this.rows = new HashMap<>(Math.max(16, expectedRows * 4 / 3 + 1));
+        this.values = allocate((long) Math.max(1, expectedRows) * rank);
+    }
+
+    /**
+     * Adds or replaces the factors for an ID.
+     *
+     * @param id The user or item ID
+     * @param factors The source array
+     * @param offset The position of the row's first factor in the source array
+     */
+    public void put(String id, float[] factors, int offset) {
+        Integer row = rows.get(id);
+        if (row == null) {
+            row = size++;
+            ensureCapacity(size);
+            rows.put(id, row);
+        }
+        int base = row * rank;
+        for (int i = 0; i < rank; i++) {
+            values.put(base + i, factors[offset + i]);
+        }
+    }
+
+    /**
+     * Gets the row holding an ID's factors.
+     *
+     * @param id The user or item ID
+     * @return The row, or -1 if the ID is unknown
+     */
+    public int rowOf(String id) {
+        Integer row = rows.get(id);
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Copies a row's factors.
+     *
+     * @param row The row
+     * @param out Receives the factors; must hold at least {@code rank} values
+     */
+    public void copyRow(int row, float[] out) {
+        int base = row * rank;
+        for (int i = 0; i < rank; i++) {
+            out[i] = values.get(base + i);
+        }
+    }
+
+    /**
+     * Computes the dot product of a row with a vector.
+     *
+     * @param row The row
+     * @param vector The vector, of length {@code rank}
+     * @return The dot product
+     */
+    public float dot(int row, float[] vector) {
+        int base = row * rank;
+        float sum = 0.0f;
+        for (int i = 0; i < rank; i++) {
+            sum += values.get(base + i) * vector[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The IDs in this table and their rows
+     */
+    public Map<String, Integer> rows() {
+        return rows;
+    }
+
+    public int rank() {
+        return rank;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int rowCount) {
+        long needed = (long) rowCount * rank;
+        if (needed <= values.capacity()) {
+            return;
+        }
+        FloatBuffer grown = allocate(Math.max(needed, (long) values.capacity() * 2));
+        values.rewind();
+        grown.put(values);
+        values = grown;
+    }
+
+    private static FloatBuffer allocate(long floats) {
+        if (floats > Integer.MAX_VALUE / Float.BYTES) {
+            throw new IllegalStateException("Factor table too large: " + floats + " values");
+        }
+        return ByteBuffer.allocateDirect((int) floats * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+}
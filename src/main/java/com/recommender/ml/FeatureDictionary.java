@@ -0,0 +1,105 @@
+package com.recommender.ml;
+
+import com.recommender.config.KafkaConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps feature names to int IDs.
+ * An ID is the positive 31-bit murmur2 hash of the name's UTF-8 bytes (the hash Kafka's default
+ * partitioner uses), so every instance and every training job derives the same ID without
+ * coordination. Each new name is also published to the compacted feature dictionary topic, so
+ * readers of the features topic can decode IDs; names that hash to the same ID share it.
+ * Names are looked up by namespace and key, so callers never build the full name once a key
+ * has been seen.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FeatureDictionary {
+
+    private final KafkaTemplate<String, Integer> featureDictionaryKafkaTemplate;
+
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a namespace, whose IDs are those of the names {@code prefix + key}.
+     * Namespaces hold their own cache, so keep and reuse the instance.
+     *
+     * @param prefix The prefix shared by the namespace's feature names, e.g. "category_"
+     * @return The namespace
+     */
+    public Namespace namespace(String prefix) {
+        return new Namespace(prefix);
+    }
+
+    /**
+     * Gets the ID of a feature name, registering it if it is new.
+     * Publishing a new name happens outside any map lock; concurrent callers registering the
+     * same name publish it once.
+     *
+     * @param name The feature name
+     * @return The feature ID
+     */
+    public int id(String name) {
+        int id = idOf(name);
+        String existing = names.putIfAbsent(id, name);
+        if (existing == null) {
+            featureDictionaryKafkaTemplate.send(KafkaConfig.FEATURE_DICTIONARY_TOPIC, name, id);
+        } else if (!existing.equals(name)) {
+            log.warn("Features '{}' and '{}' share ID {}", existing, name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the name registered for an ID on this instance.
+     *
+     * @param id The feature ID
+     * @return The name, or null if no name with this ID has been seen here
+     */
+    public String nameOf(int id) {
+        return names.get(id);
+    }
+
+    static int idOf(String name) {
+        return Utils.toPositive(Utils.murmur2(name.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Feature names sharing a prefix, cached by key.
+     */
+    public final class Namespace {
+
+        private final String prefix;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        private Namespace(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Gets the ID of the feature {@code prefix + key}.
+         *
+         * @param key The key within the namespace
+         * @return The feature ID
+         */
+        public int id(String key) {
+            Integer id = ids.get(key);
+            if (id == null) {
+                // Registering may publish and block on the producer, so it must not run inside
+                // computeIfAbsent, which holds the map's lock for the key's bin meanwhile
+                id = FeatureDictionary.this.id(prefix + key);
+                ids.putIfAbsent(key, id);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.recommender.ml;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.FactorManifest;
+import com.recommender.model.FactorUpdate;
+import com.recommender.model.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Trains user and item latent factors online from the user events topic.
+ * Events arrive in mini-batches from a batch listener and each batch is one step of
+ * stochastic gradient descent on squared error, run on CPU with ND4J; factor matrices are
+ * ND4J arrays and live off the JVM heap. Interactions are implicit feedback with target 1
+ * (ratings are scaled to [0, 1], dislikes are 0), and each one is paired with randomly
+ * sampled items as negatives.
+ * A complete versioned snapshot is published to the compacted model factors topic at a fixed
+ * interval, followed by its manifest and by tombstones for the previous version's chunks.
+ * Training needs every user's events, so enable the trainer on exactly one instance.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "recommender.mf.trainer.enabled", havingValue = "true")
+public class MatrixFactorizationTrainer {
+
+    private static final float INITIAL_SCALE = 0.1f;
+    private static final double MAX_RATING = 5.0;
+
+    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, Object> modelFactorKafkaTemplate;
+    private final ModelRegistry modelRegistry;
+    private final int rank;
+    private final float learningRate;
+    private final float regularization;
+    private final int negativeSamples;
+    private final long publishIntervalMs;
+    private final int chunkSize;
+    private final long warmStartTimeoutMs;
+    private final SplittableRandom random = new SplittableRandom();
+
+    // Factor matrices grow by doubling; rows past the ID lists are unused
+    private final Map<String, Integer> userRows = new HashMap<>();
+    private final List<String> userIds = new ArrayList<>();
+    private final Map<String, Integer> itemRows = new HashMap<>();
+    private final List<String> itemIds = new ArrayList<>();
+    private INDArray userFactors;
+    private INDArray itemFactors;
+
+    private boolean initialized;
+    private long lastPublishMs = System.currentTimeMillis();
+    private long lastVersion;
+    private int lastChunkCount;
+    private long lineage;               // 0 until the first version of a cold start
+    private boolean changedSincePublish;
+
+    // Reused batch buffers
+    private int[] batchUsers = new int[0];
+    private int[] batchItems = new int[0];
+    private float[] batchTargets = new float[0];
+
+    public MatrixFactorizationTrainer(
+            ObjectMapper objectMapper,
+            KafkaTemplate<String, Object> modelFactorKafkaTemplate,
+            ModelRegistry modelRegistry,
+            @Value("${recommender.mf.rank:32}") int rank,
+            @Value("${recommender.mf.learning-rate:0.05}") float learningRate,
+            @Value("${recommender.mf.regularization:0.01}") float regularization,
+            @Value("${recommender.mf.negative-samples:1}") int negativeSamples,
+            @Value("${recommender.mf.publish-interval-ms:60000}") long publishIntervalMs,
+            @Value("${recommender.mf.chunk-size:1000}") int chunkSize,
+            @Value("${recommender.mf.warm-start-timeout-ms:60000}") long warmStartTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.modelFactorKafkaTemplate = modelFactorKafkaTemplate;
+        this.modelRegistry = modelRegistry;
+        this.rank = rank;
+        this.learningRate = learningRate;
+        this.regularization = regularization;
+        this.negativeSamples = negativeSamples;
+        this.publishIntervalMs = publishIntervalMs;
+        this.chunkSize = chunkSize;
+        this.warmStartTimeoutMs = warmStartTimeoutMs;
+    }
+
+    /**
+     * Trains on a mini-batch of user events and publishes a snapshot when one is due.
+     *
+     * @param records The batch of user event records
+     */
+    @KafkaListener(
+            topics = KafkaConfig.USER_EVENTS_TOPIC,
+            groupId = "${spring.application.name}-mf-trainer",
+            batch = "true",
+            properties = {
+                    "max.poll.records=${recommender.mf.batch-size:1000}",
+                    "isolation.level=read_committed"
+            })
+    public void onEvents(List<ConsumerRecord<String, String>> records) {
+        if (!initialized) {
+            initialize();
+        }
+
+        int examples = 0;
+        ensureBatchCapacity(records.size() * (1 + negativeSamples));
+        for (ConsumerRecord<String, String> record : records) {
+            UserEvent event = parse(record);
+            if (event == null || event.getUserId() == null || event.getItemId() == null) {
+                continue;
+            }
+            float target = target(event);
+            if (Float.isNaN(target)) {
+                continue;
+            }
+
+            int user = userRow(event.getUserId());
+            int item = itemRow(event.getItemId());
+            batchUsers[examples] = user;
+            batchItems[examples] = item;
+            batchTargets[examples++] = target;
+
+            // Unobserved items stand in for negatives, so scores do not drift up for every item
+            for (int i = 0; i < negativeSamples && itemIds.size() > 1; i++) {
+                batchUsers[examples] = user;
+                batchItems[examples] = random.nextInt(itemIds.size());
+                batchTargets[examples++] = 0.0f;
+            }
+        }
+
+        if (examples > 0) {
+            step(examples);
+            changedSincePublish = true;
+        }
+
+        long now = System.currentTimeMillis();
+        if (changedSincePublish && now - lastPublishMs >= publishIntervalMs) {
+            publish(now);
+        }
+    }
+
+    /**
+     * Runs one gradient step over the first {@code count} examples of the batch buffers.
+     */
+    private void step(int count) {
+        step(userFactors, itemFactors, Arrays.copyOf(batchUsers, count), Arrays.copyOf(batchItems, count),
+                Arrays.copyOf(batchTargets, count), learningRate, regularization);
+    }
+
+    /**
+     * Runs one gradient step of regularized squared error over a batch of examples.
+     * All gradients are taken from the factors as they were before the step, and the gradients
+     * of a row that occurs more than once, such as a user's positive example and its sampled
+     * negatives, are summed, so every example in the batch contributes to the update.
+     *
+     * @param userFactors The user factor matrix, updated in place
+     * @param itemFactors The item factor matrix, updated in place
+     * @param users The user row of each example
+     * @param items The item row of each example
+     * @param targets The target of each example
+     * @param learningRate The learning rate
+     * @param regularization The L2 regularization weight
+     */
+    static void step(INDArray userFactors, INDArray itemFactors, int[] users, int[] items, float[] targets,
+                     float learningRate, float regularization) {
+        int count = users.length;
+        INDArray u = Nd4j.pullRows(userFactors, 1, users);
+        INDArray v = Nd4j.pullRows(itemFactors, 1, items);
+        INDArray error = Nd4j.createFromArray(targets).reshape(count, 1);
+
+        // error = target - <u, v>
+        error.subi(u.mul(v).sum(true, 1));
+
+        // Scaled gradients of the regularized squared error, taken before either side is updated
+        INDArray userUpdate = v.mulColumnVector(error).subi(u.mul(regularization)).muli(learningRate);
+        INDArray itemUpdate = u.mulColumnVector(error).subi(v.mul(regularization)).muli(learningRate);
+
+        // Scatter-add, so duplicate rows accumulate rather than overwrite each other's updates
+        for (int i = 0; i < count; i++) {
+            userFactors.getRow(users[i]).addi(userUpdate.getRow(i));
+            itemFactors.getRow(items[i]).addi(itemUpdate.getRow(i));
+        }
+    }
+
+    /**
+     * Publishes the current factors as a new model version, in chunks of at most
+     * {@code chunkSize} rows so that each record stays within the broker's message size limit.
+     * The manifest follows the chunks, and only then are the previous version's chunks deleted,
+     * so the topic always holds one complete version.
+     */
+    private void publish(long now) {
+        long version = Math.max(now, lastVersion + 1);
+        if (lineage == 0) {
+            lineage = version;
+        }
+        int userChunks = (userIds.size() + chunkSize - 1) / chunkSize;
+        int itemChunks = (itemIds.size() + chunkSize - 1) / chunkSize;
+        int chunkCount = userChunks + itemChunks;
+
+        int chunk = 0;
+        for (int start = 0; start < userIds.size(); start += chunkSize) {
+            send(version, FactorUpdate.Side.USER, chunk++, chunkCount, userIds, userFactors, start);
+        }
+        for (int start = 0; start < itemIds.size(); start += chunkSize) {
+            send(version, FactorUpdate.Side.ITEM, chunk++, chunkCount, itemIds, itemFactors, start);
+        }
+        modelFactorKafkaTemplate.send(KafkaConfig.MODEL_FACTORS_TOPIC, ModelRegistry.MANIFEST_KEY,
+                FactorManifest.builder()
+                        .modelVersion(version)
+                        .rank(rank)
+                        .chunkCount(chunkCount)
+                        .lineage(lineage)
+                        .build());
+        for (int previous = 0; previous < lastChunkCount; previous++) {
+            modelFactorKafkaTemplate.send(KafkaConfig.MODEL_FACTORS_TOPIC,
+                    ModelRegistry.chunkKey(lastVersion, previous), null);
+        }
+        modelFactorKafkaTemplate.flush();
+
+        lastVersion = version;
+        lastChunkCount = chunkCount;
+        lastPublishMs = now;
+        changedSincePublish = false;
+        log.info("Published factor model {}: {} users, {} items in {} chunks",
+                version, userIds.size(), itemIds.size(), chunkCount);
+    }
+
+    private void send(long version, FactorUpdate.Side side, int chunk, int chunkCount,
+                      List<String> ids, INDArray factors, int start) {
+        int end = Math.min(start + chunkSize, ids.size());
+        float[] values = factors.get(NDArrayIndex.interval(start, end), NDArrayIndex.all())
+                .dup('c')
+                .data()
+                .asFloat();
+        FactorUpdate update = FactorUpdate.builder()
+                .modelVersion(version)
+                .rank(rank)
+                .side(side)
+                .chunk(chunk)
+                .chunkCount(chunkCount)
+                .ids(new ArrayList<>(ids.subList(start, end)))
+                .factors(values)
+                .build();
+        modelFactorKafkaTemplate.send(KafkaConfig.MODEL_FACTORS_TOPIC, ModelRegistry.chunkKey(version, chunk), update);
+    }
+
+    /**
+     * Starts from the latest published model when there is one, so a restarted trainer
+     * continues where it left off instead of publishing untrained factors.
+     * Waits for the registry to load that model first, as the listeners start together.
+     */
+    private void initialize() {
+        try {
+            if (!modelRegistry.awaitFactors(Duration.ofMillis(warmStartTimeoutMs))) {
+                log.warn("Published factor model not loaded within {} ms; training may start from random factors",
+                        warmStartTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        FactorModel published = modelRegistry.current().factors();
+        FactorManifest manifest = modelRegistry.activeManifest();
+        boolean warmStart = published.version() > 0 && published.rank() == rank;
+        if (manifest != null) {
+            // The published version's chunks are deleted once this trainer publishes a newer one
+            lastVersion = manifest.getModelVersion();
+            lastChunkCount = manifest.getChunkCount();
+        }
+
+        userFactors = randomFactors(warmStart ? published.userFactors().size() : 1024);
+        itemFactors = randomFactors(warmStart ? published.itemFactors().size() : 1024);
+        if (warmStart) {
+            load(published.userFactors(), userRows, userIds, userFactors);
+            load(published.itemFactors(), itemRows, itemIds, itemFactors);
+            lastVersion = published.version();
+            lineage = published.lineage();
+            log.info("Matrix factorization trainer resumed from model {}", lastVersion);
+        }
+        initialized = true;
+    }
+
+    private void load(FactorTable table, Map<String, Integer> rows, List<String> ids, INDArray factors) {
+        float[] row = new float[rank];
+        String[] byRow = new String[table.size()];
+        table.rows().forEach((id, index) -> byRow[index] = id);
+        for (int i = 0; i < byRow.length; i++) {
+            table.copyRow(i, row);
+            factors.putRow(i, Nd4j.createFromArray(row));
+            rows.put(byRow[i], i);
+            ids.add(byRow[i]);
+        }
+    }
+
+    private int userRow(String userId) {
+        Integer row = userRows.get(userId);
+        if (row == null) {
+            row = userIds.size();
+            userRows.put(userId, row);
+            userIds.add(userId);
+            userFactors = grow(userFactors, userIds.size());
+        }
+        return row;
+    }
+
+    private int itemRow(String itemId) {
+        Integer row = itemRows.get(itemId);
+        if (row == null) {
+            row = itemIds.size();
+            itemRows.put(itemId, row);
+            itemIds.add(itemId);
+            itemFactors = grow(itemFactors, itemIds.size());
+        }
+        return row;
+    }
+
+    private INDArray grow(INDArray factors, int rows) {
+        long capacity = factors.rows();
+        if (rows <= capacity) {
+            return factors;
+        }
+        INDArray grown = randomFactors(Math.max(rows, capacity * 2));
+        grown.get(NDArrayIndex.interval(0, capacity), NDArrayIndex.all()).assign(factors);
+        return grown;
+    }
+
+    private INDArray randomFactors(long rows) {
+        return Nd4j.rand(DataType.FLOAT, Math.max(rows, 1), rank).subi(0.5).muli(INITIAL_SCALE);
+    }
+
+    private void ensureBatchCapacity(int size) {
+        if (batchUsers.length < size) {
+            batchUsers = new int[size];
+            batchItems = new int[size];
+            batchTargets = new float[size];
+        }
+    }
+
+    private UserEvent parse(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.value(), UserEvent.class);
+        } catch (Exception e) {
+            log.warn("Skipping unreadable user event at offset {}: {}", record.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return The training target for an event, or NaN if the event says nothing about the item
+     */
+    private static float target(UserEvent event) {
+        if (event.getEventType() == null) {
+            return Float.NaN;
+        }
+        switch (event.getEventType()) {
+            case SEARCH:
+                return Float.NaN;
+            case DISLIKE:
+                return 0.0f;
+            case RATE:
+                return event.getScore() != null
+                        ? (float) Math.max(0.0, Math.min(1.0, event.getScore() / MAX_RATING))
+                        : Float.NaN;
+            default:
+                return 1.0f;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.recommender.ml;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.ExperimentSet;
+import com.recommender.model.FactorManifest;
+import com.recommender.model.FactorUpdate;
+import com.recommender.model.ScoringWeights;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link ScoringModel}, fed from the model updates and model factors topics.
+ * Records keyed {@value #WEIGHTS_KEY} on the model updates topic carry new scoring and event
+ * weights; records keyed {@value #EXPERIMENTS_KEY} replace the set of running experiments.
+ * The compacted model factors topic carries chunks of matrix-factorization models, keyed by
+ * version and chunk (see {@link #chunkKey}), and a {@value #MANIFEST_KEY} record naming the latest
+ * complete version. Chunks are held as they arrive and dropped again when deleted, so replaying the
+ * topic at startup only keeps what compaction would keep; off-heap tables are built only for the
+ * manifest's version, and during startup only once the topic has been read to its end.
+ * Each change builds a new immutable model and publishes it with a single volatile write,
+ * so stream threads pick up new versions without pausing and never see a partial one.
+ * Event weights start from configuration (see {@link EventWeights#fromEnvironment}).
+ */
+@Component
+@Slf4j
+public class ModelRegistry {
+
+    public static final String WEIGHTS_KEY = "weights";
+    public static final String EXPERIMENTS_KEY = "experiments";
+    public static final String MANIFEST_KEY = "manifest";
+
+    private final ObjectMapper objectMapper;
+    private final KafkaAdmin kafkaAdmin;
+
+    private volatile ScoringModel current;
+    private volatile FactorManifest activeManifest;
+
+    // Factor chunks not yet part of an active version, by key; only touched by the listener thread
+    private final Map<String, FactorUpdate> pendingChunks = new HashMap<>();
+    private FactorManifest latestManifest;
+
+    // End of the model factors topic at startup; versions found before it are loaded only once reached
+    private long catchUpOffset;
+    private final CountDownLatch caughtUp = new CountDownLatch(1);
+
+    public ModelRegistry(ObjectMapper objectMapper, KafkaAdmin kafkaAdmin, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.kafkaAdmin = kafkaAdmin;
+        this.current = ScoringModel.DEFAULT.withEventWeights(EventWeights.fromEnvironment(environment));
+    }
+
+    /**
+     * Finds where the model factors topic ends, before the listener starts reading it.
+     * If that cannot be found, every complete version is loaded as it is read.
+     */
+    @PostConstruct
+    public void findCatchUpOffset() {
+        TopicPartition partition = new TopicPartition(KafkaConfig.MODEL_FACTORS_TOPIC, 0);
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            catchUpOffset = admin.listOffsets(Collections.singletonMap(partition, OffsetSpec.latest()))
+                    .partitionResult(partition)
+                    .get(30, TimeUnit.SECONDS)
+                    .offset();
+        } catch (Exception e) {
+            log.warn("Could not find the end of {}; loading factor models as they are read: {}",
+                    KafkaConfig.MODEL_FACTORS_TOPIC, e.getMessage());
+            catchUpOffset = 0L;
+        }
+        if (catchUpOffset == 0L) {
+            caughtUp.countDown();
+        }
+    }
+
+    /**
+     * @return The current model; read it once per unit of work and keep using that instance
+     */
+    public ScoringModel current() {
+        return current;
+    }
+
+    /**
+     * @return The manifest of the active factor version, or null if none is active
+     */
+    public FactorManifest activeManifest() {
+        return activeManifest;
+    }
+
+    /**
+     * Waits until the factor model published before startup, if any, has been loaded.
+     *
+     * @param timeout How long to wait at most
+     * @return Whether the published model was loaded within the timeout
+     */
+    public boolean awaitFactors(Duration timeout) throws InterruptedException {
+        return caughtUp.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Builds the key of a factor chunk on the model factors topic.
+     *
+     * @param version The model version
+     * @param chunk The chunk number within the version
+     * @return The key
+     */
+    public static String chunkKey(long version, int chunk) {
+        return version + "/" + chunk;
+    }
+
+    /**
+     * Applies a record from the model updates topic.
+     * Every instance reads the whole topic, so each gets its own consumer group.
+     *
+     * @param record The model update record
+     */
+    @KafkaListener(
+            topics = KafkaConfig.MODEL_UPDATES_TOPIC,
+            groupId = "${spring.application.name}-models-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = {
+                    "auto.offset.reset=earliest"
+            })
+    public void onModelUpdate(ConsumerRecord<String, String> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+        try {
+            switch (record.key()) {
+                case WEIGHTS_KEY:
+                    apply(objectMapper.readValue(record.value(), ScoringWeights.class));
+                    break;
+                case EXPERIMENTS_KEY:
+                    apply(objectMapper.readValue(record.value(), ExperimentSet.class));
+                    break;
+                default:
+                    log.debug("Ignoring model update with key {}", record.key());
+            }
+        } catch (Exception e) {
+            log.error("Error applying model update at offset {}", record.offset(), e);
+        }
+    }
+
+    /**
+     * Applies a record from the model factors topic.
+     * Every instance reads the whole topic, so each gets its own consumer group.
+     *
+     * @param record The factor chunk, manifest or tombstone
+     */
+    @KafkaListener(
+            topics = KafkaConfig.MODEL_FACTORS_TOPIC,
+            groupId = "${spring.application.name}-factors-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = {
+                    "auto.offset.reset=earliest"
+            })
+    public void onFactors(ConsumerRecord<String, String> record) {
+        try {
+            if (record.key() == null) {
+                return;
+            }
+            if (record.value() == null) {
+                pendingChunks.remove(record.key());
+            } else if (MANIFEST_KEY.equals(record.key())) {
+                apply(objectMapper.readValue(record.value(), FactorManifest.class));
+            } else {
+                apply(record.key(), objectMapper.readValue(record.value(), FactorUpdate.class));
+            }
+        } catch (Exception e) {
+            log.error("Error applying factor record at offset {}", record.offset(), e);
+        } finally {
+            if (caughtUp.getCount() > 0 && record.offset() + 1 >= catchUpOffset) {
+                activateLatest();
+                caughtUp.countDown();
+            }
+        }
+    }
+
+    synchronized void apply(ScoringWeights weights) {
+        if (weights.getVersion() <= current.weightsVersion()) {
+            return;
+        }
+        current = current.withWeights(weights);
+        log.info("Scoring model {} active", current.version());
+    }
+
+    synchronized void apply(ExperimentSet experimentSet) {
+        if (experimentSet.getVersion() <= current.experiments().version()) {
+            return;
+        }
+        current = current.withExperiments(new ExperimentPlan(experimentSet));
+        log.info("Scoring model {} active with {} experiments", current.version(),
+                experimentSet.getExperiments() != null ? experimentSet.getExperiments().size() : 0);
+    }
+
+    void apply(String key, FactorUpdate update) {
+        if (update.getModelVersion() > current.factors().version()) {
+            pendingChunks.put(key, update);
+        }
+    }
+
+    void apply(FactorManifest manifest) {
+        if (manifest.getModelVersion() <= current.factors().version()) {
+            return;
+        }
+        latestManifest = manifest;
+        if (caughtUp.getCount() == 0) {
+            activateLatest();
+        }
+    }
+
+    /**
+     * Builds and activates the latest manifest's version if all of its chunks are held, then drops
+     * every held chunk of that version or older.
+     */
+    private void activateLatest() {
+        FactorManifest manifest = latestManifest;
+        if (manifest == null || manifest.getModelVersion() <= current.factors().version()) {
+            return;
+        }
+        long version = manifest.getModelVersion();
+        FactorTable users = new FactorTable(manifest.getRank(), 0);
+        FactorTable items = new FactorTable(manifest.getRank(), 0);
+        for (int chunk = 0; chunk < manifest.getChunkCount(); chunk++) {
+            FactorUpdate update = pendingChunks.get(chunkKey(version, chunk));
+            if (update == null) {
+                log.warn("Factor model {} is missing chunk {} of {}; keeping model {}",
+                        version, chunk, manifest.getChunkCount(), current.factors().version());
+                return;
+            }
+            FactorTable table = update.getSide() == FactorUpdate.Side.USER ? users : items;
+            int offset = 0;
+            for (String id : update.getIds()) {
+                table.put(id, update.getFactors(), offset);
+                offset += update.getRank();
+            }
+        }
+
+        FactorModel factors = new FactorModel(version,
+                manifest.getLineage() > 0 ? manifest.getLineage() : version, users, items);
+        synchronized (this) {
+            // The two listeners run on different threads
+            current = current.withFactors(factors);
+            activeManifest = manifest;
+        }
+        for (Iterator<FactorUpdate> chunks = pendingChunks.values().iterator(); chunks.hasNext(); ) {
+            if (chunks.next().getModelVersion() <= version) {
+                chunks.remove();
+            }
+        }
+        log.info("Scoring model {} active: {} users, {} items, rank {}",
+                current.version(), factors.userFactors().size(), factors.itemFactors().size(), factors.rank());
+    }
+}
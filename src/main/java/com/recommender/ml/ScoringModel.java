@@ -0,0 +1,130 @@
+package com.recommender.ml;
+
+import com.recommender.catalog.ScoringKernel;
+import com.recommender.model.ScoringWeights;
+
+/**
+ * One immutable version of everything used to score: the kernel weights, the weight of each
+ * event type, the matrix-factorization model, and the running experiments.
+ * A scorer reads the current version once and uses it for the whole record, so a record is
+ * never scored with a mix of versions.
+ */
+public final class ScoringModel {
+
+    public static final ScoringModel DEFAULT = new ScoringModel(0L, ScoringKernel.DEFAULT,
+            EventWeights.DEFAULT, FactorModel.EMPTY, ExperimentPlan.EMPTY);
+
+    private final long weightsVersion;
+    private final ScoringKernel kernel;
+    private final EventWeights eventWeights;
+    private final FactorModel factors;
+    private final ExperimentPlan experiments;
+    private final String version;
+    private final String lineage;
+
+    private ScoringModel(long weightsVersion, ScoringKernel kernel, EventWeights eventWeights, FactorModel factors,
+                         ExperimentPlan experiments) {
+        this.weightsVersion = weightsVersion;
+        this.kernel = kernel;
+        this.eventWeights = eventWeights;
+        this.factors = factors;
+        this.experiments = experiments;
+        this.version = "w" + weightsVersion + "-l" + factors.lineage() + "-f" + factors.version()
+                + "-e" + experiments.version();
+        this.lineage = lineage(version);
+    }
+
+    /**
+     * @return The version reported on recommendations, made of the weights version, factor lineage,
+     *         factor version and experiment version
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * Tells whether a version belongs to this model's lineage: the same weights and experiments,
+     * and factors from the same training run, of any version.
+     *
+     * @param otherVersion A version reported by {@link #version()}, may be null
+     * @return Whether the two differ at most in their factor version
+     */
+    public boolean sameLineage(String otherVersion) {
+        return otherVersion != null && lineage.equals(lineage(otherVersion));
+    }
+
+    /**
+     * @return The version without its factor version, or the whole version if it has none
+     */
+    private static String lineage(String version) {
+        int factors = version.indexOf("-f");
+        int experiments = version.indexOf("-e", factors + 1);
+        return factors >= 0 && experiments > factors
+                ? version.substring(0, factors) + version.substring(experiments)
+                : version;
+    }
+
+    public long weightsVersion() {
+        return weightsVersion;
+    }
+
+    public ScoringKernel kernel() {
+        return kernel;
+    }
+
+    public FactorModel factors() {
+        return factors;
+    }
+
+    public ExperimentPlan experiments() {
+        return experiments;
+    }
+
+    /**
+     * Gets the kernel for a user, with the scoring overrides of the user's experiment variants.
+     *
+     * @param userId The user ID
+     * @return The kernel to score the user with
+     */
+    public ScoringKernel kernelFor(String userId) {
+        return experiments.kernelFor(userId, kernel);
+    }
+
+    public EventWeights eventWeights() {
+        return eventWeights;
+    }
+
+    /**
+     * @return A copy of this model with different factors
+     */
+    public ScoringModel withFactors(FactorModel newFactors) {
+        return new ScoringModel(weightsVersion, kernel, eventWeights, newFactors, experiments);
+    }
+
+    /**
+     * @return A copy of this model with different event weights, keeping the weights version
+     */
+    public ScoringModel withEventWeights(EventWeights newEventWeights) {
+        return new ScoringModel(weightsVersion, kernel, newEventWeights, factors, experiments);
+    }
+
+    /**
+     * @return A copy of this model with different experiments
+     */
+    public ScoringModel withExperiments(ExperimentPlan newExperiments) {
+        return new ScoringModel(weightsVersion, kernel, eventWeights, factors, newExperiments);
+    }
+
+    /**
+     * @return A copy of this model with the given weights applied; weights left out are kept
+     */
+    public ScoringModel withWeights(ScoringWeights weights) {
+        ScoringKernel newKernel = new ScoringKernel(
+                weights.getPopularityWeight() != null ? weights.getPopularityWeight() : kernel.popularityWeight(),
+                weights.getCategoryWeight() != null ? weights.getCategoryWeight() : kernel.categoryWeight(),
+                weights.getRecencyWeight() != null ? weights.getRecencyWeight() : kernel.recencyWeight(),
+                weights.getFactorWeight() != null ? weights.getFactorWeight() : kernel.factorWeight());
+
+        return new ScoringModel(weights.getVersion(), newKernel, eventWeights.with(weights), factors, experiments);
+    }
+}
@@ -0,0 +1,38 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an A/B test: named variants that split users by a deterministic hash of the user ID.
+ * A variant may override scoring weights, which the recommendation generator applies to the
+ * users assigned to it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Experiment {
+    private String id;
+
+    @Builder.Default
+    private List<Variant> variants = new ArrayList<>();
+
+    /**
+     * Represents one arm of an experiment.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Variant {
+        private String name;
+        private int allocation;           // Relative share of users, e.g. 50 and 50
+        private ScoringWeights scoring;   // Kernel weights to override, or null to score as usual
+    }
+}
@@ -0,0 +1,42 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the outcomes of one experiment variant over a time window.
+ * Clicks and purchases are counted on recommended items within the attribution window
+ * after the recommendation was served.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExperimentResult {
+    private String experimentId;
+    private String variant;
+    private long windowStart;
+    private long windowEnd;
+
+    private long impressions;
+    private long clicks;
+    private long purchases;
+
+    private double clickThroughRate;   // Clicks per impression
+    private double conversionRate;     // Purchases per impression
+
+    /**
+     * Adds another partial result's counts to this one.
+     *
+     * @param other The counts to add
+     * @return This result
+     */
+    public ExperimentResult add(ExperimentResult other) {
+        impressions += other.impressions;
+        clicks += other.clicks;
+        purchases += other.purchases;
+        return this;
+    }
+}
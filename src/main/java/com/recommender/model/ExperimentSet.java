@@ -0,0 +1,24 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the full set of running experiments on the model updates topic.
+ * Each version replaces the previous one; experiments left out are stopped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExperimentSet {
+    private long version;
+
+    @Builder.Default
+    private List<Experiment> experiments = new ArrayList<>();
+}
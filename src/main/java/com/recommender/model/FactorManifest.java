@@ -0,0 +1,22 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marks a matrix-factorization model version as complete on the model factors topic.
+ * Published after every chunk of the version, so a reader that sees the manifest has already
+ * seen the chunks it names.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FactorManifest {
+    private long modelVersion;
+    private int rank;
+    private int chunkCount;             // Chunks 0 to chunkCount - 1 make up the version
+    private long lineage;               // First version of the training run; 0 if unknown
+}
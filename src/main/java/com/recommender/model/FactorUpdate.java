@@ -0,0 +1,39 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents one chunk of a versioned matrix-factorization model on the model factors topic.
+ * A model version is complete once all of its chunks, for users and items, have been received
+ * and its {@link FactorManifest} has been published.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FactorUpdate {
+    private long modelVersion;
+    private int rank;                   // Factors per row
+    private Side side;
+    private int chunk;                  // Position of this chunk within the version
+    private int chunkCount;             // Total chunks in the version, users and items together
+
+    @Builder.Default
+    private List<String> ids = new ArrayList<>();
+
+    private float[] factors;            // rank values per ID, in the order of ids
+
+    /**
+     * Whether a chunk holds user or item factors.
+     */
+    public enum Side {
+        USER,
+        ITEM
+    }
+}
@@ -0,0 +1,21 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the features extracted from one user event and its item, for training jobs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeatureVector {
+    private String userId;
+    private String itemId;
+    private UserEvent.EventType eventType;
+    private long timestamp;           // Event time in milliseconds
+    private SparseVector features;
+}
@@ -0,0 +1,39 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the items most often seen together with an item in user sessions.
+ * Counts are estimates from a bounded heavy-hitter sketch, so rare pairs are not tracked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemNeighbors {
+    private String itemId;
+    
+    @Builder.Default
+    private List<Neighbor> neighbors = new ArrayList<>();  // Strongest first in published lists
+    
+    private long updateTimestamp;                         // When the neighbors last changed
+    
+    /**
+     * Represents a co-occurring item and its estimated co-occurrence count.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Neighbor {
+        private String itemId;
+        private long count;   // Estimated co-occurrences, never below the true count
+        private long error;   // Maximum overestimate included in count
+    }
+}
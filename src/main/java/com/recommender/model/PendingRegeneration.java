@@ -0,0 +1,20 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents profile changes of a user whose recommendations have not been regenerated yet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingRegeneration {
+    private long firstChangeTimestamp;   // Wall-clock time of the first change not yet scored
+    private long lastChangeTimestamp;    // Wall-clock time of the latest change
+    private int changes;
+    private boolean due;                 // Score at the next batch regardless of the debounce window
+}
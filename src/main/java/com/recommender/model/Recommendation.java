@@ -30,6 +30,7 @@ public class Recommendation {
     
     private String modelVersion;  // Version of the model that generated this recommendation
     private String experimentId;  // A/B test experiment ID if applicable
+    private String variant;       // Variant of the experiment the user is assigned to
     
     /**
      * Represents a single item in a recommendation with its score and explanation.
@@ -0,0 +1,30 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a recommendation served to a user as part of an experiment.
+ * Joined with the user's later events to measure each variant's outcomes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationImpression {
+    private String userId;
+    private String experimentId;
+    private String variant;
+    private String recommendationId;
+
+    @Builder.Default
+    private List<String> itemIds = new ArrayList<>();
+
+    private Instant timestamp;
+}
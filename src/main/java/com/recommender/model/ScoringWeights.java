@@ -0,0 +1,36 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a versioned set of scoring weights on the model updates topic.
+ * Weights that are left out keep their current values.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringWeights {
+    private long version;
+
+    private Double popularityWeight;
+    private Double categoryWeight;
+    private Double recencyWeight;
+    private Double factorWeight;
+
+    @Builder.Default
+    private Map<UserEvent.EventType, Double> eventWeights = new EnumMap<>(UserEvent.EventType.class);
+
+    // Event weights that apply only to events with this contextInfo
+    @Builder.Default
+    private Map<String, Map<UserEvent.EventType, Double>> contextEventWeights = new HashMap<>();
+
+    private Long eventHalfLifeMs;
+}
@@ -0,0 +1,165 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents what a user did in one session, built from the session's events.
+ * Items are kept as an ordered sequence of visits, where consecutive events on the same item are
+ * one visit, and the time until the next visit stands in for how long the user dwelt on it.
+ * Each list is bounded, so a summary stays small however long the session runs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSummary {
+    private String sessionId;
+    private String userId;
+    private long startTimestamp;
+    private long endTimestamp;
+    private long eventCount;
+    private long purchaseCount;
+
+    @Builder.Default
+    private List<Visit> visits = new ArrayList<>();          // In time order; oldest dropped when full
+
+    @Builder.Default
+    private List<String> cartItemIds = new ArrayList<>();    // Added to cart in the session
+
+    @Builder.Default
+    private List<String> purchasedItemIds = new ArrayList<>();
+
+    /**
+     * Represents consecutive events on one item.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Visit {
+        private String itemId;
+        private long timestamp;   // First event of the visit
+        private long dwellMs;     // Until the next visit started; 0 for the last visit
+        private int events;
+    }
+
+    /**
+     * Adds an event to the session.
+     * Late events are placed in time order.
+     *
+     * @param event The user event, with a timestamp
+     * @param maxItems The maximum number of visits and of cart and purchased items to keep
+     * @return This summary
+     */
+    public SessionSummary add(UserEvent event, int maxItems) {
+        long timestamp = event.getTimestamp().toEpochMilli();
+        if (eventCount == 0) {
+            sessionId = event.getSessionId();
+            userId = event.getUserId();
+            startTimestamp = timestamp;
+            endTimestamp = timestamp;
+        }
+        eventCount++;
+        startTimestamp = Math.min(startTimestamp, timestamp);
+        endTimestamp = Math.max(endTimestamp, timestamp);
+
+        if (event.getItemId() == null) {
+            return this;
+        }
+        addVisit(event.getItemId(), timestamp, maxItems);
+
+        if (event.getEventType() == UserEvent.EventType.ADD_TO_CART) {
+            addBounded(cartItemIds, event.getItemId(), maxItems);
+        } else if (event.getEventType() == UserEvent.EventType.PURCHASE) {
+            purchaseCount++;
+            addBounded(purchasedItemIds, event.getItemId(), maxItems);
+        }
+        return this;
+    }
+
+    /**
+     * Merges another part of the same session into this one, when an event bridges the gap between them.
+     *
+     * @param other The other part of the session
+     * @param maxItems The maximum number of visits and of cart and purchased items to keep
+     * @return This summary
+     */
+    public SessionSummary merge(SessionSummary other, int maxItems) {
+        if (other == null || other.eventCount == 0) {
+            return this;
+        }
+        if (eventCount == 0) {
+            return other;
+        }
+        eventCount += other.eventCount;
+        purchaseCount += other.purchaseCount;
+        startTimestamp = Math.min(startTimestamp, other.startTimestamp);
+        endTimestamp = Math.max(endTimestamp, other.endTimestamp);
+        for (Visit visit : other.visits) {
+            int position = insertionPoint(visit.getTimestamp());
+            Visit previous = position > 0 ? visits.get(position - 1) : null;
+            if (previous != null && previous.getItemId().equals(visit.getItemId())) {
+                previous.setEvents(previous.getEvents() + visit.getEvents());
+            } else {
+                visits.add(position, new Visit(visit.getItemId(), visit.getTimestamp(), 0L, visit.getEvents()));
+            }
+        }
+        trimVisits(maxItems);
+        updateDwell();
+        for (String itemId : other.cartItemIds) {
+            addBounded(cartItemIds, itemId, maxItems);
+        }
+        for (String itemId : other.purchasedItemIds) {
+            addBounded(purchasedItemIds, itemId, maxItems);
+        }
+        return this;
+    }
+
+    private void addVisit(String itemId, long timestamp, int maxItems) {
+        int position = insertionPoint(timestamp);
+        Visit previous = position > 0 ? visits.get(position - 1) : null;
+        if (previous != null && previous.getItemId().equals(itemId)) {
+            previous.setEvents(previous.getEvents() + 1);
+            return;
+        }
+        if (visits.size() >= maxItems && position == 0) {
+            return;
+        }
+        visits.add(position, new Visit(itemId, timestamp, 0L, 1));
+        trimVisits(maxItems);
+        updateDwell();
+    }
+
+    private int insertionPoint(long timestamp) {
+        int position = visits.size();
+        while (position > 0 && visits.get(position - 1).getTimestamp() > timestamp) {
+            position--;
+        }
+        return position;
+    }
+
+    private void trimVisits(int maxItems) {
+        while (visits.size() > maxItems) {
+            visits.remove(0);
+        }
+    }
+
+    private void updateDwell() {
+        for (int i = 0; i < visits.size(); i++) {
+            Visit visit = visits.get(i);
+            visit.setDwellMs(i + 1 < visits.size() ? visits.get(i + 1).getTimestamp() - visit.getTimestamp() : 0L);
+        }
+    }
+
+    private static void addBounded(List<String> itemIds, String itemId, int maxItems) {
+        if (itemIds.size() < maxItems && !itemIds.contains(itemId)) {
+            itemIds.add(itemId);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.recommender.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a sparse vector as parallel arrays of feature IDs and values.
+ * IDs come from the feature dictionary. Names that share an ID can repeat it; readers add the
+ * values of a repeated ID.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SparseVector {
+    private int[] indices;
+    private float[] values;
+
+    /**
+     * @return The number of non-zero entries
+     */
+    public int size() {
+        return indices != null ? indices.length : 0;
+    }
+}
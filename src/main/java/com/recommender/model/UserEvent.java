@@ -12,7 +12,7 @@ import java.time.Instant;
  * These events are used to track user behavior for recommendation purposes.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserEvent {
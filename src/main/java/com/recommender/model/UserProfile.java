@@ -7,13 +7,18 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Represents a user profile in the recommendation system.
  * Contains user preferences and interaction history used for generating recommendations.
+ * The profile has a bounded size: item histories keep only the most recent entries,
+ * preferences decay over event time, and older activity survives only as summary counts.
+ * The exception is the set of purchased items, which excludes items from recommendations and
+ * so has to remember every purchase; purchases are rare next to the events the limits are for.
  */
 @Data
 @Builder
@@ -21,46 +26,89 @@ import java.util.Set;
 @AllArgsConstructor
 @Slf4j
 public class UserProfile {
+
+    // History limits; the oldest entries are dropped first
+    public static final int MAX_RECENTLY_VIEWED_ITEMS = 50;
+    public static final int MAX_ITEM_RATINGS = 100;
+
+    // Preferences halve every week of event time and are dropped once negligible
+    public static final long PREFERENCE_HALF_LIFE_MS = 7L * 24 * 60 * 60 * 1000;
+    public static final int MAX_PREFERENCES = 64;
+    private static final double MIN_PREFERENCE = 1e-3;
+
     private String userId;
-    
+
     @Builder.Default
     private Map<String, Double> categoryPreferences = new HashMap<>();  // Category -> preference score
-    
+
     @Builder.Default
     private Map<String, Double> featurePreferences = new HashMap<>();   // Feature -> preference score
-    
+
     @Builder.Default
-    private Set<String> recentlyViewedItems = new HashSet<>();          // Recently viewed item IDs
-    
+    private LinkedHashSet<String> recentlyViewedItems = new LinkedHashSet<>();  // Item IDs, oldest first
+
     @Builder.Default
-    private Set<String> purchasedItems = new HashSet<>();               // Purchased item IDs
-    
+    private LinkedHashSet<String> purchasedItems = new LinkedHashSet<>();       // Item IDs, oldest first; never trimmed
+
     @Builder.Default
-    private Map<String, Double> itemRatings = new HashMap<>();          // ItemId -> rating score
-    
+    private LinkedHashMap<String, Double> itemRatings = new LinkedHashMap<>();  // ItemId -> rating score, oldest first
+
     private long lastActivityTimestamp;               // Last user activity timestamp
-    
+
+    private long firstActivityTimestamp;              // First user activity timestamp
+
+    private long preferencesTimestamp;                // Event time the preferences are decayed to
+
+    // Lifetime totals, including history that no longer fits in the profile
+    private long eventCount;
+
+    private long purchaseCount;
+
+    private long ratingCount;
+
+    private double ratingSum;
+
     /**
      * Updates the user profile with a new user event.
      * This method is used to keep the user profile up-to-date with recent user activity.
-     * 
+     * The cost of an update does not depend on how much history the profile has seen.
+     *
      * @param event The user event to incorporate into the profile
      */
     public void updateWithEvent(UserEvent event) {
+        updateWithEvent(event, null);
+    }
+
+    /**
+     * Updates the user profile with a new user event and the item it refers to.
+     * The item's categories and features are credited with the event's score,
+     * so the cost of an update grows only with the size of the item.
+     *
+     * @param event The user event to incorporate into the profile
+     * @param item The event's item, or null if it is not in the catalog
+     */
+    public void updateWithEvent(UserEvent event, Item item) {
         // Initialize collections if they're null
         if (categoryPreferences == null) categoryPreferences = new HashMap<>();
         if (featurePreferences == null) featurePreferences = new HashMap<>();
-        if (recentlyViewedItems == null) recentlyViewedItems = new HashSet<>();
-        if (purchasedItems == null) purchasedItems = new HashSet<>();
-        if (itemRatings == null) itemRatings = new HashMap<>();
-        
-        // Update last activity timestamp
-        lastActivityTimestamp = event.getTimestamp().toEpochMilli();
-        
+        if (recentlyViewedItems == null) recentlyViewedItems = new LinkedHashSet<>();
+        if (purchasedItems == null) purchasedItems = new LinkedHashSet<>();
+        if (itemRatings == null) itemRatings = new LinkedHashMap<>();
+
+        // Update activity timestamps; events may arrive slightly out of order
+        long eventTimestamp = event.getTimestamp().toEpochMilli();
+        if (firstActivityTimestamp == 0 || eventTimestamp < firstActivityTimestamp) {
+            firstActivityTimestamp = eventTimestamp;
+        }
+        lastActivityTimestamp = Math.max(lastActivityTimestamp, eventTimestamp);
+        eventCount++;
+
+        double preferenceWeight = decayPreferences(eventTimestamp);
+
         // Process event based on type
         switch (event.getEventType()) {
             case VIEW:
-                recentlyViewedItems.add(event.getItemId());
+                touch(recentlyViewedItems, event.getItemId(), MAX_RECENTLY_VIEWED_ITEMS);
                 break;
             case CLICK:
                 // Track clicks, could update a click count map if needed
@@ -69,11 +117,23 @@ public class UserProfile {
                 // Track items added to cart
                 break;
             case PURCHASE:
+                purchaseCount++;
+                // Every purchase is kept, as the set excludes items from recommendations
                 purchasedItems.add(event.getItemId());
                 break;
             case RATE:
                 if (event.getScore() != null) {
+                    ratingCount++;
+                    ratingSum += event.getScore();
+                    // Re-insert so the rating moves to the most recent position
+                    itemRatings.remove(event.getItemId());
                     itemRatings.put(event.getItemId(), event.getScore());
+                    // Profiles written before the limits existed shrink to size over time
+                    Iterator<String> oldest = itemRatings.keySet().iterator();
+                    while (itemRatings.size() > MAX_ITEM_RATINGS) {
+                        oldest.next();
+                        oldest.remove();
+                    }
                 }
                 break;
             case SEARCH:
@@ -88,5 +148,119 @@ public class UserProfile {
             default:
                 log.warn("Unhandled event type: {}", event.getEventType());
         }
+
+        if (item != null && event.getScore() != null) {
+            updatePreferences(item, event.getScore() * preferenceWeight);
+        }
+    }
+
+    /**
+     * Credits an item's categories and features; negative amounts (e.g. dislikes) lower them.
+     */
+    private void updatePreferences(Item item, double amount) {
+        if (amount == 0.0) {
+            return;
+        }
+        if (item.getCategories() != null) {
+            for (String category : item.getCategories()) {
+                addCategoryPreference(category, amount);
+            }
+        }
+        if (item.getFeatures() != null) {
+            for (Map.Entry<String, Double> feature : item.getFeatures().entrySet()) {
+                if (feature.getValue() != null) {
+                    addFeaturePreference(feature.getKey(), amount * feature.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Decays all preferences to the given event time.
+     * Preferences only move forward in time; for an event older than the preferences,
+     * the returned weight discounts the event's contribution instead.
+     *
+     * @param eventTimestamp The event time in milliseconds
+     * @return The weight to apply to a preference change made by this event
+     */
+    public double decayPreferences(long eventTimestamp) {
+        if (eventTimestamp <= preferencesTimestamp) {
+            return decayFactor(preferencesTimestamp - eventTimestamp);
+        }
+
+        if (preferencesTimestamp > 0) {
+            double factor = decayFactor(eventTimestamp - preferencesTimestamp);
+            scale(categoryPreferences, factor);
+            scale(featurePreferences, factor);
+        }
+        preferencesTimestamp = eventTimestamp;
+        return 1.0;
+    }
+
+    /**
+     * Adds to the preference for a category.
+     *
+     * @param category The category
+     * @param delta The amount to add, already weighted by the caller
+     */
+    public void addCategoryPreference(String category, double delta) {
+        addPreference(categoryPreferences, category, delta);
+    }
+
+    /**
+     * Adds to the preference for an item feature.
+     *
+     * @param feature The feature name
+     * @param delta The amount to add, already weighted by the caller
+     */
+    public void addFeaturePreference(String feature, double delta) {
+        addPreference(featurePreferences, feature, delta);
+    }
+
+    private static double decayFactor(long elapsedMs) {
+        return Math.pow(0.5, (double) elapsedMs / PREFERENCE_HALF_LIFE_MS);
+    }
+
+    private static void scale(Map<String, Double> preferences, double factor) {
+        Iterator<Map.Entry<String, Double>> entries = preferences.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Double> entry = entries.next();
+            double value = entry.getValue() * factor;
+            if (Math.abs(value) < MIN_PREFERENCE) {
+                entries.remove();
+            } else {
+                entry.setValue(value);
+            }
+        }
+    }
+
+    private static void addPreference(Map<String, Double> preferences, String key, double delta) {
+        preferences.merge(key, delta, Double::sum);
+
+        // Drop the weakest preference once the map is full
+        if (preferences.size() > MAX_PREFERENCES) {
+            String weakest = null;
+            double weakestValue = Double.MAX_VALUE;
+            for (Map.Entry<String, Double> entry : preferences.entrySet()) {
+                if (Math.abs(entry.getValue()) < weakestValue) {
+                    weakest = entry.getKey();
+                    weakestValue = Math.abs(entry.getValue());
+                }
+            }
+            preferences.remove(weakest);
+        }
+    }
+
+    /**
+     * Moves an item to the most recent position, dropping the oldest item when over capacity.
+     */
+    private static void touch(LinkedHashSet<String> items, String itemId, int capacity) {
+        items.remove(itemId);
+        items.add(itemId);
+        Iterator<String> oldest = items.iterator();
+        while (items.size() > capacity) {
+            oldest.next();
+            oldest.remove();
+        }
     }
 }
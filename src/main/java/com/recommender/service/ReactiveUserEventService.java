@@ -0,0 +1,104 @@
+package com.recommender.service;
+
+import com.recommender.config.KafkaConfig;
+import com.recommender.dto.EventAcknowledgement;
+import com.recommender.exception.IngestionOverloadedException;
+import com.recommender.exception.IngestionUnavailableException;
+import com.recommender.model.UserEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Non-blocking publisher for user events.
+ * The number of events waiting for a broker acknowledgement is bounded; once the bound is
+ * reached, or the producer cannot buffer more data, new events are refused with
+ * {@link IngestionOverloadedException} instead of blocking the caller. Events that time out
+ * waiting for Kafka fail with {@link IngestionUnavailableException}.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "recommender.events.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveUserEventService {
+
+    private final KafkaSender<String, UserEvent> userEventSender;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    public ReactiveUserEventService(KafkaSender<String, UserEvent> userEventSender,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${recommender.events.reactive.max-in-flight:10000}") int maxInFlight) {
+        this.userEventSender = userEventSender;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        Gauge.builder("events.ingestion.in-flight", this, ReactiveUserEventService::inFlightCount)
+                .description("User events sent but not yet acknowledged by Kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes a user event.
+     * 
+     * @param userEvent The user event to publish
+     * @return A mono completing with the event's position in the topic once Kafka acknowledges it,
+     *         failing with {@link IngestionOverloadedException} if the event cannot be accepted now,
+     *         or with {@link IngestionUnavailableException} if Kafka does not respond in time
+     */
+    public Mono<EventAcknowledgement> publishUserEvent(UserEvent userEvent) {
+        return Mono.defer(() -> {
+            if (!inFlight.tryAcquire()) {
+                return Mono.error(new IngestionOverloadedException(
+                        "Too many events awaiting acknowledgement (" + maxInFlight + ")"));
+            }
+
+            // Use the user ID as the key so that events for the same user go to the same partition
+            ProducerRecord<String, UserEvent> record =
+                    new ProducerRecord<>(KafkaConfig.USER_EVENTS_TOPIC, userEvent.getUserId(), userEvent);
+
+            return userEventSender.send(Mono.just(SenderRecord.create(record, userEvent)))
+                    .next()
+                    .flatMap(result -> result.exception() != null
+                            ? Mono.error(result.exception())
+                            : Mono.just(acknowledge(result.correlationMetadata(), result.recordMetadata())))
+                    .onErrorMap(ReactiveUserEventService::isProducerFull,
+                            e -> new IngestionOverloadedException("Producer buffer is full", e))
+                    .onErrorMap(TimeoutException.class,
+                            e -> new IngestionUnavailableException("Kafka did not respond in time", e))
+                    .doFinally(signal -> inFlight.release());
+        });
+    }
+
+    private static EventAcknowledgement acknowledge(UserEvent userEvent, RecordMetadata metadata) {
+        return EventAcknowledgement.builder()
+                .event(userEvent)
+                .partition(metadata.partition())
+                .offset(metadata.offset())
+                .build();
+    }
+
+    /**
+     * A full buffer surfaces as {@link BufferExhaustedException} once max.block.ms has passed
+     * without memory for the record. Other timeouts, waiting for metadata or for delivery, mean
+     * the brokers are unavailable rather than that this instance is overloaded.
+     */
+    private static boolean isProducerFull(Throwable e) {
+        return e instanceof BufferExhaustedException;
+    }
+
+    private double inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+}
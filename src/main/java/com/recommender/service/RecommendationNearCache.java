@@ -0,0 +1,197 @@
+package com.recommender.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.Recommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded near cache of serialized recommendations, keyed by user and context.
+ * Entries expire after a fixed TTL, the least recently used users are evicted once the
+ * cache is full, and all of a user's entries are dropped as soon as a new recommendation
+ * for that user is published to the recommendations topic. A value read from the store before
+ * an invalidation is only cached if no invalidation for the user has happened since the read
+ * began, so a stale read cannot outlive the invalidation that raced with it.
+ * Hit, miss and eviction counts are exported through Micrometer.
+ */
+@Component
+@Slf4j
+public class RecommendationNearCache {
+
+    private static final String DEFAULT_CONTEXT = "";
+    private static final int GENERATION_STRIPES = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Cache<String, Map<String, CachedResponse>> cache;
+    private final Counter invalidations;
+
+    // Invalidation counts per stripe of users; a collision only makes a put skip the cache
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public RecommendationNearCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${recommender.near-cache.enabled:true}") boolean enabled,
+            @Value("${recommender.near-cache.max-users:100000}") long maxUsers,
+            @Value("${recommender.near-cache.ttl-ms:30000}") long ttlMs) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("recommendations.near-cache.invalidations")
+                .description("Near cache entries dropped because a new recommendation was published")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recommendations.near-cache");
+    }
+
+    /**
+     * Gets a cached recommendation.
+     *
+     * @param userId The user ID
+     * @param contextId The request context, may be null
+     * @return A fresh copy of the cached recommendation, or null on a miss
+     */
+    public Recommendation get(String userId, String contextId) {
+        if (!enabled) {
+            return null;
+        }
+
+        Map<String, CachedResponse> entries = cache.getIfPresent(userId);
+        CachedResponse cached = entries != null ? entries.get(contextKey(contextId)) : null;
+        // The cache entry is per user, so each context keeps its own write time
+        if (cached == null || System.nanoTime() - cached.cachedAtNanos > ttlNanos) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(cached.payload, Recommendation.class);
+        } catch (Exception e) {
+            log.warn("Dropping unreadable near cache entry for user {}", userId, e);
+            cache.invalidate(userId);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the user's invalidation generation; read it before reading the recommendation that will
+     * be cached.
+     *
+     * @param userId The user ID
+     * @return The generation to pass to {@link #put}
+     */
+    public long generation(String userId) {
+        return generations.get(stripe(userId));
+    }
+
+    /**
+     * Caches a recommendation, unless the user was invalidated since the given generation.
+     *
+     * @param userId The user ID
+     * @param contextId The request context, may be null
+     * @param recommendation The recommendation to cache
+     * @param generation The user's generation from before the recommendation was read
+     */
+    public void put(String userId, String contextId, Recommendation recommendation, long generation) {
+        if (!enabled) {
+            return;
+        }
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(recommendation);
+        } catch (Exception e) {
+            log.warn("Could not serialize recommendation for user {}", userId, e);
+            return;
+        }
+
+        CachedResponse cached = new CachedResponse(payload, System.nanoTime());
+        int stripe = stripe(userId);
+        cache.asMap().compute(userId, (user, entries) -> {
+            // Invalidation bumps the generation before removing the entry, so either this sees the
+            // new generation or the removal comes after this write
+            if (generations.get(stripe) != generation) {
+                return entries;
+            }
+            Map<String, CachedResponse> updated = entries != null ? new HashMap<>(entries) : new HashMap<>();
+            updated.put(contextKey(contextId), cached);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+
+    /**
+     * Drops all cached recommendations for a user.
+     *
+     * @param userId The user ID
+     */
+    public void invalidate(String userId) {
+        generations.incrementAndGet(stripe(userId));
+        if (cache.asMap().remove(userId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Invalidates a user's entries whenever a new recommendation for them is published.
+     * Every instance uses its own consumer group so that each one sees every record,
+     * and only committed records are read so the store already holds the new value.
+     *
+     * @param record The recommendation record; only the key is used
+     */
+    @KafkaListener(
+            topics = KafkaConfig.RECOMMENDATIONS_TOPIC,
+            groupId = "${spring.application.name}-near-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            autoStartup = "${recommender.near-cache.enabled:true}",
+            properties = {
+                    "auto.offset.reset=latest",
+                    "isolation.level=read_committed"
+            })
+    public void onRecommendationPublished(ConsumerRecord<String, String> record) {
+        if (record.key() != null) {
+            invalidate(record.key());
+        }
+    }
+
+    private static int stripe(String userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static String contextKey(String contextId) {
+        return contextId != null ? contextId : DEFAULT_CONTEXT;
+    }
+
+    /**
+     * A serialized recommendation and the time it was cached.
+     */
+    private static final class CachedResponse {
+        private final byte[] payload;
+        private final long cachedAtNanos;
+
+        CachedResponse(byte[] payload, long cachedAtNanos) {
+            this.payload = payload;
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
+}
@@ -2,30 +2,61 @@ package com.recommender.service;
 
 import com.recommender.config.KafkaConfig;
 import com.recommender.dto.RecommendationRequest;
+import com.recommender.ml.ModelRegistry;
 import com.recommender.model.Recommendation;
+import com.recommender.model.RecommendationImpression;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
 import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
 import org.apache.kafka.streams.state.QueryableStoreTypes;
 import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Service for handling recommendations.
  * Retrieves recommendations from the Kafka Streams state store.
+ * The store handle is looked up once per Kafka Streams instance and reused for every request.
+ * When the user's partition is hosted by another instance, the request is forwarded to it;
+ * during rebalances, standby replicas are used instead. Results are kept in a near cache
+ * that is invalidated whenever a new recommendation for the user is published.
+ * Requests that name an experiment get the user's variant, computed from a hash of the user ID,
+ * and the served items are published as an impression for outcome tracking.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class RecommendationService {
     
+    private static final Serializer<String> KEY_SERIALIZER = Serdes.String().serializer();
+    
     private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final RemoteRecommendationClient remoteClient;
+    private final RecommendationNearCache nearCache;
+    private final ModelRegistry modelRegistry;
+    private final KafkaTemplate<String, RecommendationImpression> impressionKafkaTemplate;
+    
+    @Value("${recommender.streams.application-server}")
+    private String applicationServer;
+    
+    // Cached store handles and the Kafka Streams instance they belong to
+    private volatile CachedStores cachedStores;
+    private volatile HostInfo thisHost;
     
     /**
      * Gets recommendations for a user.
@@ -37,26 +68,29 @@ public class RecommendationService {
         log.info("Getting recommendations for user: {}", request.getUserId());
         
         try {
-            // Get the Kafka Streams instance
-            KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
-            if (kafkaStreams == null) {
-                log.error("Kafka Streams is not available");
-                return createEmptyRecommendation(request);
-            }
-            
-            // Get the recommendations store
-            ReadOnlyKeyValueStore<String, Recommendation> recommendationsStore = 
-                    kafkaStreams.store(
-                            StoreQueryParameters.fromNameAndType(
-                                    "recommendations-store", 
-                                    QueryableStoreTypes.keyValueStore()));
-            
-            // Get the recommendations for the user
-            Recommendation recommendation = recommendationsStore.get(request.getUserId());
+            // Serve hot users from the near cache
+            Recommendation recommendation = nearCache.get(request.getUserId(), request.getContextId());
             
             if (recommendation == null) {
-                log.warn("No recommendations found for user: {}", request.getUserId());
-                return createEmptyRecommendation(request);
+                // Taken before the read, so a recommendation replaced meanwhile is not cached
+                long generation = nearCache.generation(request.getUserId());
+                
+                // Get the Kafka Streams instance
+                KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+                if (kafkaStreams == null) {
+                    log.error("Kafka Streams is not available");
+                    return createEmptyRecommendation(request);
+                }
+                
+                // Get the recommendations for the user from whichever instance hosts them
+                recommendation = findRecommendation(kafkaStreams, request.getUserId());
+                
+                if (recommendation == null) {
+                    log.warn("No recommendations found for user: {}", request.getUserId());
+                    return createEmptyRecommendation(request);
+                }
+                
+                nearCache.put(request.getUserId(), request.getContextId(), recommendation, generation);
             }
             
             // Apply the limit if needed
@@ -64,28 +98,204 @@ public class RecommendationService {
                 recommendation.setItems(recommendation.getItems().subList(0, request.getLimit()));
             }
             
+            assignVariant(recommendation, request);
+            if (recommendation.getVariant() != null && !recommendation.getItems().isEmpty()) {
+                publishImpression(recommendation);
+            }
+            
             return recommendation;
+        } catch (InvalidStateStoreException e) {
+            // Expected while the store is migrating or restoring, e.g. during a rebalance
+            log.warn("Recommendations store not queryable for user {}: {}", request.getUserId(), e.getMessage());
+            return createEmptyRecommendation(request);
         } catch (Exception e) {
             log.error("Error getting recommendations for user: {}", request.getUserId(), e);
             return createEmptyRecommendation(request);
         }
     }
     
+    /**
+     * Sets the experiment and the user's variant on a recommendation.
+     * The variant is computed, not looked up, and matches the one the generator scored with.
+     * 
+     * @param recommendation The recommendation to update
+     * @param request The recommendation request
+     */
+    private void assignVariant(Recommendation recommendation, RecommendationRequest request) {
+        recommendation.setExperimentId(request.getExperimentId());
+        recommendation.setVariant(modelRegistry.current().experiments()
+                .variantOf(request.getExperimentId(), request.getUserId()));
+    }
+    
+    /**
+     * Publishes the served items so that later clicks and purchases can be attributed to the variant.
+     * Publishing is asynchronous; a failure only loses the impression.
+     * 
+     * @param recommendation The recommendation as served
+     */
+    private void publishImpression(Recommendation recommendation) {
+        List<String> itemIds = new ArrayList<>(recommendation.getItems().size());
+        for (Recommendation.RecommendedItem item : recommendation.getItems()) {
+            itemIds.add(item.getItemId());
+        }
+        RecommendationImpression impression = RecommendationImpression.builder()
+                .userId(recommendation.getUserId())
+                .experimentId(recommendation.getExperimentId())
+                .variant(recommendation.getVariant())
+                .recommendationId(recommendation.getId())
+                .itemIds(itemIds)
+                .timestamp(Instant.now())
+                .build();
+        impressionKafkaTemplate.send(KafkaConfig.RECOMMENDATION_IMPRESSIONS_TOPIC, impression.getUserId(), impression)
+                .addCallback(result -> { }, e -> log.warn("Could not publish impression for user {}: {}",
+                        impression.getUserId(), e.getMessage()));
+    }
+    
+    /**
+     * Gets a user's recommendation from this instance's local state only.
+     * Used to answer requests forwarded by other instances.
+     * 
+     * @param userId The user ID
+     * @param allowStale Whether standby replicas and restoring stores may answer
+     * @return The recommendation, or null if this instance has none for the user
+     * @throws InvalidStateStoreException If the local store cannot be queried right now
+     */
+    public Recommendation getLocalRecommendation(String userId, boolean allowStale) {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            throw new InvalidStateStoreException("Kafka Streams is not available");
+        }
+        return recommendationsStore(kafkaStreams, allowStale).get(userId);
+    }
+    
+    /**
+     * Finds a user's recommendation by routing to the instance that hosts the user's partition.
+     * 
+     * @param kafkaStreams The current Kafka Streams instance
+     * @param userId The user ID
+     * @return The recommendation, or null if there is none
+     */
+    private Recommendation findRecommendation(KafkaStreams kafkaStreams, String userId) {
+        KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(
+                KafkaConfig.RECOMMENDATIONS_STORE, userId, KEY_SERIALIZER);
+        
+        // Metadata is not available while a rebalance is in progress; serve any local copy
+        if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+            log.debug("No query metadata for user {}, reading local replicas", userId);
+            return recommendationsStore(kafkaStreams, true).get(userId);
+        }
+        
+        // Try the active host first
+        HostInfo activeHost = metadata.activeHost();
+        try {
+            return read(kafkaStreams, activeHost, userId, false);
+        } catch (InvalidStateStoreException | IOException e) {
+            log.warn("Active host {} could not serve user {}: {}", activeHost, userId, e.getMessage());
+        }
+        
+        // Fall back to standby replicas, which may lag slightly behind the active one
+        for (HostInfo standbyHost : metadata.standbyHosts()) {
+            try {
+                return read(kafkaStreams, standbyHost, userId, true);
+            } catch (InvalidStateStoreException | IOException e) {
+                log.warn("Standby host {} could not serve user {}: {}", standbyHost, userId, e.getMessage());
+            }
+        }
+        
+        throw new InvalidStateStoreException("No replica available for user " + userId);
+    }
+    
+    /**
+     * Reads a user's recommendation from a given instance, locally if that instance is this one.
+     * 
+     * @param kafkaStreams The current Kafka Streams instance
+     * @param host The instance to read from
+     * @param userId The user ID
+     * @param allowStale Whether standby replicas may answer
+     * @return The recommendation, or null if the instance has none for the user
+     * @throws IOException If a remote instance cannot be reached
+     */
+    private Recommendation read(KafkaStreams kafkaStreams, HostInfo host, String userId, boolean allowStale)
+            throws IOException {
+        if (host.equals(thisHost())) {
+            return recommendationsStore(kafkaStreams, allowStale).get(userId);
+        }
+        return remoteClient.fetch(host, userId, allowStale);
+    }
+    
+    /**
+     * Gets the recommendations store, looking it up only when the Kafka Streams instance changes.
+     * The returned handle stays valid across rebalances; it resolves the local store
+     * partitions on every read.
+     * 
+     * @param kafkaStreams The current Kafka Streams instance
+     * @param allowStale Whether the handle may read standby replicas and restoring stores
+     * @return The recommendations store
+     */
+    private ReadOnlyKeyValueStore<String, Recommendation> recommendationsStore(
+            KafkaStreams kafkaStreams, boolean allowStale) {
+        CachedStores cached = cachedStores;
+        if (cached == null || cached.kafkaStreams != kafkaStreams) {
+            cached = new CachedStores(kafkaStreams);
+            cachedStores = cached;
+        }
+        
+        if (allowStale) {
+            if (cached.staleStore == null) {
+                cached.staleStore = kafkaStreams.store(
+                        StoreQueryParameters.fromNameAndType(
+                                KafkaConfig.RECOMMENDATIONS_STORE, 
+                                QueryableStoreTypes.<String, Recommendation>keyValueStore())
+                                .enableStaleStores());
+            }
+            return cached.staleStore;
+        }
+        
+        if (cached.activeStore == null) {
+            cached.activeStore = kafkaStreams.store(
+                    StoreQueryParameters.fromNameAndType(
+                            KafkaConfig.RECOMMENDATIONS_STORE, 
+                            QueryableStoreTypes.<String, Recommendation>keyValueStore()));
+        }
+        return cached.activeStore;
+    }
+    
+    private HostInfo thisHost() {
+        HostInfo host = thisHost;
+        if (host == null) {
+            host = HostInfo.buildFromEndpoint(applicationServer);
+            thisHost = host;
+        }
+        return host;
+    }
+    
     /**
      * Creates an empty recommendation when no recommendations are available.
+     * It carries the version of the model currently serving, like a generated recommendation.
      * 
      * @param request The recommendation request
      * @return An empty recommendation
      */
     private Recommendation createEmptyRecommendation(RecommendationRequest request) {
-        return Recommendation.builder()
+        Recommendation recommendation = Recommendation.builder()
                 .id(UUID.randomUUID().toString())
                 .userId(request.getUserId())
                 .timestamp(Instant.now())
                 .contextId(request.getContextId())
                 .items(Collections.emptyList())
-                .modelVersion("1.0.0")
-                .experimentId(request.getExperimentId())
+                .modelVersion(modelRegistry.current().version())
                 .build();
+        assignVariant(recommendation, request);
+        return recommendation;
+    }
+    
+    /**
+     * Store handles together with the Kafka Streams instance they were obtained from.
+     */
+    @RequiredArgsConstructor
+    private static final class CachedStores {
+        private final KafkaStreams kafkaStreams;
+        private volatile ReadOnlyKeyValueStore<String, Recommendation> activeStore;
+        private volatile ReadOnlyKeyValueStore<String, Recommendation> staleStore;
     }
 }
@@ -0,0 +1,82 @@
+package com.recommender.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recommender.model.Recommendation;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.state.HostInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * HTTP client for reading recommendations from the instance that hosts them.
+ * A single client is shared by all requests; it pools keep-alive connections per host,
+ * so forwarding does not pay for a new connection on every call.
+ */
+@Component
+@Slf4j
+public class RemoteRecommendationClient {
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    public RemoteRecommendationClient(
+            ObjectMapper objectMapper,
+            @Value("${recommender.routing.connect-timeout-ms:500}") long connectTimeoutMs,
+            @Value("${recommender.routing.request-timeout-ms:1000}") long requestTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Fetches a user's recommendation from another instance.
+     *
+     * @param host The instance that hosts the user's partition
+     * @param userId The user ID
+     * @param allowStale Whether the instance may answer from a standby replica
+     * @return The recommendation, or null if the instance has none for this user
+     * @throws IOException If the instance cannot be reached or returns an error
+     */
+    public Recommendation fetch(HostInfo host, String userId, boolean allowStale) throws IOException {
+        URI uri = URI.create("http://" + host.host() + ":" + host.port()
+                + "/internal/recommendations/" + URLEncoder.encode(userId, StandardCharsets.UTF_8)
+                + "?allowStale=" + allowStale);
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to " + host, e);
+        }
+
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Instance " + host + " returned status " + response.statusCode());
+        }
+
+        log.debug("Forwarded recommendation request for user {} to {}", userId, host);
+        return objectMapper.readValue(response.body(), Recommendation.class);
+    }
+}
@@ -0,0 +1,199 @@
+package com.recommender.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.recommender.dto.EventBatchResponse;
+import com.recommender.dto.UserEventRequest;
+import com.recommender.model.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Service for ingesting batches of user events.
+ * Records are parsed one at a time from the request body, validated, and handed to the
+ * producer without waiting for each send; the batch waits once for all sends at the end.
+ * Sends still unacknowledged when the wait ends are reported as pending, not rejected, because
+ * the producer keeps retrying them and they may yet be written.
+ */
+@Service
+@Slf4j
+public class UserEventBatchService {
+
+    private final UserEventService userEventService;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+    private final int maxRecords;
+    private final int maxListedRejections;
+    private final long sendTimeoutMs;
+
+    public UserEventBatchService(UserEventService userEventService,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${recommender.events.batch.max-records:50000}") int maxRecords,
+                                 @Value("${recommender.events.batch.max-listed-rejections:100}") int maxListedRejections,
+                                 @Value("${recommender.events.batch.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.userEventService = userEventService;
+        this.requestReader = objectMapper.readerFor(UserEventRequest.class);
+        this.validator = validator;
+        this.maxRecords = maxRecords;
+        this.maxListedRejections = maxListedRejections;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    /**
+     * Publishes the events in a request body.
+     * The body is either newline-delimited JSON objects or a single JSON array of objects.
+     *
+     * @param body The request body
+     * @return The summary of accepted and rejected records
+     * @throws IOException If the body cannot be read
+     */
+    public EventBatchResponse publishBatch(InputStream body) throws IOException {
+        EventBatchResponse response = new EventBatchResponse();
+        List<PendingSend> pending = new ArrayList<>();
+
+        // A root-level JSON array is unwrapped, otherwise whitespace-separated values are read in turn
+        try (MappingIterator<UserEventRequest> records = requestReader.readValues(body)) {
+            int index = 0;
+            while (hasNext(records, index, response)) {
+                if (index >= maxRecords) {
+                    log.warn("Event batch exceeds {} records, ignoring the rest", maxRecords);
+                    response.setTruncated(true);
+                    break;
+                }
+
+                UserEventRequest request;
+                try {
+                    request = records.nextValue();
+                } catch (JsonProcessingException e) {
+                    // Mapping errors (e.g. an unknown event type) only affect this record
+                    reject(response, index++, "Invalid record: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String violations = validate(request);
+                if (violations != null) {
+                    reject(response, index++, violations);
+                    continue;
+                }
+
+                UserEvent userEvent = request.toUserEvent();
+                try {
+                    pending.add(new PendingSend(index, userEventService.sendUserEvent(userEvent).completable()));
+                } catch (RuntimeException e) {
+                    // Sends can fail before returning a future, e.g. on serialization or when the
+                    // producer's buffer stays full for max.block.ms; only this record is lost
+                    log.warn("Failed to publish record {} of event batch: {}", index, e.getMessage());
+                    reject(response, index, "Publish failed: " + e.getMessage());
+                }
+                index++;
+            }
+            response.setReceived(index);
+        }
+
+        awaitSends(pending, response);
+        response.setAccepted(response.getReceived() - response.getRejected() - response.getPending());
+
+        log.info("Processed event batch: {} received, {} accepted, {} rejected, {} pending",
+                response.getReceived(), response.getAccepted(), response.getRejected(), response.getPending());
+        return response;
+    }
+
+    /**
+     * Advances to the next record. A syntax error leaves the parser unable to find the next
+     * record, so the batch stops there.
+     */
+    private boolean hasNext(MappingIterator<UserEventRequest> records, int index, EventBatchResponse response) {
+        try {
+            return records.hasNextValue();
+        } catch (IOException e) {
+            log.warn("Stopped reading event batch at record {}: {}", index, e.getMessage());
+            response.setTruncated(true);
+            return false;
+        }
+    }
+
+    private String validate(UserEventRequest request) {
+        if (request == null) {
+            return "Record is null";
+        }
+        Set<ConstraintViolation<UserEventRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Waits for all sends of the batch, rejects the records whose send failed and reports the
+     * records whose send is still in flight as pending.
+     */
+    private void awaitSends(List<PendingSend> pending, EventBatchResponse response) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<?>[] futures = pending.stream()
+                .map(send -> send.future)
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Individual failures are collected below
+        }
+
+        for (PendingSend send : pending) {
+            CompletableFuture<SendResult<String, UserEvent>> future = send.future;
+            if (!future.isDone()) {
+                response.setPending(response.getPending() + 1);
+                if (response.getPendingRecords().size() < maxListedRejections) {
+                    response.getPendingRecords().add(send.index);
+                }
+            } else if (future.isCompletedExceptionally()) {
+                reject(response, send.index, "Publish failed");
+            }
+        }
+    }
+
+    private void reject(EventBatchResponse response, int index, String reason) {
+        response.setRejected(response.getRejected() + 1);
+        if (response.getRejections().size() < maxListedRejections) {
+            response.getRejections().add(new EventBatchResponse.RejectedEvent(index, reason));
+        }
+    }
+
+    /**
+     * A send in flight and the position of its record in the batch.
+     */
+    private static final class PendingSend {
+        private final int index;
+        private final CompletableFuture<SendResult<String, UserEvent>> future;
+
+        PendingSend(int index, CompletableFuture<SendResult<String, UserEvent>> future) {
+            this.index = index;
+            this.future = future;
+        }
+    }
+}
@@ -5,7 +5,9 @@ import com.recommender.model.UserEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Service for handling user events.
@@ -27,10 +29,22 @@ public class UserEventService {
     public UserEvent publishUserEvent(UserEvent userEvent) {
         log.info("Publishing user event: {}", userEvent);
         
-        // Use the user ID as the key for the message
-        // This ensures that events for the same user go to the same partition
-        kafkaTemplate.send(KafkaConfig.USER_EVENTS_TOPIC, userEvent.getUserId(), userEvent);
+        sendUserEvent(userEvent);
         
         return userEvent;
     }
+    
+    /**
+     * Hands a user event to the producer without waiting for the broker.
+     * 
+     * @param userEvent The user event to publish
+     * @return The future completed once the broker has acknowledged the event
+     */
+    public ListenableFuture<SendResult<String, UserEvent>> sendUserEvent(UserEvent userEvent) {
+        log.debug("Sending user event: {}", userEvent);
+        
+        // Use the user ID as the key for the message
+        // This ensures that events for the same user go to the same partition
+        return kafkaTemplate.send(KafkaConfig.USER_EVENTS_TOPIC, userEvent.getUserId(), userEvent);
+    }
 }
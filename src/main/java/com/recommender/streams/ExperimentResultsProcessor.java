@@ -0,0 +1,238 @@
+package com.recommender.streams;
+
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.ExperimentResult;
+import com.recommender.model.RecommendationImpression;
+import com.recommender.model.UserEvent;
+import com.recommender.utils.JsonSerde;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Measures experiment outcomes per variant.
+ * Each served item is remembered per user for an attribution window. A click or purchase of that
+ * item is credited once, to the variant of the latest impression that included it, so serving the
+ * same list again does not multiply outcomes. Impressions, clicks and purchases are counted per
+ * experiment variant in tumbling windows. Each window's final counts, with click-through and
+ * conversion rates, are published to the A/B test results topic once the window closes.
+ * Besides the attribution store, the state is one counter per variant and window, however many
+ * experiments run.
+ */
+@Component
+@Slf4j
+public class ExperimentResultsProcessor {
+
+    private static final String KEY_SEPARATOR = "\u0000";
+
+    @Value("${recommender.experiments.attribution-window-ms:1800000}")
+    private long attributionWindowMs;
+
+    @Value("${recommender.experiments.results-window-ms:3600000}")
+    private long resultsWindowMs;
+
+    @Value("${recommender.experiments.grace-ms:300000}")
+    private long graceMs;
+
+    /**
+     * Configures the Kafka Streams topology for experiment results.
+     *
+     * @param streamsBuilder The streams builder to configure
+     * @param userEvents The shared stream of user events
+     */
+    @Autowired
+    public void buildPipeline(StreamsBuilder streamsBuilder, KStream<String, UserEvent> userEvents) {
+        log.info("Configuring Kafka Streams for experiment results");
+
+        Serde<RecommendationImpression> impressionSerde = new JsonSerde<>(RecommendationImpression.class);
+        Serde<ExperimentResult> resultSerde = new JsonSerde<>(ExperimentResult.class);
+
+        // The latest impression of each user and item within the attribution window
+        Duration retention = Duration.ofMillis(attributionWindowMs + graceMs);
+        streamsBuilder.addStateStore(Stores.windowStoreBuilder(
+                Stores.persistentWindowStore(KafkaConfig.EXPERIMENT_ATTRIBUTIONS_STORE,
+                        retention, Duration.ofMillis(1), false),
+                Serdes.String(),
+                new JsonSerde<>(Attribution.class)));
+
+        // Impressions are keyed by user like user events, so they share the store without a repartition
+        KStream<String, RecommendationImpression> impressions = streamsBuilder
+                .stream(KafkaConfig.RECOMMENDATION_IMPRESSIONS_TOPIC,
+                        Consumed.with(Serdes.String(), impressionSerde))
+                .filter((userId, impression) -> impression != null && impression.getExperimentId() != null
+                        && impression.getVariant() != null)
+                .processValues(ImpressionRecorder::new, KafkaConfig.EXPERIMENT_ATTRIBUTIONS_STORE);
+
+        KStream<String, UserEvent> outcomes = userEvents
+                .filter((userId, event) -> event != null && event.getItemId() != null
+                        && (event.getEventType() == UserEvent.EventType.CLICK
+                        || event.getEventType() == UserEvent.EventType.PURCHASE));
+
+        // Count each impression once
+        KStream<String, ExperimentResult> impressionCounts = impressions
+                .map((userId, impression) -> KeyValue.pair(
+                        variantKey(impression),
+                        ExperimentResult.builder().impressions(1).build()));
+
+        // Attribute clicks and purchases of recommended items to the latest impression, once each
+        KStream<String, ExperimentResult> outcomeCounts = outcomes
+                .processValues(OutcomeAttributor::new, KafkaConfig.EXPERIMENT_ATTRIBUTIONS_STORE)
+                .selectKey((userId, outcome) -> variantKey(outcome));
+
+        // Final per-variant counts for each window
+        impressionCounts
+                .merge(outcomeCounts)
+                .groupByKey(Grouped.with("experiment-variants", Serdes.String(), resultSerde))
+                .windowedBy(TimeWindows.ofSizeAndGrace(Duration.ofMillis(resultsWindowMs), Duration.ofMillis(graceMs)))
+                .reduce(ExperimentResult::add,
+                        Materialized.with(Serdes.String(), resultSerde))
+                .suppress(Suppressed.untilWindowCloses(Suppressed.BufferConfig.unbounded()))
+                .toStream()
+                .map((window, counts) -> KeyValue.pair(experimentId(window.key()), result(window, counts)))
+                .peek((experimentId, result) -> log.debug("Experiment {} variant {}: CTR {}, conversion {}",
+                        experimentId, result.getVariant(), result.getClickThroughRate(), result.getConversionRate()))
+                .to(KafkaConfig.AB_TEST_RESULTS_TOPIC, Produced.with(Serdes.String(), resultSerde));
+    }
+
+    /**
+     * The variant that last served an item to a user, and which of its outcomes were credited.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Attribution {
+        private String experimentId;
+        private String variant;
+        private boolean clicked;
+        private boolean purchased;
+    }
+
+    /**
+     * Remembers each item of an impression as the latest impression of that item for the user.
+     */
+    private static class ImpressionRecorder
+            implements FixedKeyProcessor<String, RecommendationImpression, RecommendationImpression> {
+
+        private FixedKeyProcessorContext<String, RecommendationImpression> context;
+        private WindowStore<String, Attribution> store;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, RecommendationImpression> context) {
+            this.context = context;
+            this.store = context.getStateStore(KafkaConfig.EXPERIMENT_ATTRIBUTIONS_STORE);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, RecommendationImpression> record) {
+            RecommendationImpression impression = record.value();
+            if (impression.getItemIds() != null) {
+                for (String itemId : impression.getItemIds()) {
+                    store.put(attributionKey(record.key(), itemId),
+                            new Attribution(impression.getExperimentId(), impression.getVariant(), false, false),
+                            record.timestamp());
+                }
+            }
+            context.forward(record);
+        }
+    }
+
+    /**
+     * Credits a click or purchase to the latest impression of its item within the attribution window,
+     * unless an outcome of the same kind was already credited to that impression.
+     */
+    private class OutcomeAttributor implements FixedKeyProcessor<String, UserEvent, ExperimentResult> {
+
+        private FixedKeyProcessorContext<String, ExperimentResult> context;
+        private WindowStore<String, Attribution> store;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, ExperimentResult> context) {
+            this.context = context;
+            this.store = context.getStateStore(KafkaConfig.EXPERIMENT_ATTRIBUTIONS_STORE);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, UserEvent> record) {
+            String key = attributionKey(record.key(), record.value().getItemId());
+            long impressionTimestamp;
+            Attribution attribution;
+            try (WindowStoreIterator<Attribution> latest = store.backwardFetch(
+                    key, record.timestamp() - attributionWindowMs, record.timestamp())) {
+                if (!latest.hasNext()) {
+                    return;
+                }
+                KeyValue<Long, Attribution> entry = latest.next();
+                impressionTimestamp = entry.key;
+                attribution = entry.value;
+            }
+
+            boolean purchase = record.value().getEventType() == UserEvent.EventType.PURCHASE;
+            if (purchase ? attribution.isPurchased() : attribution.isClicked()) {
+                return;
+            }
+            if (purchase) {
+                attribution.setPurchased(true);
+            } else {
+                attribution.setClicked(true);
+            }
+            store.put(key, attribution, impressionTimestamp);
+
+            context.forward(record.withValue(ExperimentResult.builder()
+                    .experimentId(attribution.getExperimentId())
+                    .variant(attribution.getVariant())
+                    .clicks(purchase ? 0 : 1)
+                    .purchases(purchase ? 1 : 0)
+                    .build()));
+        }
+    }
+
+    private static String attributionKey(String userId, String itemId) {
+        return userId + KEY_SEPARATOR + itemId;
+    }
+
+    private static ExperimentResult result(Windowed<String> window, ExperimentResult counts) {
+        String key = window.key();
+        int separator = key.indexOf(KEY_SEPARATOR);
+        long impressions = counts.getImpressions();
+        return ExperimentResult.builder()
+                .experimentId(key.substring(0, separator))
+                .variant(key.substring(separator + 1))
+                .windowStart(window.window().start())
+                .windowEnd(window.window().end())
+                .impressions(impressions)
+                .clicks(counts.getClicks())
+                .purchases(counts.getPurchases())
+                .clickThroughRate(impressions > 0 ? (double) counts.getClicks() / impressions : 0.0)
+                .conversionRate(impressions > 0 ? (double) counts.getPurchases() / impressions : 0.0)
+                .build();
+    }
+
+    private static String variantKey(RecommendationImpression impression) {
+        return impression.getExperimentId() + KEY_SEPARATOR + impression.getVariant();
+    }
+
+    private static String variantKey(ExperimentResult result) {
+        return result.getExperimentId() + KEY_SEPARATOR + result.getVariant();
+    }
+
+    private static String experimentId(String variantKey) {
+        return variantKey.substring(0, variantKey.indexOf(KEY_SEPARATOR));
+    }
+}
@@ -1,116 +1,148 @@
 package com.recommender.streams;
 
+import com.recommender.catalog.ItemCatalog;
+import com.recommender.catalog.ScoringKernel;
 import com.recommender.config.KafkaConfig;
+import com.recommender.ml.EventWeighting;
+import com.recommender.ml.FeatureDictionary;
+import com.recommender.model.FeatureVector;
 import com.recommender.model.Item;
+import com.recommender.model.SparseVector;
 import com.recommender.model.UserEvent;
 import com.recommender.utils.JsonSerde;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Extracts features from user events and item data for use in recommendation algorithms.
- * Uses Kafka Streams for real-time processing.
+ * Each event becomes a sparse vector over feature dictionary IDs, published to the features
+ * topic keyed by user ID for training jobs. The topic is read outside this application, so it
+ * stays JSON.
  */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class FeatureExtractionProcessor {
 
+    private final ItemCatalog itemCatalog;
+    private final FeatureDictionary featureDictionary;
+    private final EventWeighting eventWeighting;
+
+    private int eventScoreId;
+    private int itemPopularityId;
+    private int recencyId;
+    private FeatureDictionary.Namespace itemFeatures;
+    private FeatureDictionary.Namespace categories;
+
     /**
      * Configures the Kafka Streams topology for feature extraction.
-     * 
+     *
      * @param streamsBuilder The streams builder to configure
-     * @return The configured streams builder
+     * @param userEvents The shared stream of user events
      */
     @Autowired
-    public void buildPipeline(StreamsBuilder streamsBuilder) {
+    public void buildPipeline(StreamsBuilder streamsBuilder, KStream<String, UserEvent> userEvents) {
         log.info("Configuring Kafka Streams for feature extraction");
-        
-        // Create serdes for our model classes
-        JsonSerde<UserEvent> userEventSerde = new JsonSerde<>(UserEvent.class);
-        JsonSerde<Item> itemSerde = new JsonSerde<>(Item.class);
-        
-        // Load items as a KTable for lookups
-        KTable<String, Item> items = streamsBuilder
-                .table(KafkaConfig.ITEMS_TOPIC, 
-                       Consumed.with(Serdes.String(), itemSerde));
-        
-        // Stream of user events
-        KStream<String, UserEvent> userEvents = streamsBuilder
-                .stream(KafkaConfig.USER_EVENTS_TOPIC, 
-                        Consumed.with(Serdes.String(), userEventSerde));
-        
-        // Join user events with item data to extract features
-        KStream<String, Map<String, Double>> extractedFeatures = userEvents
-                .filter((key, event) -> event != null && event.getItemId() != null)
-                .selectKey((key, event) -> event.getItemId())
-                .join(
-                    items,
-                    (event, item) -> {
-                        // Extract features from the user event and item
-                        Map<String, Double> features = new HashMap<>();
-                        
-                        // Add event-based features
-                        features.put("event_score", calculateEventScore(event));
-                        
-                        // Add item-based features if available
-                        if (item != null && item.getFeatures() != null) {
-                            // Copy item features with a prefix
-                            item.getFeatures().forEach((featureKey, featureValue) -> 
-                                features.put("item_" + featureKey, featureValue));
-                            
-                            // Add category information as features
-                            if (item.getCategories() != null) {
-                                item.getCategories().forEach(category -> 
-                                    features.put("category_" + category, 1.0));
-                            }
-                            
-                            // Add popularity as a feature
-                            features.put("item_popularity", item.getPopularity());
-                        }
-                        
-                        // Add temporal features
-                        features.put("recency", (double) (System.currentTimeMillis() - 
-                                                         event.getTimestamp().toEpochMilli()));
-                        
-                        return features;
-                    },
-                    Joined.with(Serdes.String(), userEventSerde, itemSerde)
-                )
-                .selectKey((itemId, features) -> "feature_" + itemId);
-        
-        // Log extracted features for debugging
-        extractedFeatures.peek((key, features) -> 
-                log.debug("Extracted features for {}: {}", key, features));
-        
-        // Here we could output the extracted features to a topic for use in ML models
-        // This is just a placeholder - in a real system you would likely use these
-        // features to train or update ML models
+
+        eventScoreId = featureDictionary.id("event_score");
+        itemPopularityId = featureDictionary.id("item_popularity");
+        recencyId = featureDictionary.id("recency");
+        itemFeatures = featureDictionary.namespace("item_");
+        categories = featureDictionary.namespace("category_");
+
+        // Enrich user events with item data from the shared catalog to extract features.
+        // The catalog holds every item locally, so no repartition by item ID is needed.
+        userEvents
+                .filter((userId, event) -> event != null && event.getItemId() != null
+                        && event.getTimestamp() != null)
+                .processValues(FeatureExtractor::new)
+                .peek((userId, features) -> log.debug("Extracted {} features for user {} and item {}",
+                        features.getFeatures().size(), userId, features.getItemId()))
+                .to(KafkaConfig.FEATURES_TOPIC,
+                        Produced.with(Serdes.String(), new JsonSerde<>(FeatureVector.class)));
     }
-    
+
     /**
-     * Calculates a score for a user event based on its type.
-     * 
+     * Builds the feature vector of an event.
+     * The number of features is known up front, so the arrays are allocated once at their
+     * final size.
+     *
      * @param event The user event
-     * @return A score value
+     * @param item The event's item
+     * @param now The stream time, for recency, a 30-day linear decay of the event's age
+     * @return The feature vector
      */
-    private double calculateEventScore(UserEvent event) {
-        Map<UserEvent.EventType, Double> eventScores = new HashMap<>();
-        eventScores.put(UserEvent.EventType.VIEW, 1.0);
-        eventScores.put(UserEvent.EventType.CLICK, 2.0);
-        eventScores.put(UserEvent.EventType.ADD_TO_CART, 3.0);
-        eventScores.put(UserEvent.EventType.PURCHASE, 5.0);
-        eventScores.put(UserEvent.EventType.RATE, 4.0);
-        eventScores.put(UserEvent.EventType.SEARCH, 0.5);
-        eventScores.put(UserEvent.EventType.LIKE, 2.5);
-        eventScores.put(UserEvent.EventType.DISLIKE, -1.0);
-        
-        return eventScores.getOrDefault(event.getEventType(), 0.0);
+    private FeatureVector extract(UserEvent event, Item item, long now) {
+        Map<String, Double> features = item.getFeatures();
+        int size = 3
+                + (features != null ? features.size() : 0)
+                + (item.getCategories() != null ? item.getCategories().size() : 0);
+        int[] indices = new int[size];
+        float[] values = new float[size];
+
+        // Event, popularity and temporal features
+        int n = 0;
+        indices[n] = eventScoreId;
+        values[n++] = (float) eventWeighting.weight(event, now);
+        indices[n] = itemPopularityId;
+        values[n++] = (float) item.getPopularity();
+        indices[n] = recencyId;
+        // Scaled like the scoring kernel's recency, so it sits in [0, 1] with the other features
+        values[n++] = (float) ScoringKernel.recency(now - event.getTimestamp().toEpochMilli());
+
+        // Item features and categories
+        if (features != null) {
+            for (Map.Entry<String, Double> feature : features.entrySet()) {
+                indices[n] = itemFeatures.id(feature.getKey());
+                values[n++] = feature.getValue() != null ? feature.getValue().floatValue() : 0.0f;
+            }
+        }
+        if (item.getCategories() != null) {
+            for (String category : item.getCategories()) {
+                indices[n] = categories.id(category);
+                values[n++] = 1.0f;
+            }
+        }
+
+        return FeatureVector.builder()
+                .userId(event.getUserId())
+                .itemId(event.getItemId())
+                .eventType(event.getEventType())
+                .timestamp(event.getTimestamp().toEpochMilli())
+                .features(new SparseVector(indices, values))
+                .build();
+    }
+
+    /**
+     * Extracts the features of events whose item is in the catalog, as of stream time.
+     */
+    private class FeatureExtractor implements FixedKeyProcessor<String, UserEvent, FeatureVector> {
+
+        private FixedKeyProcessorContext<String, FeatureVector> context;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, FeatureVector> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, UserEvent> record) {
+            UserEvent event = record.value();
+            Item item = itemCatalog.get(event.getItemId());
+            if (item != null) {
+                context.forward(record.withValue(
+                        extract(event, item, StreamTime.now(context, record.timestamp()))));
+            }
+        }
     }
 }
@@ -0,0 +1,108 @@
+package com.recommender.streams;
+
+import com.recommender.catalog.ItemCatalog;
+import com.recommender.catalog.ItemVectorIndex;
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.Item;
+import com.recommender.utils.SerdeFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-memory {@link ItemCatalog} and {@link ItemVectorIndex} in sync with the items topic.
+ * Items are loaded into a global store so that every instance sees the full catalog,
+ * regardless of which user partitions it owns.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemCatalogProcessor {
+
+    private final ItemCatalog itemCatalog;
+    private final ItemVectorIndex itemVectorIndex;
+    private final SerdeFactory serdeFactory;
+
+    /**
+     * Configures the global store that feeds the item catalog.
+     *
+     * @param streamsBuilder The streams builder to configure
+     */
+    @Autowired
+    public void buildPipeline(StreamsBuilder streamsBuilder) {
+        log.info("Configuring Kafka Streams for the item catalog");
+
+        // Global stores are restored by copying the topic's bytes, so the store must use the topic's format
+        Serde<Item> itemSerde = serdeFactory.items(KafkaConfig.ITEMS_TOPIC);
+
+        // Global stores are restored straight from the source topic, so changelogging is disabled
+        streamsBuilder.addGlobalStore(
+                Stores.keyValueStoreBuilder(
+                        Stores.persistentKeyValueStore(KafkaConfig.ITEMS_STORE),
+                        Serdes.String(),
+                        itemSerde)
+                        .withLoggingDisabled(),
+                KafkaConfig.ITEMS_TOPIC,
+                Consumed.with(Serdes.String(), itemSerde),
+                CatalogUpdater::new);
+    }
+
+    /**
+     * Applies item changes to the global store, the in-memory catalog and the vector index.
+     */
+    private class CatalogUpdater implements Processor<String, Item, Void, Void> {
+
+        private KeyValueStore<String, Item> store;
+
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            store = context.getStateStore(KafkaConfig.ITEMS_STORE);
+
+            // Restoration writes directly to the store and bypasses process(),
+            // so rebuild the catalog from whatever was restored
+            try (KeyValueIterator<String, Item> iterator = store.all()) {
+                while (iterator.hasNext()) {
+                    KeyValue<String, Item> entry = iterator.next();
+                    if (entry.value != null) {
+                        itemCatalog.upsert(entry.key, entry.value);
+                        itemVectorIndex.upsert(entry.key, entry.value);
+                    }
+                }
+            }
+            // The vector index may have been loaded from a snapshot that has items deleted since
+            itemVectorIndex.retainIf(itemId -> itemCatalog.ordinalOf(itemId) >= 0);
+
+            log.info("Item catalog initialized with {} items, {} with feature vectors",
+                    itemCatalog.size(), itemVectorIndex.size());
+        }
+
+        @Override
+        public void process(Record<String, Item> record) {
+            if (record.key() == null) {
+                return;
+            }
+
+            store.put(record.key(), record.value());
+
+            if (record.value() == null) {
+                itemCatalog.remove(record.key());
+                itemVectorIndex.remove(record.key());
+            } else {
+                itemCatalog.upsert(record.key(), record.value());
+                itemVectorIndex.upsert(record.key(), record.value());
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.recommender.streams;
+
+import com.recommender.catalog.ItemNeighborIndex;
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.ItemNeighbors;
+import com.recommender.model.UserEvent;
+import com.recommender.utils.JsonSerde;
+import com.recommender.utils.SerdeFactory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds item-to-item co-occurrence neighbors from user sessions using Kafka Streams.
+ * Each event is paired with the user's previous items in the same session; the pairs are
+ * repartitioned by item and counted in a bounded heavy-hitter sketch per item. Whenever an
+ * item's strongest neighbors change they are published to the item neighbors topic, which
+ * every instance loads into the {@link ItemNeighborIndex}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemCoOccurrenceProcessor {
+
+    private final ItemNeighborIndex itemNeighborIndex;
+    private final SerdeFactory serdeFactory;
+
+    @Value("${recommender.neighbors.session-items:10}")
+    private int sessionItems;
+
+    @Value("${recommender.neighbors.sketch-capacity:100}")
+    private int sketchCapacity;
+
+    @Value("${recommender.neighbors.top-k:20}")
+    private int topK;
+
+    /**
+     * Configures the Kafka Streams topology for item co-occurrence.
+     *
+     * @param streamsBuilder The streams builder to configure
+     * @param userEventStream The shared stream of user events
+     */
+    @Autowired
+    public void buildPipeline(StreamsBuilder streamsBuilder, KStream<String, UserEvent> userEventStream) {
+        log.info("Configuring Kafka Streams for item co-occurrence");
+
+        Serde<ItemNeighbors> sketchSerde = serdeFactory.itemNeighbors(KafkaConfig.ITEM_NEIGHBOR_SKETCHES_STORE);
+        Serde<ItemNeighbors> neighborsSerde = serdeFactory.itemNeighbors(KafkaConfig.ITEM_NEIGHBORS_TOPIC);
+
+        // The items of each user's current session
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KafkaConfig.SESSION_ITEMS_STORE),
+                Serdes.String(),
+                new JsonSerde<>(SessionItems.class)));
+
+        // One bounded sketch of co-occurring items per item
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KafkaConfig.ITEM_NEIGHBOR_SKETCHES_STORE),
+                Serdes.String(),
+                sketchSerde));
+
+        userEventStream
+                .filter((userId, event) -> isCoOccurrenceSignal(event))
+                .process(SessionPairer::new, KafkaConfig.SESSION_ITEMS_STORE)
+                .repartition(Repartitioned.with(Serdes.String(), Serdes.String()).withName("item-pairs"))
+                .process(NeighborCounter::new, KafkaConfig.ITEM_NEIGHBOR_SKETCHES_STORE)
+                .peek((itemId, neighbors) -> log.debug("Item {} has {} neighbors", itemId, neighbors.getNeighbors().size()))
+                .to(KafkaConfig.ITEM_NEIGHBORS_TOPIC, Produced.with(Serdes.String(), neighborsSerde));
+
+        // Every instance needs every item's neighbors, whichever users it serves
+        streamsBuilder.addGlobalStore(
+                Stores.keyValueStoreBuilder(
+                        Stores.persistentKeyValueStore(KafkaConfig.ITEM_NEIGHBORS_STORE),
+                        Serdes.String(),
+                        neighborsSerde)
+                        .withLoggingDisabled(),
+                KafkaConfig.ITEM_NEIGHBORS_TOPIC,
+                Consumed.with(Serdes.String(), neighborsSerde),
+                NeighborIndexUpdater::new);
+    }
+
+    /**
+     * Only positive interactions within a known session say that two items belong together.
+     */
+    private static boolean isCoOccurrenceSignal(UserEvent event) {
+        if (event == null || event.getItemId() == null || event.getSessionId() == null) {
+            return false;
+        }
+        switch (event.getEventType()) {
+            case VIEW:
+            case CLICK:
+            case ADD_TO_CART:
+            case PURCHASE:
+            case LIKE:
+                return true;
+            case RATE:
+                return event.getScore() != null && event.getScore() >= 3.0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The most recent items of a user's current session.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SessionItems {
+        private String sessionId;
+        private List<String> itemIds = new ArrayList<>();  // Oldest first
+    }
+
+    /**
+     * Pairs each event's item with the earlier items of the same session, in both directions.
+     */
+    private class SessionPairer implements Processor<String, UserEvent, String, String> {
+
+        private ProcessorContext<String, String> context;
+        private KeyValueStore<String, SessionItems> store;
+
+        @Override
+        public void init(ProcessorContext<String, String> context) {
+            this.context = context;
+            this.store = context.getStateStore(KafkaConfig.SESSION_ITEMS_STORE);
+        }
+
+        @Override
+        public void process(Record<String, UserEvent> record) {
+            UserEvent event = record.value();
+            String itemId = event.getItemId();
+
+            SessionItems session = store.get(record.key());
+            if (session == null || !event.getSessionId().equals(session.getSessionId())) {
+                session = new SessionItems(event.getSessionId(), new ArrayList<>());
+            }
+
+            List<String> itemIds = session.getItemIds();
+            if (itemIds.contains(itemId)) {
+                // Already paired with everything else in the session
+                return;
+            }
+
+            for (String other : itemIds) {
+                context.forward(new Record<>(itemId, other, record.timestamp()));
+                context.forward(new Record<>(other, itemId, record.timestamp()));
+            }
+
+            itemIds.add(itemId);
+            if (itemIds.size() > sessionItems) {
+                itemIds.remove(0);
+            }
+            store.put(record.key(), session);
+        }
+    }
+
+    /**
+     * Counts the co-occurring items of each item and publishes its strongest neighbors when they change.
+     */
+    private class NeighborCounter implements Processor<String, String, String, ItemNeighbors> {
+
+        private ProcessorContext<String, ItemNeighbors> context;
+        private KeyValueStore<String, ItemNeighbors> store;
+
+        @Override
+        public void init(ProcessorContext<String, ItemNeighbors> context) {
+            this.context = context;
+            this.store = context.getStateStore(KafkaConfig.ITEM_NEIGHBOR_SKETCHES_STORE);
+        }
+
+        @Override
+        public void process(Record<String, String> record) {
+            String itemId = record.key();
+            ItemNeighbors sketch = store.get(itemId);
+            if (sketch == null) {
+                sketch = ItemNeighbors.builder().itemId(itemId).build();
+            }
+
+            List<ItemNeighbors.Neighbor> before = NeighborSketch.top(sketch.getNeighbors(), topK);
+            NeighborSketch.offer(sketch.getNeighbors(), record.value(), sketchCapacity);
+            List<ItemNeighbors.Neighbor> after = NeighborSketch.top(sketch.getNeighbors(), topK);
+
+            sketch.setUpdateTimestamp(record.timestamp());
+            store.put(itemId, sketch);
+
+            if (!NeighborSketch.sameItems(before, after)) {
+                context.forward(record.withValue(ItemNeighbors.builder()
+                        .itemId(itemId)
+                        .neighbors(after)
+                        .updateTimestamp(record.timestamp())
+                        .build()));
+            }
+        }
+    }
+
+    /**
+     * Applies neighbor changes to the global store and the in-memory index.
+     */
+    private class NeighborIndexUpdater implements Processor<String, ItemNeighbors, Void, Void> {
+
+        private KeyValueStore<String, ItemNeighbors> store;
+
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            store = context.getStateStore(KafkaConfig.ITEM_NEIGHBORS_STORE);
+
+            // Restoration bypasses process(), so rebuild the index from the restored store
+            try (KeyValueIterator<String, ItemNeighbors> iterator = store.all()) {
+                while (iterator.hasNext()) {
+                    KeyValue<String, ItemNeighbors> entry = iterator.next();
+                    if (entry.value != null) {
+                        itemNeighborIndex.update(entry.key, entry.value);
+                    }
+                }
+            }
+
+            log.info("Item neighbor index initialized with {} items", itemNeighborIndex.size());
+        }
+
+        @Override
+        public void process(Record<String, ItemNeighbors> record) {
+            if (record.key() == null) {
+                return;
+            }
+
+            store.put(record.key(), record.value());
+
+            if (record.value() == null) {
+                itemNeighborIndex.remove(record.key());
+            } else {
+                itemNeighborIndex.update(record.key(), record.value());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.recommender.streams;
+
+import com.recommender.model.ItemNeighbors;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Space-Saving heavy-hitter sketch over an item's co-occurring items.
+ * At most {@code capacity} counters are kept; an untracked item takes over the smallest
+ * counter and inherits its count as error. Every item seen more than
+ * {@code total / capacity} times is guaranteed to be tracked.
+ */
+final class NeighborSketch {
+
+    private static final Comparator<ItemNeighbors.Neighbor> STRONGEST_FIRST =
+            Comparator.comparingLong(ItemNeighbors.Neighbor::getCount).reversed()
+                    .thenComparing(ItemNeighbors.Neighbor::getItemId);
+
+    private NeighborSketch() {
+    }
+
+    /**
+     * Counts one co-occurrence.
+     *
+     * @param counters The sketch counters, updated in place
+     * @param itemId The co-occurring item
+     * @param capacity The maximum number of counters
+     */
+    static void offer(List<ItemNeighbors.Neighbor> counters, String itemId, int capacity) {
+        ItemNeighbors.Neighbor smallest = null;
+        for (ItemNeighbors.Neighbor counter : counters) {
+            if (counter.getItemId().equals(itemId)) {
+                counter.setCount(counter.getCount() + 1);
+                return;
+            }
+            if (smallest == null || counter.getCount() < smallest.getCount()) {
+                smallest = counter;
+            }
+        }
+
+        if (counters.size() < capacity) {
+            counters.add(new ItemNeighbors.Neighbor(itemId, 1, 0));
+        } else {
+            smallest.setError(smallest.getCount());
+            smallest.setCount(smallest.getCount() + 1);
+            smallest.setItemId(itemId);
+        }
+    }
+
+    /**
+     * Gets the strongest counters.
+     *
+     * @param counters The sketch counters
+     * @param k The number of counters to return
+     * @return Copies of the k strongest counters, strongest first
+     */
+    static List<ItemNeighbors.Neighbor> top(List<ItemNeighbors.Neighbor> counters, int k) {
+        List<ItemNeighbors.Neighbor> sorted = new ArrayList<>(counters);
+        sorted.sort(STRONGEST_FIRST);
+
+        List<ItemNeighbors.Neighbor> top = new ArrayList<>(Math.min(k, sorted.size()));
+        for (int i = 0; i < k && i < sorted.size(); i++) {
+            ItemNeighbors.Neighbor counter = sorted.get(i);
+            top.add(new ItemNeighbors.Neighbor(counter.getItemId(), counter.getCount(), counter.getError()));
+        }
+        return top;
+    }
+
+    /**
+     * Checks whether two neighbor lists name the same items in the same order.
+     */
+    static boolean sameItems(List<ItemNeighbors.Neighbor> a, List<ItemNeighbors.Neighbor> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getItemId().equals(b.get(i).getItemId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,86 +1,156 @@
 package com.recommender.streams;
 
+import com.recommender.catalog.CatalogSnapshot;
+import com.recommender.catalog.ItemCatalog;
+import com.recommender.catalog.RankedItems;
+import com.recommender.catalog.ScoringPool;
+import com.recommender.catalog.ScoringKernel;
+import com.recommender.catalog.TopNScorer;
+import com.recommender.catalog.UserScoringContext;
 import com.recommender.config.KafkaConfig;
+import com.recommender.ml.ModelRegistry;
+import com.recommender.ml.ScoringModel;
 import com.recommender.model.Item;
+import com.recommender.model.PendingRegeneration;
 import com.recommender.model.Recommendation;
 import com.recommender.model.UserProfile;
-import com.recommender.utils.JsonSerde;
+import com.recommender.utils.SerdeFactory;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Generates recommendations in real-time based on user profiles and item data.
  * Uses Kafka Streams for processing.
+ * Recommendations are recomputed when a user's profile changes, and patched in place when an
+ * item in one of the user's preferred categories changes. Bursts of profile changes are
+ * coalesced: a user is re-scored once their profile has been quiet for a debounce window, after a
+ * number of changes, or once the oldest unscored change reaches a maximum staleness, and only
+ * the latest profile is scored. Changed users are marked dirty and scored in micro-batches on a
+ * punctuation schedule; a batch shares one catalog snapshot and is spread over the scoring pool.
+ * Scoring uses the current model from the {@link ModelRegistry}, read once per record, and each
+ * recommendation reports the version that scored it.
  */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class RecommendationGenerator {
 
-    private static final String MODEL_VERSION = "1.0.0";
+    private static final String DEFAULT_CONTEXT = "homepage";
     private static final int MAX_RECOMMENDATIONS = 10;
 
+    private final TopNScorer topNScorer;
+    private final ItemCatalog itemCatalog;
+    private final SerdeFactory serdeFactory;
+    private final ModelRegistry modelRegistry;
+    private final ScoringPool scoringPool;
+
+    @Value("${recommender.candidates.popular-pool-size:100}")
+    private int popularPoolSize;
+
+    @Value("${recommender.propagation.max-users-per-second:500}")
+    private int propagationMaxUsersPerSecond;
+
+    @Value("${recommender.propagation.interval-ms:100}")
+    private long propagationIntervalMs;
+
+    @Value("${recommender.propagation.max-pending-changes:10000}")
+    private int propagationMaxPendingChanges;
+
+    @Value("${recommender.debounce.window-ms:2000}")
+    private long debounceWindowMs;
+
+    @Value("${recommender.debounce.max-changes:20}")
+    private int debounceMaxChanges;
+
+    @Value("${recommender.debounce.max-staleness-ms:10000}")
+    private long debounceMaxStalenessMs;
+
+    @Value("${recommender.generation.batch-interval-ms:250}")
+    private long batchIntervalMs;
+
+    @Value("${recommender.generation.max-batch-users:5000}")
+    private int maxBatchUsers;
+
+    @Value("${recommender.generation.users-per-task:16}")
+    private int usersPerTask;
+
     /**
      * Configures the Kafka Streams topology for generating recommendations.
      * 
      * @param streamsBuilder The streams builder to configure
-     * @return The configured streams builder
      */
     @Autowired
     public void buildPipeline(StreamsBuilder streamsBuilder) {
         log.info("Configuring Kafka Streams for recommendation generation");
         
-        // Create serdes for our model classes
-        JsonSerde<UserProfile> userProfileSerde = new JsonSerde<>(UserProfile.class);
-        JsonSerde<Item> itemSerde = new JsonSerde<>(Item.class);
-        JsonSerde<Recommendation> recommendationSerde = new JsonSerde<>(Recommendation.class);
+        // Create serdes for our model classes, in the format configured for each topic and store
+        Serde<UserProfile> userProfileSerde = serdeFactory.userProfiles(KafkaConfig.USER_PROFILES_TOPIC);
+        Serde<UserProfile> userProfileTableSerde = serdeFactory.userProfiles(KafkaConfig.USER_PROFILES_TABLE_STORE);
+        Serde<Recommendation> recommendationSerde = serdeFactory.recommendations(KafkaConfig.RECOMMENDATIONS_TOPIC);
+        Serde<Recommendation> recommendationStoreSerde = serdeFactory.recommendations(KafkaConfig.RECOMMENDATIONS_STORE);
+        Serde<PendingRegeneration> pendingSerde =
+                serdeFactory.pendingRegenerations(KafkaConfig.PENDING_REGENERATIONS_STORE);
         
-        // Load user profiles as a KTable
+        // Load user profiles as a KTable; the store lets item changes re-score a user's items
         KTable<String, UserProfile> userProfiles = streamsBuilder
                 .table(KafkaConfig.USER_PROFILES_TOPIC, 
-                       Consumed.with(Serdes.String(), userProfileSerde));
+                       Consumed.with(Serdes.String(), userProfileSerde),
+                       Materialized.<String, UserProfile, KeyValueStore<Bytes, byte[]>>as(
+                                       KafkaConfig.USER_PROFILES_TABLE_STORE)
+                               .withKeySerde(Serdes.String())
+                               .withValueSerde(userProfileTableSerde));
+        
+        // Items are looked up through the shared ItemCatalog, which is fed by ItemCatalogProcessor
+        
+        // The latest recommendation per user, also used for interactive queries
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KafkaConfig.RECOMMENDATIONS_STORE),
+                Serdes.String(),
+                recommendationStoreSerde));
         
-        // Load items as a KTable
-        KTable<String, Item> items = streamsBuilder
-                .table(KafkaConfig.ITEMS_TOPIC, 
-                       Consumed.with(Serdes.String(), itemSerde));
+        // Category -> interested users, to find the users affected by an item change
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KafkaConfig.USER_INTERESTS_STORE),
+                Serdes.String(),
+                Serdes.String()));
         
-        // Generate recommendations when user profiles are updated
+        // Users whose profile changed since their recommendations were last generated
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KafkaConfig.PENDING_REGENERATIONS_STORE),
+                Serdes.String(),
+                pendingSerde));
+        
+        // Generate recommendations when user profiles or items are updated
         KStream<String, Recommendation> recommendations = userProfiles
                 .toStream()
-                .mapValues((userId, userProfile) -> {
-                    // Generate a unique recommendation ID
-                    String recommendationId = UUID.randomUUID().toString();
-                    
-                    // Get all items (in a real system, you would filter and rank more efficiently)
-                    Map<String, Item> allItems = new HashMap<>();
-                    items.toStream().foreach((itemId, item) -> {
-                        if (item != null) {
-                            allItems.put(itemId, item);
-                        }
-                    });
-                    
-                    // Generate recommendations based on user profile and items
-                    List<Recommendation.RecommendedItem> recommendedItems = generateRecommendations(
-                            userProfile, allItems, MAX_RECOMMENDATIONS);
-                    
-                    // Create and return the recommendation
-                    return Recommendation.builder()
-                            .id(recommendationId)
-                            .userId(userId)
-                            .timestamp(Instant.now())
-                            .contextId("homepage")  // Default context
-                            .items(recommendedItems)
-                            .modelVersion(MODEL_VERSION)
-                            .build();
-                });
+                .process(RecommendationUpdater::new,
+                        KafkaConfig.RECOMMENDATIONS_STORE,
+                        KafkaConfig.USER_INTERESTS_STORE,
+                        KafkaConfig.USER_PROFILES_TABLE_STORE,
+                        KafkaConfig.PENDING_REGENERATIONS_STORE);
         
         // Output recommendations to a topic
         recommendations
@@ -93,106 +163,111 @@ public class RecommendationGenerator {
     
     /**
      * Generates recommendations for a user based on their profile and available items.
+     * Only items in the user's preferred categories plus a pool of popular items are scored,
+     * and the top N are kept in a bounded min-heap instead of sorting every score.
+     * Scoring runs on the columnar catalog snapshot and reuses per-thread buffers.
      * 
      * @param userProfile The user's profile
-     * @param items Available items
+     * @param model The scoring model
      * @param maxRecommendations Maximum number of recommendations to generate
+     * @param now The stream time, for recency
      * @return List of recommended items
      */
     private List<Recommendation.RecommendedItem> generateRecommendations(
-            UserProfile userProfile, Map<String, Item> items, int maxRecommendations) {
-        
-        // Skip items the user has already purchased
-        Set<String> excludeItems = userProfile.getPurchasedItems() != null ? 
-                userProfile.getPurchasedItems() : new HashSet<>();
-        
-        // Calculate scores for each item
-        Map<String, Double> itemScores = new HashMap<>();
-        
-        items.forEach((itemId, item) -> {
-            if (!excludeItems.contains(itemId)) {
-                // Calculate a score based on multiple factors
-                double score = calculateItemScore(userProfile, item);
-                itemScores.put(itemId, score);
-            }
-        });
-        
-        // Sort items by score and take the top N
-        return itemScores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(maxRecommendations)
-                .map(entry -> {
-                    String itemId = entry.getKey();
-                    double score = entry.getValue();
-                    Item item = items.get(itemId);
-                    
-                    // Create score components for explanation
-                    Map<String, Double> scoreComponents = new HashMap<>();
-                    if (userProfile.getCategoryPreferences() != null && item.getCategories() != null) {
-                        double categoryScore = calculateCategoryScore(userProfile, item);
-                        scoreComponents.put("category_match", categoryScore);
-                    }
-                    scoreComponents.put("popularity", item.getPopularity() * 0.3);
-                    
-                    // Generate explanation
-                    String explanation = generateExplanation(userProfile, item, scoreComponents);
-                    
-                    return Recommendation.RecommendedItem.builder()
-                            .itemId(itemId)
-                            .score(score)
-                            .scoreComponents(scoreComponents)
-                            .explanation(explanation)
-                            .build();
-                })
-                .collect(Collectors.toList());
+            UserProfile userProfile, ScoringModel model, int maxRecommendations, long now) {
+        return toRecommendedItems(userProfile,
+                topNScorer.rank(userProfile, model, popularPoolSize, maxRecommendations, now));
     }
     
     /**
-     * Calculates a score for an item based on the user profile.
+     * Generates recommendations for a user against a given catalog snapshot, ranking into the
+     * given buffers. Safe to call from several threads at once with different buffers.
      * 
+     * @param scratch The buffers to rank into
+     * @param snapshot The catalog snapshot to score against
      * @param userProfile The user's profile
-     * @param item The item to score
-     * @return A score value
+     * @param model The scoring model
+     * @param maxRecommendations Maximum number of recommendations to generate
+     * @param now The stream time, for recency
+     * @return List of recommended items
      */
-    private double calculateItemScore(UserProfile userProfile, Item item) {
-        double score = 0.0;
-        
-        // Add popularity component
-        score += item.getPopularity() * 0.3;
+    private List<Recommendation.RecommendedItem> generateRecommendations(
+            RankedItems scratch, CatalogSnapshot snapshot, UserProfile userProfile, ScoringModel model,
+            int maxRecommendations, long now) {
+        return toRecommendedItems(userProfile,
+                topNScorer.rank(scratch, snapshot, userProfile, model, popularPoolSize, maxRecommendations, now));
+    }
+    
+    private List<Recommendation.RecommendedItem> toRecommendedItems(UserProfile userProfile, RankedItems ranked) {
+        CatalogSnapshot catalog = ranked.snapshot();
+        int count = ranked.size();
         
-        // Add category preference component
-        if (userProfile.getCategoryPreferences() != null && item.getCategories() != null) {
-            score += calculateCategoryScore(userProfile, item) * 0.4;
+        List<Recommendation.RecommendedItem> recommendedItems = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Recommendation.RecommendedItem recommendedItem = toRecommendedItem(
+                    userProfile, ranked.kernel(), catalog, ranked.ordinal(i), ranked.score(i), ranked.categoryScore(i),
+                    ranked.factorScore(i));
+            if (recommendedItem != null) {
+                recommendedItems.add(recommendedItem);
+            }
         }
         
-        // Add recency component (newer items get a boost)
-        long currentTime = System.currentTimeMillis();
-        long itemAge = currentTime - item.getCreationTimestamp();
-        double recencyScore = Math.max(0, 1.0 - (itemAge / (30.0 * 24 * 60 * 60 * 1000))); // 30 days max
-        score += recencyScore * 0.3;
-        
-        return score;
+        return recommendedItems;
     }
     
     /**
-     * Calculates a category match score between user preferences and item categories.
+     * Builds a recommended item with its score components and explanation.
      * 
      * @param userProfile The user's profile
-     * @param item The item to score
-     * @return A category match score
+     * @param kernel The kernel the item was scored with
+     * @param catalog The catalog snapshot the item was scored against
+     * @param ordinal The item ordinal
+     * @param score The item's score
+     * @param categoryScore The category component of the score
+     * @param factorScore The collaborative component of the score
+     * @return The recommended item, or null if the item is no longer in the snapshot; the slot
+     *         may have been cleared or reused since it was scored
      */
-    private double calculateCategoryScore(UserProfile userProfile, Item item) {
-        double categoryScore = 0.0;
-        int matches = 0;
+    private Recommendation.RecommendedItem toRecommendedItem(UserProfile userProfile, ScoringKernel kernel,
+                                                             CatalogSnapshot catalog, int ordinal, double score, double categoryScore,
+                                                             double factorScore) {
+        String itemId = catalog.itemId(ordinal);
+        Item item = catalog.item(ordinal);
+        if (itemId == null || item == null) {
+            return null;
+        }
         
-        for (String category : item.getCategories()) {
-            if (userProfile.getCategoryPreferences().containsKey(category)) {
-                categoryScore += userProfile.getCategoryPreferences().get(category);
-                matches++;
-            }
+        // Create score components for explanation
+        Map<String, Double> scoreComponents = new HashMap<>();
+        if (userProfile.getCategoryPreferences() != null && item.getCategories() != null) {
+            scoreComponents.put("category_match", categoryScore);
+        }
+        scoreComponents.put("popularity", catalog.popularity(ordinal) * kernel.popularityWeight());
+        if (factorScore != 0.0) {
+            scoreComponents.put("similar_users", factorScore * kernel.factorWeight());
         }
         
-        return matches > 0 ? categoryScore / matches : 0.0;
+        // Generate explanation
+        String explanation = generateExplanation(userProfile, item, scoreComponents);
+        
+        return Recommendation.RecommendedItem.builder()
+                .itemId(itemId)
+                .score(score)
+                .scoreComponents(scoreComponents)
+                .explanation(explanation)
+                .build();
+    }
+    
+    private Recommendation newRecommendation(String userId, List<Recommendation.RecommendedItem> items,
+                                             ScoringModel model, long now) {
+        return Recommendation.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .timestamp(Instant.ofEpochMilli(now))
+                .contextId(DEFAULT_CONTEXT)
+                .items(items)
+                .modelVersion(model.version())
+                .build();
     }
     
     /**
@@ -217,6 +292,8 @@ public class RecommendationGenerator {
                            String.join(", ", item.getCategories());
                 case "popularity":
                     return "Popular among other users";
+                case "similar_users":
+                    return "Liked by users with similar taste";
                 default:
                     return "Recommended for you";
             }
@@ -224,4 +301,364 @@ public class RecommendationGenerator {
         
         return "Recommended for you";
     }
+    
+    /**
+     * Keeps each user's recommendation up to date.
+     * A profile change marks the user dirty, and dirty users are ranked from scratch in batches. An item change is applied only
+     * to the users interested in the item's categories, by re-scoring that one item against
+     * their stored top N; at most a configured number of users is patched per second.
+     * If item changes are lost, because the catalog's change log overran or more changes are
+     * waiting than the configured limit, every user with recommendations is marked dirty instead,
+     * so each is ranked from scratch against the current catalog.
+     */
+    private class RecommendationUpdater implements Processor<String, UserProfile, String, Recommendation> {
+        
+        private final UserScoringContext scoringContext = new UserScoringContext();
+        
+        // Changed items waiting to be propagated, with the categories they were in before and after;
+        // bounded, and held in memory only, so a restarted task starts again from the log's head
+        private final Map<String, Set<String>> pendingChanges = new LinkedHashMap<>();
+        
+        private ProcessorContext<String, Recommendation> context;
+        private KeyValueStore<String, Recommendation> recommendationStore;
+        private TimestampedKeyValueStore<String, UserProfile> userProfileStore;
+        private KeyValueStore<String, PendingRegeneration> pendingStore;
+        private UserInterestIndex interestIndex;
+        private long changeLogPosition;
+        private long lostChanges;
+        
+        // Dirty users are scanned round-robin from after the last user of the previous full batch
+        private String batchResumeKey;
+        
+        // Progress through the item change being propagated
+        private String currentItemId;
+        private List<String> currentCategories;
+        private int currentCategory;
+        private String lastPatchedUser;
+        private int remainingBudget;
+        
+        @Override
+        public void init(ProcessorContext<String, Recommendation> context) {
+            this.context = context;
+            this.recommendationStore = context.getStateStore(KafkaConfig.RECOMMENDATIONS_STORE);
+            this.userProfileStore = context.getStateStore(KafkaConfig.USER_PROFILES_TABLE_STORE);
+            this.pendingStore = context.getStateStore(KafkaConfig.PENDING_REGENERATIONS_STORE);
+            this.interestIndex = new UserInterestIndex(context.getStateStore(KafkaConfig.USER_INTERESTS_STORE));
+            
+            // Changes made before this task started are already reflected in a later profile update
+            this.changeLogPosition = itemCatalog.changes().head();
+            
+            context.schedule(Duration.ofMillis(propagationIntervalMs), PunctuationType.WALL_CLOCK_TIME,
+                    this::propagateItemChanges);
+            context.schedule(Duration.ofMillis(batchIntervalMs), PunctuationType.WALL_CLOCK_TIME,
+                    this::regeneratePending);
+        }
+        
+        @Override
+        public void process(Record<String, UserProfile> record) {
+            String userId = record.key();
+            UserProfile userProfile = record.value();
+            
+            if (userProfile == null) {
+                interestIndex.update(userId, null);
+                recommendationStore.delete(userId);
+                pendingStore.delete(userId);
+                return;
+            }
+            
+            interestIndex.update(userId, userProfile.getCategoryPreferences());
+            
+            // Mark the user dirty; users without recommendations and users past the change limit
+            // are scored in the next batch, others once their burst ends
+            long wallClock = context.currentSystemTimeMs();
+            PendingRegeneration pending = pendingStore.get(userId);
+            if (pending == null) {
+                pending = new PendingRegeneration(wallClock, wallClock, 0, false);
+            }
+            pending.setLastChangeTimestamp(wallClock);
+            pending.setChanges(pending.getChanges() + 1);
+            if (!pending.isDue()) {
+                pending.setDue(pending.getChanges() >= debounceMaxChanges || recommendationStore.get(userId) == null);
+            }
+            pendingStore.put(userId, pending);
+        }
+        
+        /**
+         * Re-scores the dirty users that are due: those marked due, those whose profile has been
+         * quiet for the debounce window, and those whose oldest unscored change has reached the
+         * maximum staleness. At most a configured number of users is scored per batch; the rest
+         * stay dirty for the next one, whose scan continues after the last user taken, so users
+         * late in key order are not starved by a steady stream of earlier ones.
+         */
+        private void regeneratePending(long wallClock) {
+            List<String> due = new ArrayList<>();
+            String resumeKey = batchResumeKey;
+            if (resumeKey == null) {
+                collectDue(pendingStore.all(), null, wallClock, due);
+            } else {
+                collectDue(pendingStore.range(resumeKey, null), resumeKey, wallClock, due);
+                collectDue(pendingStore.range(null, resumeKey), null, wallClock, due);
+            }
+            batchResumeKey = due.size() >= maxBatchUsers ? due.get(due.size() - 1) : null;
+            if (due.isEmpty()) {
+                return;
+            }
+            
+            // Stores belong to this stream thread, so profiles are read and results written here
+            String[] userIds = new String[due.size()];
+            UserProfile[] profiles = new UserProfile[due.size()];
+            int count = 0;
+            for (String userId : due) {
+                pendingStore.delete(userId);
+                UserProfile userProfile = ValueAndTimestamp.getValueOrNull(userProfileStore.get(userId));
+                if (userProfile != null) {
+                    userIds[count] = userId;
+                    profiles[count++] = userProfile;
+                }
+            }
+            
+            ScoringModel model = modelRegistry.current();
+            long now = StreamTime.now(context);
+            List<List<Recommendation.RecommendedItem>> results =
+                    scoreBatch(itemCatalog.snapshot(), profiles, count, model, now);
+            for (int i = 0; i < count; i++) {
+                emit(userIds[i], results.get(i), model, now);
+            }
+            log.debug("Regenerated recommendations for {} users", count);
+        }
+        
+        /**
+         * Adds the due users of a range of the pending store to a batch, until the batch is full.
+         */
+        private void collectDue(KeyValueIterator<String, PendingRegeneration> range, String skipKey,
+                                long wallClock, List<String> due) {
+            try (KeyValueIterator<String, PendingRegeneration> pending = range) {
+                while (pending.hasNext() && due.size() < maxBatchUsers) {
+                    KeyValue<String, PendingRegeneration> entry = pending.next();
+                    if (entry.key.equals(skipKey)) {
+                        continue;
+                    }
+                    if (entry.value.isDue()
+                            || wallClock - entry.value.getLastChangeTimestamp() >= debounceWindowMs
+                            || wallClock - entry.value.getFirstChangeTimestamp() >= debounceMaxStalenessMs) {
+                        due.add(entry.key);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Scores a batch of users against one snapshot and model, on the scoring pool when the
+         * batch is larger than one task.
+         */
+        private List<List<Recommendation.RecommendedItem>> scoreBatch(
+                CatalogSnapshot snapshot, UserProfile[] profiles, int count, ScoringModel model, long now) {
+            List<List<Recommendation.RecommendedItem>> results = new ArrayList<>(Collections.nCopies(count, null));
+            ScoringTask task = new ScoringTask(snapshot, profiles, model, now, results, 0, count);
+            if (count <= usersPerTask) {
+                task.compute();
+            } else {
+                scoringPool.invoke(task);
+            }
+            return results;
+        }
+        
+        private void propagateItemChanges(long timestamp) {
+            changeLogPosition = itemCatalog.changes().read(changeLogPosition,
+                    change -> pendingChanges.computeIfAbsent(change.itemId(), id -> new HashSet<>())
+                            .addAll(change.categories()),
+                    missed -> markAllDirty(missed, "the item change log overran"));
+            if (pendingChanges.size() > propagationMaxPendingChanges) {
+                markAllDirty(pendingChanges.size(), "too many item changes are waiting");
+            }
+            
+            remainingBudget = (int) Math.max(1, propagationMaxUsersPerSecond * propagationIntervalMs / 1000);
+            ScoringModel model = modelRegistry.current();
+            long now = StreamTime.now(context);
+            
+            while (remainingBudget > 0) {
+                if (currentItemId == null && !startNextChange()) {
+                    return;
+                }
+                
+                if (currentCategory >= currentCategories.size()) {
+                    currentItemId = null;
+                    continue;
+                }
+                
+                lastPatchedUser = interestIndex.visit(currentCategories.get(currentCategory), lastPatchedUser,
+                        userId -> {
+                            patch(userId, currentItemId, model, now);
+                            return --remainingBudget > 0;
+                        });
+                if (lastPatchedUser == null) {
+                    currentCategory++;
+                }
+            }
+            
+            if (!pendingChanges.isEmpty()) {
+                log.debug("{} item changes waiting to be propagated", pendingChanges.size());
+            }
+        }
+        
+        /**
+         * Falls back from patching to ranking every user with recommendations from scratch, once
+         * their debounce window has passed, and drops the changes waiting to be patched.
+         */
+        private void markAllDirty(long changes, String reason) {
+            lostChanges += changes;
+            pendingChanges.clear();
+            currentItemId = null;
+            
+            long wallClock = context.currentSystemTimeMs();
+            int users = 0;
+            try (KeyValueIterator<String, Recommendation> recommendations = recommendationStore.all()) {
+                while (recommendations.hasNext()) {
+                    String userId = recommendations.next().key;
+                    if (pendingStore.get(userId) == null) {
+                        pendingStore.put(userId, new PendingRegeneration(wallClock, wallClock, 0, false));
+                        users++;
+                    }
+                }
+            }
+            log.warn("{} item changes not propagated because {} ({} in total); re-ranking {} users instead",
+                    changes, reason, lostChanges, users);
+        }
+        
+        private boolean startNextChange() {
+            Iterator<Map.Entry<String, Set<String>>> next = pendingChanges.entrySet().iterator();
+            if (!next.hasNext()) {
+                return false;
+            }
+            Map.Entry<String, Set<String>> change = next.next();
+            next.remove();
+            
+            currentItemId = change.getKey();
+            currentCategories = new ArrayList<>(change.getValue());
+            currentCategory = 0;
+            lastPatchedUser = null;
+            return true;
+        }
+        
+        /**
+         * Re-scores one item for a user and merges it into the user's stored top N.
+         * If the item can no longer be recommended its replacement is unknown, so the user is
+         * ranked from scratch instead, as is a list scored by a model of another lineage: different
+         * weights or experiments, or factors from another training run. Lists scored by an earlier
+         * factor version of the same run are patched, as the trainer publishes a new version at a
+         * fixed interval and successive versions only drift. An item whose score drops stays in the
+         * list until the next full ranking.
+         */
+        private void patch(String userId, String itemId, ScoringModel model, long now) {
+            Recommendation current = recommendationStore.get(userId);
+            UserProfile userProfile = ValueAndTimestamp.getValueOrNull(userProfileStore.get(userId));
+            if (current == null || current.getItems() == null || userProfile == null) {
+                return;
+            }
+            if (!model.sameLineage(current.getModelVersion())) {
+                emit(userId, generateRecommendations(userProfile, model, MAX_RECOMMENDATIONS, now), model, now);
+                return;
+            }
+            
+            List<Recommendation.RecommendedItem> items = new ArrayList<>(current.getItems());
+            int position = -1;
+            for (int i = 0; i < items.size(); i++) {
+                if (itemId.equals(items.get(i).getItemId())) {
+                    position = i;
+                    break;
+                }
+            }
+            
+            CatalogSnapshot catalog = itemCatalog.snapshot();
+            int ordinal = itemCatalog.ordinalOf(itemId);
+            boolean recommendable = ordinal >= 0 && ordinal < catalog.capacity() && catalog.isLive(ordinal);
+            if (recommendable) {
+                topNScorer.prepare(scoringContext, catalog, userProfile, model, now);
+                recommendable = !scoringContext.isExcluded(ordinal);
+            }
+            
+            if (!recommendable) {
+                if (position >= 0) {
+                    emit(userId, generateRecommendations(userProfile, model, MAX_RECOMMENDATIONS, now), model, now);
+                }
+                return;
+            }
+            
+            ScoringKernel kernel = model.kernelFor(userId);
+            double score = kernel.score(catalog, ordinal, scoringContext);
+            if (position >= 0 && items.get(position).getScore() == score) {
+                return;
+            }
+            if (position < 0 && items.size() >= MAX_RECOMMENDATIONS
+                    && score <= items.get(items.size() - 1).getScore()) {
+                return;
+            }
+            
+            Recommendation.RecommendedItem recommendedItem = toRecommendedItem(userProfile, kernel, catalog,
+                    ordinal, score, kernel.categoryScore(catalog, ordinal, scoringContext),
+                    kernel.factorScore(catalog, ordinal, scoringContext));
+            if (recommendedItem == null) {
+                return;
+            }
+            if (position >= 0) {
+                items.set(position, recommendedItem);
+            } else {
+                items.add(recommendedItem);
+            }
+            
+            items.sort(Comparator.comparingDouble(Recommendation.RecommendedItem::getScore).reversed());
+            while (items.size() > MAX_RECOMMENDATIONS) {
+                items.remove(items.size() - 1);
+            }
+            emit(userId, items, model, now);
+        }
+        
+        private void emit(String userId, List<Recommendation.RecommendedItem> items, ScoringModel model, long now) {
+            Recommendation recommendation = newRecommendation(userId, items, model, now);
+            recommendationStore.put(userId, recommendation);
+            context.forward(new Record<>(userId, recommendation, now));
+        }
+    }
+    
+    /**
+     * Scores a range of a batch of users, splitting it in halves until each part is small enough.
+     * Each leaf task ranks into its own scratch buffers, reused from one user to the next; a
+     * worker's thread-local buffers could be overwritten by a task it runs while joining.
+     */
+    private class ScoringTask extends RecursiveAction {
+        
+        private final CatalogSnapshot snapshot;
+        private final UserProfile[] profiles;
+        private final ScoringModel model;
+        private final long now;
+        private final List<List<Recommendation.RecommendedItem>> results;
+        private final int from;
+        private final int to;
+        
+        ScoringTask(CatalogSnapshot snapshot, UserProfile[] profiles, ScoringModel model, long now,
+                    List<List<Recommendation.RecommendedItem>> results, int from, int to) {
+            this.snapshot = snapshot;
+            this.profiles = profiles;
+            this.model = model;
+            this.now = now;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > usersPerTask) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoringTask(snapshot, profiles, model, now, results, from, middle),
+                        new ScoringTask(snapshot, profiles, model, now, results, middle, to));
+                return;
+            }
+            RankedItems scratch = new RankedItems();
+            for (int i = from; i < to; i++) {
+                results.set(i, generateRecommendations(scratch, snapshot, profiles[i], model,
+                        MAX_RECOMMENDATIONS, now));
+            }
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package com.recommender.streams;
+
+import com.recommender.config.KafkaConfig;
+import com.recommender.model.SessionSummary;
+import com.recommender.model.UserEvent;
+import com.recommender.utils.SerdeFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.state.SessionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Summarizes user sessions.
+ * Events are grouped by {@code UserEvent.sessionId} into session windows that close after a
+ * period of inactivity, and each session is folded into a bounded {@link SessionSummary}.
+ * Only the final summary of a session is published, keyed by user ID, once its window closes;
+ * session state is kept no longer than the inactivity gap plus the grace period.
+ * Summaries of open sessions wait in a suppression buffer with a configured record and byte
+ * limit; size it for the peak number of open sessions, as a full buffer shuts the stream
+ * thread down instead of publishing partial sessions.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SessionProcessor {
+
+    private final SerdeFactory serdeFactory;
+
+    @Value("${recommender.sessions.inactivity-gap-ms:1800000}")
+    private long inactivityGapMs;
+
+    @Value("${recommender.sessions.max-items:50}")
+    private int maxItems;
+
+    @Value("${recommender.streams.grace-ms:300000}")
+    private long graceMs;
+
+    @Value("${recommender.sessions.suppression-max-records:1000000}")
+    private long suppressionMaxRecords;
+
+    @Value("${recommender.sessions.suppression-max-bytes:268435456}")
+    private long suppressionMaxBytes;
+
+    /**
+     * Configures the Kafka Streams topology for session summaries.
+     *
+     * @param streamsBuilder The streams builder to configure
+     * @param userEvents The shared stream of user events
+     */
+    @Autowired
+    public void buildPipeline(StreamsBuilder streamsBuilder, KStream<String, UserEvent> userEvents) {
+        log.info("Configuring Kafka Streams for session summaries");
+
+        Serde<SessionSummary> storeSerde = serdeFactory.sessionSummaries(KafkaConfig.USER_SESSIONS_STORE);
+        Serde<SessionSummary> topicSerde = serdeFactory.sessionSummaries(KafkaConfig.USER_SESSIONS_TOPIC);
+        Serde<UserEvent> repartitionSerde = serdeFactory.userEvents(KafkaConfig.SESSIONS_BY_ID_REPARTITION);
+
+        Duration gap = Duration.ofMillis(inactivityGapMs);
+        Duration grace = Duration.ofMillis(graceMs);
+
+        userEvents
+                .filter((userId, event) -> event != null && event.getSessionId() != null
+                        && event.getTimestamp() != null)
+                .groupBy((userId, event) -> event.getSessionId(),
+                        Grouped.with(KafkaConfig.SESSIONS_BY_ID_REPARTITION, Serdes.String(), repartitionSerde))
+                .windowedBy(SessionWindows.ofInactivityGapAndGrace(gap, grace))
+                .aggregate(
+                        SessionSummary::new,
+                        (sessionId, event, summary) -> summary.add(event, maxItems),
+                        (sessionId, summary, other) -> summary.merge(other, maxItems),
+                        Materialized.<String, SessionSummary, SessionStore<Bytes, byte[]>>as(
+                                        KafkaConfig.USER_SESSIONS_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(storeSerde)
+                                .withRetention(gap.plus(grace)))
+                // Only final summaries may be published, and untilWindowCloses takes only a strict
+                // buffer, so a full buffer stops the stream thread rather than emitting early
+                .suppress(Suppressed.untilWindowCloses(Suppressed.BufferConfig.maxRecords(suppressionMaxRecords)
+                        .withMaxBytes(suppressionMaxBytes)
+                        .shutDownWhenFull()))
+                .toStream()
+                .filter((window, summary) -> summary != null && summary.getUserId() != null)
+                .map((window, summary) -> KeyValue.pair(summary.getUserId(), summary))
+                .peek((userId, summary) -> log.debug("Session {} of user {} closed: {} events, {} items",
+                        summary.getSessionId(), userId, summary.getEventCount(), summary.getVisits().size()))
+                .to(KafkaConfig.USER_SESSIONS_TOPIC, Produced.with(Serdes.String(), topicSerde));
+    }
+}
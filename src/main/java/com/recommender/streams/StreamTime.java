@@ -0,0 +1,35 @@
+package com.recommender.streams;
+
+import org.apache.kafka.streams.processor.api.ProcessingContext;
+
+/**
+ * The reference time for time-dependent scoring in a stream task.
+ * Stream time is the largest event time the task has seen, so scores depend on the input
+ * alone and not on when or how fast it is processed; a late event is scored as of the time the
+ * stream has reached, not as of its own.
+ */
+final class StreamTime {
+
+    private StreamTime() {
+    }
+
+    /**
+     * @param context The processing context of the current task
+     * @param recordTimestamp The timestamp of the record being processed
+     * @return The stream time, or the record's timestamp before the task has stream time
+     */
+    static long now(ProcessingContext context, long recordTimestamp) {
+        return Math.max(context.currentStreamTimeMs(), recordTimestamp);
+    }
+
+    /**
+     * Gets the stream time outside of record processing, e.g. in a punctuation.
+     *
+     * @param context The processing context of the current task
+     * @return The stream time, or the wall-clock time before the task has stream time
+     */
+    static long now(ProcessingContext context) {
+        long streamTime = context.currentStreamTimeMs();
+        return streamTime >= 0 ? streamTime : context.currentSystemTimeMs();
+    }
+}
@@ -1,59 +1,60 @@
 package com.recommender.streams;
 
+import com.recommender.catalog.ItemCatalog;
 import com.recommender.config.KafkaConfig;
+import com.recommender.ml.EventWeighting;
 import com.recommender.model.UserEvent;
 import com.recommender.model.UserProfile;
-import com.recommender.utils.JsonSerde;
+import com.recommender.utils.SerdeFactory;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Processes user events in real-time using Kafka Streams.
  * Extracts features from user events and updates user profiles.
  */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class UserEventProcessor {
 
+    private final SerdeFactory serdeFactory;
+    private final ItemCatalog itemCatalog;
+    private final EventWeighting eventWeighting;
+
     /**
      * Configures the Kafka Streams topology for processing user events.
      * 
      * @param streamsBuilder The streams builder to configure
+     * @param userEventStream The shared stream of user events
      * @return The configured streams builder
      */
     @Autowired
-    public void buildPipeline(StreamsBuilder streamsBuilder) {
+    public void buildPipeline(StreamsBuilder streamsBuilder, KStream<String, UserEvent> userEventStream) {
         log.info("Configuring Kafka Streams for user event processing");
         
-        // Create serdes for our model classes
-        JsonSerde<UserEvent> userEventSerde = new JsonSerde<>(UserEvent.class);
-        JsonSerde<UserProfile> userProfileSerde = new JsonSerde<>(UserProfile.class);
+        // Create serdes for our model classes, in the format configured for each topic and store
+        Serde<UserProfile> userProfileStoreSerde = serdeFactory.userProfiles(KafkaConfig.USER_PROFILES_STORE);
+        Serde<UserProfile> userProfileTopicSerde = serdeFactory.userProfiles(KafkaConfig.USER_PROFILES_TOPIC);
         
         // Stream of user events
-        KStream<String, UserEvent> userEvents = streamsBuilder
-                .stream(KafkaConfig.USER_EVENTS_TOPIC, 
-                        Consumed.with(Serdes.String(), userEventSerde))
+        KStream<String, UserEvent> userEvents = userEventStream
                 .peek((key, event) -> log.debug("Processing user event: {}", event));
         
-        // Extract features from user events
+        // Score events that carry no explicit score, weighed as of stream time
         KStream<String, UserEvent> enrichedEvents = userEvents
-                .mapValues(event -> {
-                    // Here we could enrich the event with additional information
-                    // For example, calculate a score based on the event type
-                    if (event.getScore() == null) {
-                        double score = calculateEventScore(event);
-                        event.setScore(score);
-                    }
-                    return event;
-                });
+                .processValues(EventScorer::new);
         
         // Group events by user ID to update user profiles
         KTable<String, UserProfile> userProfiles = enrichedEvents
@@ -61,51 +62,49 @@ public class UserEventProcessor {
                 .aggregate(
                         UserProfile::new,  // Initializer
                         (userId, event, profile) -> {
-                            // Update profile with new event
+                            // Update profile with new event; the item comes from the local copy of the
+                            // global catalog, so enriching the event needs no join or repartition
                             profile.setUserId(userId);
-                            profile.updateWithEvent(event);
+                            profile.updateWithEvent(event, itemCatalog.get(event.getItemId()));
                             return profile;
                         },
-                        Materialized.with(Serdes.String(), userProfileSerde)
+                        Materialized.<String, UserProfile, KeyValueStore<Bytes, byte[]>>as(
+                                        KafkaConfig.USER_PROFILES_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(userProfileStoreSerde)
                 );
         
         // Output updated user profiles to a topic
         userProfiles.toStream()
                 .peek((userId, profile) -> log.debug("Updated user profile for user: {}", userId))
                 .to(KafkaConfig.USER_PROFILES_TOPIC, 
-                    Produced.with(Serdes.String(), userProfileSerde));
-        
-        // Create a windowed view of recent user events for real-time analysis
-        KTable<Windowed<String>, Long> userActivityCounts = userEvents
-                .groupByKey()
-                .windowedBy(TimeWindows.of(Duration.ofMinutes(10)))
-                .count();
-        
-        // Log user activity for monitoring
-        userActivityCounts.toStream()
-                .peek((windowedUserId, count) -> 
-                        log.debug("User {} had {} events in the last 10 minutes", 
-                                windowedUserId.key(), count));
+                    Produced.with(Serdes.String(), userProfileTopicSerde));
     }
     
     /**
-     * Calculates a score for a user event based on its type.
-     * This score can be used for weighting events in the recommendation algorithm.
-     * 
-     * @param event The user event
-     * @return A score value
+     * Sets the score of events that have none to the event's weight.
+     * The event instance is shared with the other branches of the user events stream, so a
+     * scored copy is forwarded instead of changing it.
      */
-    private double calculateEventScore(UserEvent event) {
-        Map<UserEvent.EventType, Double> eventScores = new HashMap<>();
-        eventScores.put(UserEvent.EventType.VIEW, 1.0);
-        eventScores.put(UserEvent.EventType.CLICK, 2.0);
-        eventScores.put(UserEvent.EventType.ADD_TO_CART, 3.0);
-        eventScores.put(UserEvent.EventType.PURCHASE, 5.0);
-        eventScores.put(UserEvent.EventType.RATE, 4.0);
-        eventScores.put(UserEvent.EventType.SEARCH, 0.5);
-        eventScores.put(UserEvent.EventType.LIKE, 2.5);
-        eventScores.put(UserEvent.EventType.DISLIKE, -1.0);
+    private class EventScorer implements FixedKeyProcessor<String, UserEvent, UserEvent> {
+        
+        private FixedKeyProcessorContext<String, UserEvent> context;
+        
+        @Override
+        public void init(FixedKeyProcessorContext<String, UserEvent> context) {
+            this.context = context;
+        }
         
-        return eventScores.getOrDefault(event.getEventType(), 0.0);
+        @Override
+        public void process(FixedKeyRecord<String, UserEvent> record) {
+            UserEvent event = record.value();
+            if (event != null && event.getScore() == null) {
+                context.forward(record.withValue(event.toBuilder()
+                        .score(eventWeighting.weight(event, StreamTime.now(context, record.timestamp())))
+                        .build()));
+            } else {
+                context.forward(record);
+            }
+        }
     }
 }
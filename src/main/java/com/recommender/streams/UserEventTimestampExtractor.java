@@ -0,0 +1,26 @@
+package com.recommender.streams;
+
+import com.recommender.model.UserEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+/**
+ * Uses the time a user event happened as its stream time, instead of the time it was produced.
+ * Windows, joins and time-dependent scoring then depend only on the events themselves, so
+ * replaying history gives the same results however fast it is read.
+ * Events without a timestamp take the partition's current stream time, or the record's own
+ * timestamp at the start of a partition.
+ */
+public class UserEventTimestampExtractor implements TimestampExtractor {
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        if (record.value() instanceof UserEvent) {
+            UserEvent event = (UserEvent) record.value();
+            if (event.getTimestamp() != null && event.getTimestamp().toEpochMilli() >= 0) {
+                return event.getTimestamp().toEpochMilli();
+            }
+        }
+        return partitionTime >= 0 ? partitionTime : Math.max(0L, record.timestamp());
+    }
+}
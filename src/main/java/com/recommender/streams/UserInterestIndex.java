@@ -0,0 +1,101 @@
+package com.recommender.streams;
+
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Reverse index from category to the users with a positive preference for it, kept in a
+ * key-value store next to the users' recommendations.
+ * The store holds two kinds of keys so that both directions are prefix scans:
+ * {@code c<category>\0<userId>} for lookups and {@code u<userId>\0<category>} to find a user's
+ * indexed categories when the profile changes.
+ */
+class UserInterestIndex {
+
+    private static final char SEPARATOR = '\0';
+    private static final StringSerializer PREFIX_SERIALIZER = new StringSerializer();
+
+    private final KeyValueStore<String, String> store;
+    private final List<String> scratch = new ArrayList<>();
+
+    UserInterestIndex(KeyValueStore<String, String> store) {
+        this.store = store;
+    }
+
+    /**
+     * Replaces the categories a user is indexed under.
+     *
+     * @param userId The user ID
+     * @param preferences The user's current category preferences, or null to remove the user
+     */
+    void update(String userId, Map<String, Double> preferences) {
+        // Drop categories the user is no longer interested in
+        scratch.clear();
+        String userPrefix = "u" + userId + SEPARATOR;
+        try (KeyValueIterator<String, String> indexed = store.prefixScan(userPrefix, PREFIX_SERIALIZER)) {
+            while (indexed.hasNext()) {
+                scratch.add(indexed.next().value);
+            }
+        }
+        for (String category : scratch) {
+            if (!isInterested(preferences, category)) {
+                store.delete(userPrefix + category);
+                store.delete(categoryKey(category, userId));
+            }
+        }
+
+        // Index the categories the user is interested in now
+        if (preferences != null) {
+            for (Map.Entry<String, Double> preference : preferences.entrySet()) {
+                if (isInterested(preferences, preference.getKey()) && !scratch.contains(preference.getKey())) {
+                    store.put(userPrefix + preference.getKey(), preference.getKey());
+                    store.put(categoryKey(preference.getKey(), userId), userId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the users interested in a category, in user ID order, starting after a given user.
+     *
+     * @param category The category
+     * @param afterUserId The last user already visited, or null to start at the beginning
+     * @param visitor Receives user IDs; returning false stops the scan
+     * @return The last user visited, or null if the scan reached the end of the category
+     */
+    String visit(String category, String afterUserId, Predicate<String> visitor) {
+        String prefix = "c" + category + SEPARATOR;
+        // The smallest key after prefix + afterUserId
+        String from = afterUserId != null ? prefix + afterUserId + SEPARATOR : prefix;
+        String to = prefix + Character.MAX_VALUE;
+
+        try (KeyValueIterator<String, String> users = store.range(from, to)) {
+            while (users.hasNext()) {
+                KeyValue<String, String> entry = users.next();
+                if (!visitor.test(entry.value)) {
+                    return entry.value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String categoryKey(String category, String userId) {
+        return "c" + category + SEPARATOR + userId;
+    }
+
+    private static boolean isInterested(Map<String, Double> preferences, String category) {
+        if (preferences == null) {
+            return false;
+        }
+        Double preference = preferences.get(category);
+        return preference != null && preference > 0.0;
+    }
+}
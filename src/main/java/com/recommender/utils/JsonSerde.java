@@ -1,6 +1,7 @@
 package com.recommender.utils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serializer;
@@ -17,7 +18,7 @@ import java.util.Map;
  */
 public class JsonSerde<T> implements Serde<T> {
     private static final Logger log = LoggerFactory.getLogger(JsonSerde.class);
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
     private final Class<T> type;
 
     public JsonSerde(Class<T> type) {
@@ -91,4 +92,36 @@ public class JsonSerde<T> implements Serde<T> {
             }
         };
     }
+
+    /**
+     * Standalone JSON serializer with a no-arg constructor,
+     * for use as a producer value serializer class.
+     * 
+     * @param <T> The type of object to serialize
+     */
+    public static class JsonSerializer<T> implements Serializer<T> {
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            // Nothing to configure
+        }
+
+        @Override
+        public byte[] serialize(String topic, T data) {
+            if (data == null) {
+                return null;
+            }
+            
+            try {
+                return mapper.writeValueAsBytes(data);
+            } catch (Exception e) {
+                log.error("Error serializing JSON message", e);
+                return null;
+            }
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.recommender.utils;
+
+import com.recommender.model.Item;
+import com.recommender.model.ItemNeighbors;
+import com.recommender.model.PendingRegeneration;
+import com.recommender.model.Recommendation;
+import com.recommender.model.SessionSummary;
+import com.recommender.model.UserEvent;
+import com.recommender.model.UserProfile;
+import com.recommender.utils.binary.BinaryCodec;
+import com.recommender.utils.binary.BinarySerde;
+import com.recommender.utils.binary.ItemCodec;
+import com.recommender.utils.binary.ItemNeighborsCodec;
+import com.recommender.utils.binary.PendingRegenerationCodec;
+import com.recommender.utils.binary.RecommendationCodec;
+import com.recommender.utils.binary.SessionSummaryCodec;
+import com.recommender.utils.binary.UserEventCodec;
+import com.recommender.utils.binary.UserProfileCodec;
+import org.apache.kafka.common.serialization.Serde;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates serdes for model classes in the format configured for each topic or state store.
+ * The format for a topic or store named {@code name} is read from
+ * {@code recommender.serde.formats.<name>} and falls back to {@code recommender.serde.default-format}.
+ * Supported formats are {@code json} and {@code binary}.
+ */
+@Component
+public class SerdeFactory {
+
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+
+    private final Environment environment;
+    private final String defaultFormat;
+
+    public SerdeFactory(Environment environment,
+                        @Value("${recommender.serde.default-format:json}") String defaultFormat) {
+        this.environment = environment;
+        this.defaultFormat = defaultFormat;
+    }
+
+    /**
+     * Creates a serde for user profiles.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<UserProfile> userProfiles(String name) {
+        return forName(name, UserProfile.class, new UserProfileCodec());
+    }
+
+    /**
+     * Creates a serde for items.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<Item> items(String name) {
+        return forName(name, Item.class, new ItemCodec());
+    }
+
+    /**
+     * Creates a serde for recommendations.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<Recommendation> recommendations(String name) {
+        return forName(name, Recommendation.class, new RecommendationCodec());
+    }
+
+    /**
+     * Creates a serde for item neighbor lists.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<ItemNeighbors> itemNeighbors(String name) {
+        return forName(name, ItemNeighbors.class, new ItemNeighborsCodec());
+    }
+
+    /**
+     * Creates a serde for session summaries.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<SessionSummary> sessionSummaries(String name) {
+        return forName(name, SessionSummary.class, new SessionSummaryCodec());
+    }
+
+    /**
+     * Creates a serde for pending recommendation regenerations.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<PendingRegeneration> pendingRegenerations(String name) {
+        return forName(name, PendingRegeneration.class, new PendingRegenerationCodec());
+    }
+
+    /**
+     * Creates a serde for user events.
+     *
+     * @param name The topic or store the serde is used for
+     * @return The serde
+     */
+    public Serde<UserEvent> userEvents(String name) {
+        return forName(name, UserEvent.class, new UserEventCodec());
+    }
+
+    private <T> Serde<T> forName(String name, Class<T> type, BinaryCodec<T> codec) {
+        String format = environment.getProperty("recommender.serde.formats." + name, defaultFormat);
+        switch (format) {
+            case JSON:
+                return new JsonSerde<>(type);
+            case BINARY:
+                return new BinarySerde<>(type, codec);
+            default:
+                throw new IllegalArgumentException("Unknown serde format '" + format + "' for " + name);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.recommender.utils.binary;
+
+/**
+ * Encodes one type into the tagged binary format.
+ * Field numbers are part of the format: once assigned they must never be reused
+ * for a different field, so that old and new versions can read each other's records.
+ *
+ * @param <T> The type handled by this codec
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * Writes the fields of a value.
+     *
+     * @param value The value to write, never null
+     * @param writer The writer
+     */
+    void write(T value, BinaryWriter writer);
+
+    /**
+     * Reads the fields of a value up to the end of the current message.
+     *
+     * @param reader The reader
+     * @return The value
+     */
+    T read(BinaryReader reader);
+}
@@ -0,0 +1,122 @@
+package com.recommender.utils.binary;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the tagged binary format written by {@link BinaryWriter}.
+ * Typical use is a loop over {@link #readField()} with a switch on the field number,
+ * calling {@link #skipField()} for anything unknown.
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private int wireType;
+
+    public BinaryReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = buffer.length;
+    }
+
+    /**
+     * Advances to the next field of the current message.
+     *
+     * @return The field number, or 0 at the end of the message
+     */
+    public int readField() {
+        if (position >= limit) {
+            return 0;
+        }
+        long tag = readUnsignedVarLong();
+        wireType = (int) (tag & 0x7);
+        return (int) (tag >>> 3);
+    }
+
+    public String readString() {
+        int length = (int) readUnsignedVarLong();
+        checkAvailable(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public long readLong() {
+        long value = readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public double readDouble() {
+        checkAvailable(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (buffer[position++] & 0xFFL) << (8 * i);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Enters a nested message; fields are then read from it until {@link #endMessage(int)}.
+     *
+     * @return The limit of the enclosing message, to pass to {@link #endMessage(int)}
+     */
+    public int beginMessage() {
+        int length = (int) readUnsignedVarLong();
+        checkAvailable(length);
+        int outerLimit = limit;
+        limit = position + length;
+        return outerLimit;
+    }
+
+    /**
+     * Leaves a nested message, skipping anything in it that was not read.
+     *
+     * @param outerLimit The value returned by {@link #beginMessage()}
+     */
+    public void endMessage(int outerLimit) {
+        position = limit;
+        limit = outerLimit;
+    }
+
+    /**
+     * Skips the value of the field just returned by {@link #readField()}.
+     */
+    public void skipField() {
+        switch (wireType) {
+            case BinaryWriter.WIRE_VARINT:
+                readUnsignedVarLong();
+                break;
+            case BinaryWriter.WIRE_FIXED64:
+                checkAvailable(8);
+                position += 8;
+                break;
+            case BinaryWriter.WIRE_LENGTH_DELIMITED:
+                int length = (int) readUnsignedVarLong();
+                checkAvailable(length);
+                position += length;
+                break;
+            default:
+                throw new IllegalStateException("Unknown wire type " + wireType);
+        }
+    }
+
+    private long readUnsignedVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            checkAvailable(1);
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private void checkAvailable(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Truncated binary message");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.recommender.utils.binary;
+
+import com.recommender.utils.JsonSerde;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Compact binary serializer/deserializer for Kafka.
+ * Records start with a magic byte and a format version, followed by tagged fields written by a
+ * {@link BinaryCodec}. Unknown fields are skipped, so codecs can add fields without breaking
+ * older readers. Records that are still JSON (from before a topic or store was switched to
+ * binary) are read with {@link JsonSerde}, so a switch needs no migration.
+ *
+ * @param <T> The type of object to serialize/deserialize
+ */
+public class BinarySerde<T> implements Serde<T> {
+    private static final Logger log = LoggerFactory.getLogger(BinarySerde.class);
+
+    static final byte MAGIC = (byte) 0xB5;
+    static final byte FORMAT_VERSION = 1;
+
+    // Serialization runs on stream threads; one reusable buffer per thread
+    private static final ThreadLocal<BinaryWriter> WRITER = ThreadLocal.withInitial(BinaryWriter::new);
+
+    private final BinaryCodec<T> codec;
+    private final Deserializer<T> jsonDeserializer;
+
+    public BinarySerde(Class<T> type, BinaryCodec<T> codec) {
+        this.codec = codec;
+        this.jsonDeserializer = new JsonSerde<>(type).deserializer();
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        // Nothing to configure
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+    @Override
+    public Serializer<T> serializer() {
+        return (topic, data) -> {
+            if (data == null) {
+                return null;
+            }
+
+            try {
+                BinaryWriter writer = WRITER.get();
+                writer.reset();
+                writer.writeRawByte(MAGIC);
+                writer.writeRawByte(FORMAT_VERSION);
+                codec.write(data, writer);
+                return writer.toByteArray();
+            } catch (Exception e) {
+                log.error("Error serializing binary message", e);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public Deserializer<T> deserializer() {
+        return (topic, data) -> {
+            if (data == null) {
+                return null;
+            }
+
+            if (data.length < 2 || data[0] != MAGIC) {
+                return jsonDeserializer.deserialize(topic, data);
+            }
+
+            try {
+                // Version 1 is the only format so far; later versions must stay readable here
+                return codec.read(new BinaryReader(data, 2));
+            } catch (Exception e) {
+                log.error("Error deserializing binary message", e);
+                return null;
+            }
+        };
+    }
+}
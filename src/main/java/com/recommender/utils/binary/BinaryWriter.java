@@ -0,0 +1,122 @@
+package com.recommender.utils.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the tagged binary format used by {@link BinarySerde}.
+ * Every field is prefixed with a tag holding its field number and wire type, so readers
+ * can skip fields they do not know and writers can drop fields that are absent.
+ * Nested messages and strings are length-prefixed. Writers are reusable via {@link #reset()}.
+ */
+public final class BinaryWriter {
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    /**
+     * Discards everything written so far.
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    /**
+     * @return A copy of the bytes written so far
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void writeRawByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeString(int field, String value) {
+        if (value == null) {
+            return;
+        }
+        writeTag(field, WIRE_LENGTH_DELIMITED);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    public void writeLong(int field, long value) {
+        writeTag(field, WIRE_VARINT);
+        // Zig-zag encoding keeps small negative values short
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeDouble(int field, double value) {
+        writeTag(field, WIRE_FIXED64);
+        long bits = Double.doubleToRawLongBits(value);
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (bits >>> (8 * i));
+        }
+    }
+
+    /**
+     * Starts a length-prefixed nested message.
+     *
+     * @param field The field number
+     * @return A marker to pass to {@link #endMessage(int)}
+     */
+    public int beginMessage(int field) {
+        writeTag(field, WIRE_LENGTH_DELIMITED);
+        return position;
+    }
+
+    /**
+     * Ends a nested message by inserting its length in front of it.
+     *
+     * @param start The marker returned by {@link #beginMessage(int)}
+     */
+    public void endMessage(int start) {
+        int length = position - start;
+        int prefixSize = varLongSize(length);
+        ensureCapacity(prefixSize);
+        System.arraycopy(buffer, start, buffer, start + prefixSize, length);
+
+        int end = position + prefixSize;
+        position = start;
+        writeUnsignedVarLong(length);
+        position = end;
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeUnsignedVarLong(((long) field << 3) | wireType);
+    }
+
+    private void writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.recommender.utils.binary;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Helpers shared by the {@link BinaryCodec} implementations for collection-valued fields.
+ * Maps are written as repeated nested entries with the key in field 1 and the value in field 2.
+ */
+final class Codecs {
+
+    private Codecs() {
+    }
+
+    static void writeStrings(int field, Collection<String> values, BinaryWriter writer) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            writer.writeString(field, value);
+        }
+    }
+
+    static void writeDoubleMap(int field, Map<String, Double> values, BinaryWriter writer) {
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            int start = writer.beginMessage(field);
+            writer.writeString(1, entry.getKey());
+            writer.writeDouble(2, entry.getValue());
+            writer.endMessage(start);
+        }
+    }
+
+    static void writeStringMap(int field, Map<String, String> values, BinaryWriter writer) {
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            int start = writer.beginMessage(field);
+            writer.writeString(1, entry.getKey());
+            writer.writeString(2, entry.getValue());
+            writer.endMessage(start);
+        }
+    }
+
+    static void readDoubleEntry(BinaryReader reader, Map<String, Double> target) {
+        int outer = reader.beginMessage();
+        String key = null;
+        double value = 0.0;
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case 1:
+                    key = reader.readString();
+                    break;
+                case 2:
+                    value = reader.readDouble();
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        reader.endMessage(outer);
+        target.put(key, value);
+    }
+
+    static void readStringEntry(BinaryReader reader, Map<String, String> target) {
+        int outer = reader.beginMessage();
+        String key = null;
+        String value = null;
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case 1:
+                    key = reader.readString();
+                    break;
+                case 2:
+                    value = reader.readString();
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        reader.endMessage(outer);
+        target.put(key, value);
+    }
+}
@@ -0,0 +1,72 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.Item;
+
+/**
+ * Binary codec for {@link Item}.
+ */
+public final class ItemCodec implements BinaryCodec<Item> {
+
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int CATEGORIES = 4;
+    private static final int FEATURES = 5;
+    private static final int METADATA = 6;
+    private static final int POPULARITY = 7;
+    private static final int CREATION_TIMESTAMP = 8;
+    private static final int LAST_UPDATE_TIMESTAMP = 9;
+
+    @Override
+    public void write(Item item, BinaryWriter writer) {
+        writer.writeString(ID, item.getId());
+        writer.writeString(NAME, item.getName());
+        writer.writeString(DESCRIPTION, item.getDescription());
+        Codecs.writeStrings(CATEGORIES, item.getCategories(), writer);
+        Codecs.writeDoubleMap(FEATURES, item.getFeatures(), writer);
+        Codecs.writeStringMap(METADATA, item.getMetadata(), writer);
+        writer.writeDouble(POPULARITY, item.getPopularity());
+        writer.writeLong(CREATION_TIMESTAMP, item.getCreationTimestamp());
+        writer.writeLong(LAST_UPDATE_TIMESTAMP, item.getLastUpdateTimestamp());
+    }
+
+    @Override
+    public Item read(BinaryReader reader) {
+        Item item = new Item();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case ID:
+                    item.setId(reader.readString());
+                    break;
+                case NAME:
+                    item.setName(reader.readString());
+                    break;
+                case DESCRIPTION:
+                    item.setDescription(reader.readString());
+                    break;
+                case CATEGORIES:
+                    item.getCategories().add(reader.readString());
+                    break;
+                case FEATURES:
+                    Codecs.readDoubleEntry(reader, item.getFeatures());
+                    break;
+                case METADATA:
+                    Codecs.readStringEntry(reader, item.getMetadata());
+                    break;
+                case POPULARITY:
+                    item.setPopularity(reader.readDouble());
+                    break;
+                case CREATION_TIMESTAMP:
+                    item.setCreationTimestamp(reader.readLong());
+                    break;
+                case LAST_UPDATE_TIMESTAMP:
+                    item.setLastUpdateTimestamp(reader.readLong());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,77 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.ItemNeighbors;
+
+/**
+ * Binary codec for {@link ItemNeighbors} and its neighbors.
+ */
+public final class ItemNeighborsCodec implements BinaryCodec<ItemNeighbors> {
+
+    private static final int ITEM_ID = 1;
+    private static final int NEIGHBORS = 2;
+    private static final int UPDATE_TIMESTAMP = 3;
+
+    private static final int NEIGHBOR_ITEM_ID = 1;
+    private static final int NEIGHBOR_COUNT = 2;
+    private static final int NEIGHBOR_ERROR = 3;
+
+    @Override
+    public void write(ItemNeighbors itemNeighbors, BinaryWriter writer) {
+        writer.writeString(ITEM_ID, itemNeighbors.getItemId());
+        if (itemNeighbors.getNeighbors() != null) {
+            for (ItemNeighbors.Neighbor neighbor : itemNeighbors.getNeighbors()) {
+                int start = writer.beginMessage(NEIGHBORS);
+                writer.writeString(NEIGHBOR_ITEM_ID, neighbor.getItemId());
+                writer.writeLong(NEIGHBOR_COUNT, neighbor.getCount());
+                writer.writeLong(NEIGHBOR_ERROR, neighbor.getError());
+                writer.endMessage(start);
+            }
+        }
+        writer.writeLong(UPDATE_TIMESTAMP, itemNeighbors.getUpdateTimestamp());
+    }
+
+    @Override
+    public ItemNeighbors read(BinaryReader reader) {
+        ItemNeighbors itemNeighbors = new ItemNeighbors();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case ITEM_ID:
+                    itemNeighbors.setItemId(reader.readString());
+                    break;
+                case NEIGHBORS:
+                    itemNeighbors.getNeighbors().add(readNeighbor(reader));
+                    break;
+                case UPDATE_TIMESTAMP:
+                    itemNeighbors.setUpdateTimestamp(reader.readLong());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        return itemNeighbors;
+    }
+
+    private ItemNeighbors.Neighbor readNeighbor(BinaryReader reader) {
+        int outer = reader.beginMessage();
+        ItemNeighbors.Neighbor neighbor = new ItemNeighbors.Neighbor();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case NEIGHBOR_ITEM_ID:
+                    neighbor.setItemId(reader.readString());
+                    break;
+                case NEIGHBOR_COUNT:
+                    neighbor.setCount(reader.readLong());
+                    break;
+                case NEIGHBOR_ERROR:
+                    neighbor.setError(reader.readLong());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        reader.endMessage(outer);
+        return neighbor;
+    }
+}
@@ -0,0 +1,47 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.PendingRegeneration;
+
+/**
+ * Binary codec for {@link PendingRegeneration}.
+ */
+public final class PendingRegenerationCodec implements BinaryCodec<PendingRegeneration> {
+
+    private static final int FIRST_CHANGE_TIMESTAMP = 1;
+    private static final int LAST_CHANGE_TIMESTAMP = 2;
+    private static final int CHANGES = 3;
+    private static final int DUE = 4;
+
+    @Override
+    public void write(PendingRegeneration pending, BinaryWriter writer) {
+        writer.writeLong(FIRST_CHANGE_TIMESTAMP, pending.getFirstChangeTimestamp());
+        writer.writeLong(LAST_CHANGE_TIMESTAMP, pending.getLastChangeTimestamp());
+        writer.writeLong(CHANGES, pending.getChanges());
+        writer.writeLong(DUE, pending.isDue() ? 1L : 0L);
+    }
+
+    @Override
+    public PendingRegeneration read(BinaryReader reader) {
+        PendingRegeneration pending = new PendingRegeneration();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case FIRST_CHANGE_TIMESTAMP:
+                    pending.setFirstChangeTimestamp(reader.readLong());
+                    break;
+                case LAST_CHANGE_TIMESTAMP:
+                    pending.setLastChangeTimestamp(reader.readLong());
+                    break;
+                case CHANGES:
+                    pending.setChanges((int) reader.readLong());
+                    break;
+                case DUE:
+                    pending.setDue(reader.readLong() != 0L);
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,123 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.Recommendation;
+
+import java.time.Instant;
+
+/**
+ * Binary codec for {@link Recommendation} and its recommended items.
+ */
+public final class RecommendationCodec implements BinaryCodec<Recommendation> {
+
+    private static final int ID = 1;
+    private static final int USER_ID = 2;
+    private static final int TIMESTAMP_SECONDS = 3;
+    private static final int TIMESTAMP_NANOS = 4;
+    private static final int CONTEXT_ID = 5;
+    private static final int ITEMS = 6;
+    private static final int MODEL_VERSION = 7;
+    private static final int EXPERIMENT_ID = 8;
+    private static final int VARIANT = 9;
+
+    private static final int ITEM_ID = 1;
+    private static final int ITEM_SCORE = 2;
+    private static final int ITEM_SCORE_COMPONENTS = 3;
+    private static final int ITEM_EXPLANATION = 4;
+
+    @Override
+    public void write(Recommendation recommendation, BinaryWriter writer) {
+        writer.writeString(ID, recommendation.getId());
+        writer.writeString(USER_ID, recommendation.getUserId());
+        if (recommendation.getTimestamp() != null) {
+            writer.writeLong(TIMESTAMP_SECONDS, recommendation.getTimestamp().getEpochSecond());
+            writer.writeLong(TIMESTAMP_NANOS, recommendation.getTimestamp().getNano());
+        }
+        writer.writeString(CONTEXT_ID, recommendation.getContextId());
+        if (recommendation.getItems() != null) {
+            for (Recommendation.RecommendedItem item : recommendation.getItems()) {
+                int start = writer.beginMessage(ITEMS);
+                writer.writeString(ITEM_ID, item.getItemId());
+                writer.writeDouble(ITEM_SCORE, item.getScore());
+                Codecs.writeDoubleMap(ITEM_SCORE_COMPONENTS, item.getScoreComponents(), writer);
+                writer.writeString(ITEM_EXPLANATION, item.getExplanation());
+                writer.endMessage(start);
+            }
+        }
+        writer.writeString(MODEL_VERSION, recommendation.getModelVersion());
+        writer.writeString(EXPERIMENT_ID, recommendation.getExperimentId());
+        writer.writeString(VARIANT, recommendation.getVariant());
+    }
+
+    @Override
+    public Recommendation read(BinaryReader reader) {
+        Recommendation recommendation = new Recommendation();
+        long seconds = 0;
+        long nanos = 0;
+        boolean hasTimestamp = false;
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case ID:
+                    recommendation.setId(reader.readString());
+                    break;
+                case USER_ID:
+                    recommendation.setUserId(reader.readString());
+                    break;
+                case TIMESTAMP_SECONDS:
+                    seconds = reader.readLong();
+                    hasTimestamp = true;
+                    break;
+                case TIMESTAMP_NANOS:
+                    nanos = reader.readLong();
+                    break;
+                case CONTEXT_ID:
+                    recommendation.setContextId(reader.readString());
+                    break;
+                case ITEMS:
+                    recommendation.getItems().add(readItem(reader));
+                    break;
+                case MODEL_VERSION:
+                    recommendation.setModelVersion(reader.readString());
+                    break;
+                case EXPERIMENT_ID:
+                    recommendation.setExperimentId(reader.readString());
+                    break;
+                case VARIANT:
+                    recommendation.setVariant(reader.readString());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        if (hasTimestamp) {
+            recommendation.setTimestamp(Instant.ofEpochSecond(seconds, nanos));
+        }
+        return recommendation;
+    }
+
+    private Recommendation.RecommendedItem readItem(BinaryReader reader) {
+        int outer = reader.beginMessage();
+        Recommendation.RecommendedItem item = new Recommendation.RecommendedItem();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case ITEM_ID:
+                    item.setItemId(reader.readString());
+                    break;
+                case ITEM_SCORE:
+                    item.setScore(reader.readDouble());
+                    break;
+                case ITEM_SCORE_COMPONENTS:
+                    Codecs.readDoubleEntry(reader, item.getScoreComponents());
+                    break;
+                case ITEM_EXPLANATION:
+                    item.setExplanation(reader.readString());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        reader.endMessage(outer);
+        return item;
+    }
+}
@@ -0,0 +1,112 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.SessionSummary;
+
+/**
+ * Binary codec for {@link SessionSummary} and its visits.
+ */
+public final class SessionSummaryCodec implements BinaryCodec<SessionSummary> {
+
+    private static final int SESSION_ID = 1;
+    private static final int USER_ID = 2;
+    private static final int START_TIMESTAMP = 3;
+    private static final int END_TIMESTAMP = 4;
+    private static final int EVENT_COUNT = 5;
+    private static final int PURCHASE_COUNT = 6;
+    private static final int VISITS = 7;
+    private static final int CART_ITEM_IDS = 8;
+    private static final int PURCHASED_ITEM_IDS = 9;
+
+    private static final int VISIT_ITEM_ID = 1;
+    private static final int VISIT_TIMESTAMP = 2;
+    private static final int VISIT_DWELL_MS = 3;
+    private static final int VISIT_EVENTS = 4;
+
+    @Override
+    public void write(SessionSummary summary, BinaryWriter writer) {
+        writer.writeString(SESSION_ID, summary.getSessionId());
+        writer.writeString(USER_ID, summary.getUserId());
+        writer.writeLong(START_TIMESTAMP, summary.getStartTimestamp());
+        writer.writeLong(END_TIMESTAMP, summary.getEndTimestamp());
+        writer.writeLong(EVENT_COUNT, summary.getEventCount());
+        writer.writeLong(PURCHASE_COUNT, summary.getPurchaseCount());
+        if (summary.getVisits() != null) {
+            for (SessionSummary.Visit visit : summary.getVisits()) {
+                int start = writer.beginMessage(VISITS);
+                writer.writeString(VISIT_ITEM_ID, visit.getItemId());
+                writer.writeLong(VISIT_TIMESTAMP, visit.getTimestamp());
+                writer.writeLong(VISIT_DWELL_MS, visit.getDwellMs());
+                writer.writeLong(VISIT_EVENTS, visit.getEvents());
+                writer.endMessage(start);
+            }
+        }
+        Codecs.writeStrings(CART_ITEM_IDS, summary.getCartItemIds(), writer);
+        Codecs.writeStrings(PURCHASED_ITEM_IDS, summary.getPurchasedItemIds(), writer);
+    }
+
+    @Override
+    public SessionSummary read(BinaryReader reader) {
+        SessionSummary summary = new SessionSummary();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case SESSION_ID:
+                    summary.setSessionId(reader.readString());
+                    break;
+                case USER_ID:
+                    summary.setUserId(reader.readString());
+                    break;
+                case START_TIMESTAMP:
+                    summary.setStartTimestamp(reader.readLong());
+                    break;
+                case END_TIMESTAMP:
+                    summary.setEndTimestamp(reader.readLong());
+                    break;
+                case EVENT_COUNT:
+                    summary.setEventCount(reader.readLong());
+                    break;
+                case PURCHASE_COUNT:
+                    summary.setPurchaseCount(reader.readLong());
+                    break;
+                case VISITS:
+                    summary.getVisits().add(readVisit(reader));
+                    break;
+                case CART_ITEM_IDS:
+                    summary.getCartItemIds().add(reader.readString());
+                    break;
+                case PURCHASED_ITEM_IDS:
+                    summary.getPurchasedItemIds().add(reader.readString());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        return summary;
+    }
+
+    private SessionSummary.Visit readVisit(BinaryReader reader) {
+        int outer = reader.beginMessage();
+        SessionSummary.Visit visit = new SessionSummary.Visit();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case VISIT_ITEM_ID:
+                    visit.setItemId(reader.readString());
+                    break;
+                case VISIT_TIMESTAMP:
+                    visit.setTimestamp(reader.readLong());
+                    break;
+                case VISIT_DWELL_MS:
+                    visit.setDwellMs(reader.readLong());
+                    break;
+                case VISIT_EVENTS:
+                    visit.setEvents((int) reader.readLong());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        reader.endMessage(outer);
+        return visit;
+    }
+}
@@ -0,0 +1,90 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.UserEvent;
+
+import java.time.Instant;
+
+/**
+ * Binary codec for {@link UserEvent}.
+ * The event type is written by name, so reordering the enum does not change old records.
+ */
+public final class UserEventCodec implements BinaryCodec<UserEvent> {
+
+    private static final int USER_ID = 1;
+    private static final int ITEM_ID = 2;
+    private static final int EVENT_TYPE = 3;
+    private static final int TIMESTAMP_SECONDS = 4;
+    private static final int TIMESTAMP_NANOS = 5;
+    private static final int SCORE = 6;
+    private static final int SESSION_ID = 7;
+    private static final int CONTEXT_INFO = 8;
+
+    @Override
+    public void write(UserEvent event, BinaryWriter writer) {
+        writer.writeString(USER_ID, event.getUserId());
+        writer.writeString(ITEM_ID, event.getItemId());
+        if (event.getEventType() != null) {
+            writer.writeString(EVENT_TYPE, event.getEventType().name());
+        }
+        if (event.getTimestamp() != null) {
+            writer.writeLong(TIMESTAMP_SECONDS, event.getTimestamp().getEpochSecond());
+            writer.writeLong(TIMESTAMP_NANOS, event.getTimestamp().getNano());
+        }
+        if (event.getScore() != null) {
+            writer.writeDouble(SCORE, event.getScore());
+        }
+        writer.writeString(SESSION_ID, event.getSessionId());
+        writer.writeString(CONTEXT_INFO, event.getContextInfo());
+    }
+
+    @Override
+    public UserEvent read(BinaryReader reader) {
+        UserEvent event = new UserEvent();
+        Long seconds = null;
+        long nanos = 0L;
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case USER_ID:
+                    event.setUserId(reader.readString());
+                    break;
+                case ITEM_ID:
+                    event.setItemId(reader.readString());
+                    break;
+                case EVENT_TYPE:
+                    event.setEventType(eventType(reader.readString()));
+                    break;
+                case TIMESTAMP_SECONDS:
+                    seconds = reader.readLong();
+                    break;
+                case TIMESTAMP_NANOS:
+                    nanos = reader.readLong();
+                    break;
+                case SCORE:
+                    event.setScore(reader.readDouble());
+                    break;
+                case SESSION_ID:
+                    event.setSessionId(reader.readString());
+                    break;
+                case CONTEXT_INFO:
+                    event.setContextInfo(reader.readString());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        if (seconds != null) {
+            event.setTimestamp(Instant.ofEpochSecond(seconds, nanos));
+        }
+        return event;
+    }
+
+    private static UserEvent.EventType eventType(String name) {
+        // Types added by a newer writer are read as unknown rather than failing the record
+        try {
+            return UserEvent.EventType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
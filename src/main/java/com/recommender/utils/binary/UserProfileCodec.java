@@ -0,0 +1,92 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.UserProfile;
+
+/**
+ * Binary codec for {@link UserProfile}.
+ */
+public final class UserProfileCodec implements BinaryCodec<UserProfile> {
+
+    private static final int USER_ID = 1;
+    private static final int CATEGORY_PREFERENCES = 2;
+    private static final int FEATURE_PREFERENCES = 3;
+    private static final int RECENTLY_VIEWED_ITEMS = 4;
+    private static final int PURCHASED_ITEMS = 5;
+    private static final int ITEM_RATINGS = 6;
+    private static final int LAST_ACTIVITY_TIMESTAMP = 7;
+    private static final int FIRST_ACTIVITY_TIMESTAMP = 8;
+    private static final int PREFERENCES_TIMESTAMP = 9;
+    private static final int EVENT_COUNT = 10;
+    private static final int PURCHASE_COUNT = 11;
+    private static final int RATING_COUNT = 12;
+    private static final int RATING_SUM = 13;
+
+    @Override
+    public void write(UserProfile profile, BinaryWriter writer) {
+        writer.writeString(USER_ID, profile.getUserId());
+        Codecs.writeDoubleMap(CATEGORY_PREFERENCES, profile.getCategoryPreferences(), writer);
+        Codecs.writeDoubleMap(FEATURE_PREFERENCES, profile.getFeaturePreferences(), writer);
+        Codecs.writeStrings(RECENTLY_VIEWED_ITEMS, profile.getRecentlyViewedItems(), writer);
+        Codecs.writeStrings(PURCHASED_ITEMS, profile.getPurchasedItems(), writer);
+        Codecs.writeDoubleMap(ITEM_RATINGS, profile.getItemRatings(), writer);
+        writer.writeLong(LAST_ACTIVITY_TIMESTAMP, profile.getLastActivityTimestamp());
+        writer.writeLong(FIRST_ACTIVITY_TIMESTAMP, profile.getFirstActivityTimestamp());
+        writer.writeLong(PREFERENCES_TIMESTAMP, profile.getPreferencesTimestamp());
+        writer.writeLong(EVENT_COUNT, profile.getEventCount());
+        writer.writeLong(PURCHASE_COUNT, profile.getPurchaseCount());
+        writer.writeLong(RATING_COUNT, profile.getRatingCount());
+        writer.writeDouble(RATING_SUM, profile.getRatingSum());
+    }
+
+    @Override
+    public UserProfile read(BinaryReader reader) {
+        UserProfile profile = new UserProfile();
+        int field;
+        while ((field = reader.readField()) != 0) {
+            switch (field) {
+                case USER_ID:
+                    profile.setUserId(reader.readString());
+                    break;
+                case CATEGORY_PREFERENCES:
+                    Codecs.readDoubleEntry(reader, profile.getCategoryPreferences());
+                    break;
+                case FEATURE_PREFERENCES:
+                    Codecs.readDoubleEntry(reader, profile.getFeaturePreferences());
+                    break;
+                case RECENTLY_VIEWED_ITEMS:
+                    profile.getRecentlyViewedItems().add(reader.readString());
+                    break;
+                case PURCHASED_ITEMS:
+                    profile.getPurchasedItems().add(reader.readString());
+                    break;
+                case ITEM_RATINGS:
+                    Codecs.readDoubleEntry(reader, profile.getItemRatings());
+                    break;
+                case LAST_ACTIVITY_TIMESTAMP:
+                    profile.setLastActivityTimestamp(reader.readLong());
+                    break;
+                case FIRST_ACTIVITY_TIMESTAMP:
+                    profile.setFirstActivityTimestamp(reader.readLong());
+                    break;
+                case PREFERENCES_TIMESTAMP:
+                    profile.setPreferencesTimestamp(reader.readLong());
+                    break;
+                case EVENT_COUNT:
+                    profile.setEventCount(reader.readLong());
+                    break;
+                case PURCHASE_COUNT:
+                    profile.setPurchaseCount(reader.readLong());
+                    break;
+                case RATING_COUNT:
+                    profile.setRatingCount(reader.readLong());
+                    break;
+                case RATING_SUM:
+                    profile.setRatingSum(reader.readDouble());
+                    break;
+                default:
+                    reader.skipField();
+            }
+        }
+        return profile;
+    }
+}
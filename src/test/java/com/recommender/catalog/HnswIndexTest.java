@@ -0,0 +1,175 @@
+package com.recommender.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 16;
+    private static final int VECTORS = 3000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+    private static final int EF_SEARCH = 64;
+    private static final double MIN_RECALL = 0.9;
+
+    @Test
+    void recallAgainstExactSearch() {
+        Random random = new Random(42L);
+        Map<String, float[]> vectors = new HashMap<>();
+        HnswIndex index = new HnswIndex(16, 100);
+        for (int i = 0; i < VECTORS; i++) {
+            put(index, vectors, "item-" + i, randomVector(random));
+        }
+
+        assertEquals(VECTORS, index.size());
+        assertTrue(recall(index, vectors, random) >= MIN_RECALL);
+    }
+
+    @Test
+    void compactionDropsRetiredNodesAndKeepsRecall() {
+        Random random = new Random(7L);
+        Map<String, float[]> vectors = new HashMap<>();
+        HnswIndex index = new HnswIndex(16, 100);
+        for (int i = 0; i < VECTORS; i++) {
+            put(index, vectors, "item-" + i, randomVector(random));
+        }
+
+        // Update a third of the items and remove another third
+        Set<String> removed = new HashSet<>();
+        for (int i = 0; i < VECTORS; i++) {
+            String key = "item-" + i;
+            if (i % 3 == 0) {
+                put(index, vectors, key, randomVector(random));
+            } else if (i % 3 == 1) {
+                index.remove(key);
+                vectors.remove(key);
+                removed.add(key);
+            }
+        }
+        assertEquals(vectors.size(), index.size());
+        assertEquals(VECTORS - vectors.size() + VECTORS / 3, index.retiredCount());
+        assertTrue(recall(index, vectors, random) >= MIN_RECALL);
+
+        index.compact();
+
+        assertEquals(0, index.retiredCount());
+        assertEquals(vectors.size(), index.size());
+        assertEquals(vectors.keySet(), new HashSet<>(index.keys()));
+        assertTrue(recall(index, vectors, random) >= MIN_RECALL);
+
+        String[] keys = new String[VECTORS];
+        float[] similarities = new float[VECTORS];
+        int count = index.search(randomVector(random), VECTORS, VECTORS, keys, similarities);
+        assertEquals(vectors.size(), count);
+        for (int i = 0; i < count; i++) {
+            assertFalse(removed.contains(keys[i]), keys[i]);
+        }
+    }
+
+    @Test
+    void snapshotRoundTripAnswersTheSame() throws IOException {
+        Random random = new Random(11L);
+        Map<String, float[]> vectors = new HashMap<>();
+        HnswIndex index = new HnswIndex(16, 100);
+        for (int i = 0; i < 500; i++) {
+            put(index, vectors, "item-" + i, randomVector(random));
+        }
+        index.remove("item-3");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        HnswIndex loaded = new HnswIndex(16, 100);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded.readFrom(in);
+        }
+
+        assertEquals(index.size(), loaded.size());
+        float[] query = randomVector(random);
+        String[] expected = new String[K];
+        String[] actual = new String[K];
+        float[] similarities = new float[K];
+        assertEquals(index.search(query, K, EF_SEARCH, expected, similarities),
+                loaded.search(query, K, EF_SEARCH, actual, similarities));
+        assertArrayEquals(expected, actual);
+    }
+
+    /**
+     * Measures the fraction of the exact K nearest neighbors, by cosine similarity, that the
+     * index returns, averaged over random queries.
+     */
+    private static double recall(HnswIndex index, Map<String, float[]> vectors, Random random) {
+        String[] keys = new String[K];
+        float[] similarities = new float[K];
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector(random);
+            int count = index.search(query, K, EF_SEARCH, keys, similarities);
+            Set<String> exact = exactNearest(vectors, query);
+            for (int i = 0; i < count; i++) {
+                if (exact.contains(keys[i])) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private static Set<String> exactNearest(Map<String, float[]> vectors, float[] query) {
+        String[] ids = vectors.keySet().toArray(new String[0]);
+        double[] similarity = new double[ids.length];
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            similarity[i] = cosine(vectors.get(ids[i]), query);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(similarity[b], similarity[a]));
+        Set<String> nearest = new HashSet<>();
+        for (int i = 0; i < K; i++) {
+            nearest.add(ids[order[i]]);
+        }
+        return nearest;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static void put(HnswIndex index, Map<String, float[]> vectors, String key, float[] vector) {
+        index.put(key, vector);
+        vectors.put(key, vector);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
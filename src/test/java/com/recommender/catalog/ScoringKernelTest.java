@@ -0,0 +1,168 @@
+package com.recommender.catalog;
+
+import com.recommender.ml.FactorModel;
+import com.recommender.model.Item;
+import com.recommender.model.UserProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link ScoringKernel#DEFAULT} against a straight port of the original per-item scoring
+ * formula. Two deviations are deliberate and covered separately: category preferences are
+ * divided by the user's largest absolute preference, and items created after the reference
+ * time get the full recency boost rather than more than the full boost.
+ */
+class ScoringKernelTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final int CATALOG_SIZE = 2000;
+    private static final int CATEGORIES = 12;
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void matchesTheOriginalFormulaForNormalizedPreferences() {
+        // Largest absolute preference is 1, so normalizing changes nothing
+        Map<String, Double> preferences = new HashMap<>();
+        preferences.put("category-1", 1.0);
+        preferences.put("category-4", -0.5);
+        preferences.put("category-7", 0.25);
+        preferences.put("category-9", 0.0);
+        preferences.put("category-unknown", 0.75);
+
+        assertMatchesOriginal(preferences, 1.0);
+    }
+
+    @Test
+    void matchesTheOriginalFormulaOnPreferencesScaledByTheirMaximum() {
+        Map<String, Double> preferences = new HashMap<>();
+        preferences.put("category-2", 12.0);
+        preferences.put("category-3", -30.0);
+        preferences.put("category-5", 0.0);
+        preferences.put("category-8", 4.5);
+
+        assertMatchesOriginal(preferences, 30.0);
+    }
+
+    @Test
+    void zeroPreferencesCountAsMatches() {
+        ItemCatalog itemCatalog = new ItemCatalog();
+        itemCatalog.upsert("item-1", item("item-1", 0.0, NOW - 40 * DAY_MS, "a", "b"));
+        UserProfile profile = profile(Map.of("a", 2.0, "b", 0.0));
+
+        UserScoringContext user = context(itemCatalog, profile);
+
+        // Average of 2.0 and 0.0, divided by the largest preference 2.0
+        assertEquals(0.5, ScoringKernel.DEFAULT.categoryScore(
+                itemCatalog.snapshot(), itemCatalog.ordinalOf("item-1"), user), TOLERANCE);
+    }
+
+    @Test
+    void futureItemsGetTheFullRecencyBoost() {
+        ItemCatalog itemCatalog = new ItemCatalog();
+        Item future = item("item-1", 10.0, NOW + 5 * DAY_MS, "a");
+        itemCatalog.upsert("item-1", future);
+        UserProfile profile = profile(Map.of("a", 1.0));
+
+        double score = ScoringKernel.DEFAULT.score(itemCatalog.snapshot(), itemCatalog.ordinalOf("item-1"),
+                context(itemCatalog, profile));
+
+        // The original formula gave 1 + 5/30 for the recency term here
+        assertEquals(10.0 * 0.3 + 1.0 * 0.4 + 1.0 * 0.3, score, TOLERANCE);
+        assertTrue(originalItemScore(profile.getCategoryPreferences(), future) > score);
+    }
+
+    private static void assertMatchesOriginal(Map<String, Double> preferences, double maxPreference) {
+        Random random = new Random(42L);
+        ItemCatalog itemCatalog = new ItemCatalog();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            itemCatalog.upsert("item-" + i, randomItem("item-" + i, random));
+        }
+        UserProfile profile = profile(preferences);
+        Map<String, Double> normalized = new HashMap<>();
+        preferences.forEach((category, value) -> normalized.put(category, value / maxPreference));
+
+        CatalogSnapshot catalog = itemCatalog.snapshot();
+        UserScoringContext user = context(itemCatalog, profile);
+        for (int ordinal = 0; ordinal < catalog.limit(); ordinal++) {
+            Item item = catalog.item(ordinal);
+            assertEquals(originalItemScore(normalized, item),
+                    ScoringKernel.DEFAULT.score(catalog, ordinal, user), TOLERANCE, item.getId());
+        }
+    }
+
+    /**
+     * The original {@code calculateItemScore}, with the reference time passed in.
+     */
+    private static double originalItemScore(Map<String, Double> categoryPreferences, Item item) {
+        double score = 0.0;
+        score += item.getPopularity() * 0.3;
+        if (categoryPreferences != null && item.getCategories() != null) {
+            score += originalCategoryScore(categoryPreferences, item) * 0.4;
+        }
+        long itemAge = NOW - item.getCreationTimestamp();
+        double recencyScore = Math.max(0, 1.0 - (itemAge / (30.0 * 24 * 60 * 60 * 1000)));
+        score += recencyScore * 0.3;
+        return score;
+    }
+
+    /**
+     * The original {@code calculateCategoryScore}.
+     */
+    private static double originalCategoryScore(Map<String, Double> categoryPreferences, Item item) {
+        double categoryScore = 0.0;
+        int matches = 0;
+        for (String category : item.getCategories()) {
+            if (categoryPreferences.containsKey(category)) {
+                categoryScore += categoryPreferences.get(category);
+                matches++;
+            }
+        }
+        return matches > 0 ? categoryScore / matches : 0.0;
+    }
+
+    private static UserScoringContext context(ItemCatalog itemCatalog, UserProfile profile) {
+        UserScoringContext user = new UserScoringContext();
+        user.reset(itemCatalog, itemCatalog.snapshot(), profile, NOW);
+        user.loadFactors(FactorModel.EMPTY, profile.getUserId());
+        return user;
+    }
+
+    private static UserProfile profile(Map<String, Double> preferences) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId("user-1");
+        profile.getCategoryPreferences().putAll(preferences);
+        return profile;
+    }
+
+    private static Item randomItem(String itemId, Random random) {
+        Set<String> categories = new HashSet<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            categories.add("category-" + random.nextInt(CATEGORIES));
+        }
+        // Only past creation times; future ones are a deliberate deviation
+        long age = (long) (random.nextDouble() * 60 * DAY_MS);
+        Item item = item(itemId, random.nextDouble() * 100.0, NOW - age);
+        item.setCategories(categories);
+        return item;
+    }
+
+    private static Item item(String itemId, double popularity, long creationTimestamp, String... categories) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setPopularity(popularity);
+        item.setCreationTimestamp(creationTimestamp);
+        item.setCategories(new HashSet<>(Arrays.asList(categories)));
+        return item;
+    }
+}
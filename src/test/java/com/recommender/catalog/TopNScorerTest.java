@@ -0,0 +1,194 @@
+package com.recommender.catalog;
+
+import com.recommender.ml.ScoringModel;
+import com.recommender.model.Item;
+import com.recommender.model.UserProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopNScorerTest {
+
+    private static final int CATALOG_SIZE = 2000;
+    private static final int CATEGORIES = 12;
+    private static final int TOP_N = 20;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private ItemCatalog itemCatalog;
+    private ItemVectorIndex itemVectorIndex;
+    private ScoringPool scoringPool;
+    private UserProfile userProfile;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42L);
+        itemCatalog = new ItemCatalog();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            itemCatalog.upsert("item-" + i, randomItem("item-" + i, random));
+        }
+        itemVectorIndex = new ItemVectorIndex(16, 100, 64, "", 0, 0.5, 1000);
+        scoringPool = new ScoringPool(2, 0);
+
+        userProfile = new UserProfile();
+        userProfile.setUserId("user-1");
+        userProfile.getCategoryPreferences().put("category-1", 3.0);
+        userProfile.getCategoryPreferences().put("category-4", -1.0);
+        userProfile.getCategoryPreferences().put("category-7", 1.5);
+        for (int i = 0; i < 50; i++) {
+            userProfile.getPurchasedItems().add("item-" + random.nextInt(CATALOG_SIZE));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        scoringPool.close();
+        itemVectorIndex.close();
+    }
+
+    @Test
+    void ranksLikeAFullScanWhenEveryItemIsACandidate() {
+        TopNScorer scorer = scorer(Integer.MAX_VALUE, 65536);
+
+        RankedItems ranked = scorer.rank(userProfile, ScoringModel.DEFAULT, CATALOG_SIZE, TOP_N, NOW);
+
+        assertMatchesBruteForce(ranked);
+    }
+
+    @Test
+    void shardedScoringRanksLikeAFullScan() {
+        TopNScorer scorer = scorer(0, 64);
+
+        RankedItems ranked = scorer.rank(new RankedItems(), itemCatalog.snapshot(), userProfile,
+                ScoringModel.DEFAULT, CATALOG_SIZE, TOP_N, NOW);
+
+        assertMatchesBruteForce(ranked);
+    }
+
+    @Test
+    void neverRanksPurchasedItems() {
+        TopNScorer scorer = scorer(Integer.MAX_VALUE, 65536);
+
+        RankedItems ranked = scorer.rank(userProfile, ScoringModel.DEFAULT, CATALOG_SIZE, CATALOG_SIZE, NOW);
+
+        Set<String> seen = new HashSet<>();
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            String itemId = ranked.snapshot().itemId(ranked.ordinal(rank));
+            assertFalse(userProfile.getPurchasedItems().contains(itemId), itemId);
+            assertTrue(seen.add(itemId), "ranked twice: " + itemId);
+        }
+        assertEquals(CATALOG_SIZE - userProfile.getPurchasedItems().size(), ranked.size());
+    }
+
+    @Test
+    void recycledOrdinalsHoldOnlyTheNewItem() {
+        int ordinal = itemCatalog.ordinalOf("item-10");
+        itemCatalog.remove("item-10");
+
+        CatalogSnapshot snapshot = itemCatalog.snapshot();
+        assertFalse(snapshot.isLive(ordinal));
+
+        Item replacement = randomItem("item-new", new Random(7L));
+        replacement.setPopularity(1_000.0);
+        itemCatalog.upsert("item-new", replacement);
+
+        assertEquals(ordinal, itemCatalog.ordinalOf("item-new"));
+        assertEquals(-1, itemCatalog.ordinalOf("item-10"));
+        assertEquals("item-new", snapshot.itemId(ordinal));
+        assertEquals(replacement, snapshot.item(ordinal));
+
+        RankedItems ranked = scorer(Integer.MAX_VALUE, 65536)
+                .rank(userProfile, ScoringModel.DEFAULT, CATALOG_SIZE, TOP_N, NOW);
+
+        assertMatchesBruteForce(ranked);
+        assertEquals("item-new", ranked.snapshot().itemId(ranked.ordinal(0)));
+    }
+
+    @Test
+    void topKHeapKeepsTheBestScoresInOrder() {
+        Random random = new Random(3L);
+        TopKHeap heap = new TopKHeap();
+        for (int k : new int[]{0, 1, 5, 100, 1000}) {
+            double[] scores = new double[300];
+            heap.reset(k);
+            for (int i = 0; i < scores.length; i++) {
+                // Coarse scores so that ties occur
+                scores[i] = random.nextInt(50) / 10.0;
+                heap.offer(i, scores[i]);
+            }
+
+            int[] ordinals = new int[Math.max(k, 1)];
+            double[] kept = new double[Math.max(k, 1)];
+            int count = heap.drainDescending(ordinals, kept);
+
+            double[] expected = scores.clone();
+            Arrays.sort(expected);
+            int expectedCount = Math.min(k, scores.length);
+            assertEquals(expectedCount, count);
+            assertEquals(0, heap.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected[expected.length - 1 - i], kept[i]);
+                assertEquals(scores[ordinals[i]], kept[i]);
+            }
+        }
+    }
+
+    private TopNScorer scorer(int parallelCatalogSize, int shardSize) {
+        return new TopNScorer(itemCatalog, new ItemNeighborIndex(), itemVectorIndex, 50,
+                scoringPool, parallelCatalogSize, shardSize);
+    }
+
+    /**
+     * Checks a ranking against scoring every live item of the snapshot and sorting the scores.
+     */
+    private void assertMatchesBruteForce(RankedItems ranked) {
+        CatalogSnapshot catalog = ranked.snapshot();
+        UserScoringContext user = new UserScoringContext();
+        user.reset(itemCatalog, catalog, userProfile, NOW);
+        user.loadFactors(ScoringModel.DEFAULT.factors(), userProfile.getUserId());
+        ScoringKernel kernel = ScoringModel.DEFAULT.kernelFor(userProfile.getUserId());
+
+        List<Double> scores = new ArrayList<>();
+        for (int ordinal = 0; ordinal < catalog.limit(); ordinal++) {
+            if (catalog.isLive(ordinal) && !user.isExcluded(ordinal)) {
+                scores.add(kernel.score(catalog, ordinal, user));
+            }
+        }
+        scores.sort((a, b) -> Double.compare(b, a));
+
+        assertEquals(Math.min(TOP_N, scores.size()), ranked.size());
+        Set<Integer> seen = new HashSet<>();
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            int ordinal = ranked.ordinal(rank);
+            assertTrue(seen.add(ordinal), "ranked twice: " + ordinal);
+            assertTrue(catalog.isLive(ordinal));
+            assertFalse(user.isExcluded(ordinal));
+            assertEquals(scores.get(rank), ranked.score(rank));
+            assertEquals(kernel.score(catalog, ordinal, user), ranked.score(rank));
+        }
+    }
+
+    private static Item randomItem(String itemId, Random random) {
+        Set<String> categories = new HashSet<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            categories.add("category-" + random.nextInt(CATEGORIES));
+        }
+        Item item = new Item();
+        item.setId(itemId);
+        item.setCategories(categories);
+        item.setPopularity(random.nextDouble() * 100.0);
+        item.setCreationTimestamp(NOW - (long) (random.nextDouble() * 90L * 24 * 60 * 60 * 1000));
+        return item;
+    }
+}
@@ -0,0 +1,146 @@
+package com.recommender.ml;
+
+import com.recommender.catalog.ScoringKernel;
+import com.recommender.model.Experiment;
+import com.recommender.model.ExperimentSet;
+import com.recommender.model.ScoringWeights;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExperimentPlanTest {
+
+    private static final int USERS = 100_000;
+
+    @Test
+    void assignsUsersInProportionToAllocations() {
+        ExperimentPlan plan = plan(experiment("ranking", variant("control", 70), variant("treatment", 30)));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            counts.merge(plan.variantOf("ranking", "user-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(2, counts.size());
+        assertEquals(0.7, counts.get("control") / (double) USERS, 0.01);
+        assertEquals(0.3, counts.get("treatment") / (double) USERS, 0.01);
+    }
+
+    @Test
+    void assignmentIsStableAcrossInstances() {
+        ExperimentSet experiments = experimentSet(
+                experiment("ranking", variant("a", 1), variant("b", 1), variant("c", 1)));
+        ExperimentPlan first = new ExperimentPlan(experiments);
+        ExperimentPlan second = new ExperimentPlan(experiments);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(first.variantOf("ranking", "user-" + i), second.variantOf("ranking", "user-" + i));
+        }
+    }
+
+    @Test
+    void experimentsAssignIndependently() {
+        ExperimentPlan plan = plan(
+                experiment("first", variant("a", 50), variant("b", 50)),
+                experiment("second", variant("a", 50), variant("b", 50)));
+
+        Map<String, Integer> joint = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            String userId = "user-" + i;
+            joint.merge(plan.variantOf("first", userId) + "/" + plan.variantOf("second", userId), 1, Integer::sum);
+        }
+
+        assertEquals(4, joint.size());
+        for (int count : joint.values()) {
+            assertEquals(0.25, count / (double) USERS, 0.01);
+        }
+    }
+
+    @Test
+    void growingAVariantOnlyMovesUsersIntoIt() {
+        ExperimentPlan before = plan(experiment("ranking", variant("control", 50), variant("treatment", 50)));
+        ExperimentPlan after = plan(experiment("ranking", variant("control", 40), variant("treatment", 60)));
+
+        for (int i = 0; i < 10_000; i++) {
+            String userId = "user-" + i;
+            if ("treatment".equals(before.variantOf("ranking", userId))) {
+                assertEquals("treatment", after.variantOf("ranking", userId), userId);
+            }
+        }
+    }
+
+    @Test
+    void zeroAllocationsSplitEvenly() {
+        ExperimentPlan plan = plan(experiment("ranking", variant("a", 0), variant("b", 0)));
+
+        int a = 0;
+        for (int i = 0; i < USERS; i++) {
+            if ("a".equals(plan.variantOf("ranking", "user-" + i))) {
+                a++;
+            }
+        }
+        assertEquals(0.5, a / (double) USERS, 0.01);
+    }
+
+    @Test
+    void unknownExperimentsHaveNoVariant() {
+        ExperimentPlan plan = plan(experiment("ranking", variant("a", 1)));
+
+        assertNull(plan.variantOf("other", "user-1"));
+        assertNull(plan.variantOf(null, "user-1"));
+        assertNull(ExperimentPlan.EMPTY.variantOf("ranking", "user-1"));
+    }
+
+    @Test
+    void kernelForAppliesTheAssignedVariantsWeights() {
+        Experiment.Variant treatment = variant("treatment", 50);
+        treatment.setScoring(ScoringWeights.builder().popularityWeight(0.9).build());
+        ExperimentPlan plan = plan(experiment("ranking", variant("control", 50), treatment));
+        ScoringKernel base = ScoringKernel.DEFAULT;
+
+        int treated = 0;
+        for (int i = 0; i < 1_000; i++) {
+            String userId = "user-" + i;
+            ScoringKernel kernel = plan.kernelFor(userId, base);
+            if ("treatment".equals(plan.variantOf("ranking", userId))) {
+                treated++;
+                assertEquals(0.9, kernel.popularityWeight());
+                assertEquals(base.categoryWeight(), kernel.categoryWeight());
+                assertEquals(base.recencyWeight(), kernel.recencyWeight());
+                assertEquals(base.factorWeight(), kernel.factorWeight());
+            } else {
+                assertSame(base, kernel);
+            }
+        }
+        assertTrue(treated > 0);
+    }
+
+    private static ExperimentPlan plan(Experiment... experiments) {
+        return new ExperimentPlan(experimentSet(experiments));
+    }
+
+    private static ExperimentSet experimentSet(Experiment... experiments) {
+        return ExperimentSet.builder()
+                .version(1L)
+                .experiments(new ArrayList<>(Arrays.asList(experiments)))
+                .build();
+    }
+
+    private static Experiment experiment(String id, Experiment.Variant... variants) {
+        List<Experiment.Variant> list = new ArrayList<>(Arrays.asList(variants));
+        return Experiment.builder().id(id).variants(list).build();
+    }
+
+    private static Experiment.Variant variant(String name, int allocation) {
+        return Experiment.Variant.builder().name(name).allocation(allocation).build();
+    }
+}
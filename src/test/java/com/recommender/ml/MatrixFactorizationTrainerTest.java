@@ -0,0 +1,60 @@
+package com.recommender.ml;
+
+import org.junit.jupiter.api.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatrixFactorizationTrainerTest {
+
+    private static final float LEARNING_RATE = 0.05f;
+    private static final float REGULARIZATION = 0.01f;
+
+    @Test
+    void userFactorsMoveTowardItemsTheUserInteractedWith() {
+        INDArray userFactors = Nd4j.createFromArray(new float[][]{{0.05f, -0.02f, 0.01f, 0.03f}});
+        INDArray itemFactors = Nd4j.createFromArray(new float[][]{
+                {0.04f, 0.03f, -0.05f, 0.02f},      // Interacted with
+                {-0.03f, 0.05f, 0.02f, -0.04f}});   // Sampled as a negative
+        double before = dot(userFactors, 0, itemFactors, 0);
+
+        // A positive example followed by its negative, as the trainer lays out each event
+        for (int i = 0; i < 200; i++) {
+            MatrixFactorizationTrainer.step(userFactors, itemFactors, new int[]{0, 0}, new int[]{0, 1},
+                    new float[]{1.0f, 0.0f}, LEARNING_RATE, REGULARIZATION);
+        }
+
+        double after = dot(userFactors, 0, itemFactors, 0);
+        assertTrue(after > before + 0.5, "score of the interacted item went from " + before + " to " + after);
+        assertTrue(after > dot(userFactors, 0, itemFactors, 1));
+    }
+
+    @Test
+    void duplicateRowsSumTheirGradients() {
+        float[] user = {0.1f, 0.2f};
+        float[] positive = {0.3f, -0.1f};
+        float[] negative = {-0.2f, 0.4f};
+        INDArray userFactors = Nd4j.createFromArray(new float[][]{user});
+        INDArray itemFactors = Nd4j.createFromArray(new float[][]{positive, negative});
+
+        MatrixFactorizationTrainer.step(userFactors, itemFactors, new int[]{0, 0}, new int[]{0, 1},
+                new float[]{1.0f, 0.0f}, LEARNING_RATE, REGULARIZATION);
+
+        // Both examples' gradients, taken from the starting factors, applied together
+        float positiveError = 1.0f - (user[0] * positive[0] + user[1] * positive[1]);
+        float negativeError = 0.0f - (user[0] * negative[0] + user[1] * negative[1]);
+        float[] expected = new float[2];
+        for (int k = 0; k < 2; k++) {
+            expected[k] = user[k]
+                    + LEARNING_RATE * (positive[k] * positiveError - REGULARIZATION * user[k])
+                    + LEARNING_RATE * (negative[k] * negativeError - REGULARIZATION * user[k]);
+        }
+        assertArrayEquals(expected, userFactors.getRow(0).toFloatVector(), 1e-6f);
+    }
+
+    private static double dot(INDArray a, int rowA, INDArray b, int rowB) {
+        return a.getRow(rowA).mul(b.getRow(rowB)).sumNumber().doubleValue();
+    }
+}
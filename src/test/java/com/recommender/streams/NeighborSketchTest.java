@@ -0,0 +1,104 @@
+package com.recommender.streams;
+
+import com.recommender.model.ItemNeighbors;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NeighborSketchTest {
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        List<ItemNeighbors.Neighbor> counters = new ArrayList<>();
+        for (String itemId : new String[]{"a", "b", "a", "c", "a", "b"}) {
+            NeighborSketch.offer(counters, itemId, 10);
+        }
+
+        List<ItemNeighbors.Neighbor> top = NeighborSketch.top(counters, 10);
+
+        assertEquals(3, top.size());
+        assertNeighbor(top.get(0), "a", 3, 0);
+        assertNeighbor(top.get(1), "b", 2, 0);
+        assertNeighbor(top.get(2), "c", 1, 0);
+    }
+
+    @Test
+    void keepsHeavyHittersOfASkewedStreamWithinTheErrorBound() {
+        int capacity = 20;
+        Random random = new Random(42L);
+        List<ItemNeighbors.Neighbor> counters = new ArrayList<>();
+        Map<String, Long> exact = new HashMap<>();
+        long total = 20_000;
+        for (int i = 0; i < total; i++) {
+            // Roughly Zipf-distributed over 500 items
+            String itemId = "item-" + (int) Math.floor(Math.pow(500, random.nextDouble()));
+            NeighborSketch.offer(counters, itemId, capacity);
+            exact.merge(itemId, 1L, Long::sum);
+        }
+
+        assertEquals(capacity, counters.size());
+        Map<String, ItemNeighbors.Neighbor> tracked = new HashMap<>();
+        for (ItemNeighbors.Neighbor counter : counters) {
+            tracked.put(counter.getItemId(), counter);
+            long trueCount = exact.get(counter.getItemId());
+            assertTrue(counter.getCount() >= trueCount, counter.toString());
+            assertTrue(counter.getCount() - counter.getError() <= trueCount, counter.toString());
+        }
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > total / capacity) {
+                assertNotNull(tracked.get(entry.getKey()), entry.getKey() + " seen " + entry.getValue() + " times");
+            }
+        }
+    }
+
+    @Test
+    void topIsStrongestFirstAndCopiesTheCounters() {
+        List<ItemNeighbors.Neighbor> counters = new ArrayList<>();
+        for (String itemId : new String[]{"c", "b", "b", "a", "a", "d", "d", "d"}) {
+            NeighborSketch.offer(counters, itemId, 10);
+        }
+
+        List<ItemNeighbors.Neighbor> top = NeighborSketch.top(counters, 3);
+
+        // Equal counts are ordered by item ID
+        assertEquals(3, top.size());
+        assertNeighbor(top.get(0), "d", 3, 0);
+        assertNeighbor(top.get(1), "a", 2, 0);
+        assertNeighbor(top.get(2), "b", 2, 0);
+
+        top.get(0).setCount(100);
+        assertEquals(3, NeighborSketch.top(counters, 1).get(0).getCount());
+    }
+
+    @Test
+    void sameItemsComparesIdsInOrder() {
+        List<ItemNeighbors.Neighbor> a = new ArrayList<>();
+        a.add(new ItemNeighbors.Neighbor("x", 5, 0));
+        a.add(new ItemNeighbors.Neighbor("y", 3, 0));
+        List<ItemNeighbors.Neighbor> sameIdsOtherCounts = new ArrayList<>();
+        sameIdsOtherCounts.add(new ItemNeighbors.Neighbor("x", 9, 1));
+        sameIdsOtherCounts.add(new ItemNeighbors.Neighbor("y", 4, 0));
+        List<ItemNeighbors.Neighbor> reordered = new ArrayList<>();
+        reordered.add(new ItemNeighbors.Neighbor("y", 5, 0));
+        reordered.add(new ItemNeighbors.Neighbor("x", 3, 0));
+
+        assertTrue(NeighborSketch.sameItems(a, sameIdsOtherCounts));
+        assertFalse(NeighborSketch.sameItems(a, reordered));
+        assertFalse(NeighborSketch.sameItems(a, a.subList(0, 1)));
+    }
+
+    private static void assertNeighbor(ItemNeighbors.Neighbor neighbor, String itemId, long count, long error) {
+        assertEquals(itemId, neighbor.getItemId());
+        assertEquals(count, neighbor.getCount());
+        assertEquals(error, neighbor.getError());
+    }
+}
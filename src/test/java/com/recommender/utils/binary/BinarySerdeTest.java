@@ -0,0 +1,147 @@
+package com.recommender.utils.binary;
+
+import com.recommender.model.Item;
+import com.recommender.model.UserEvent;
+import com.recommender.model.UserProfile;
+import com.recommender.utils.JsonSerde;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BinarySerdeTest {
+
+    private static final String TOPIC = "test-topic";
+
+    private final BinarySerde<Item> itemSerde = new BinarySerde<>(Item.class, new ItemCodec());
+
+    @Test
+    void itemRoundTrip() {
+        Item item = sampleItem();
+
+        byte[] bytes = itemSerde.serializer().serialize(TOPIC, item);
+
+        assertEquals(BinarySerde.MAGIC, bytes[0]);
+        assertEquals(BinarySerde.FORMAT_VERSION, bytes[1]);
+        assertEquals(item, itemSerde.deserializer().deserialize(TOPIC, bytes));
+    }
+
+    @Test
+    void userProfileRoundTrip() {
+        BinarySerde<UserProfile> serde = new BinarySerde<>(UserProfile.class, new UserProfileCodec());
+        UserProfile profile = new UserProfile();
+        profile.setUserId("user-1");
+        profile.getCategoryPreferences().put("books", 0.75);
+        profile.getFeaturePreferences().put("price", -1.5);
+        profile.getRecentlyViewedItems().addAll(Arrays.asList("item-3", "item-1", "item-2"));
+        profile.getPurchasedItems().add("item-1");
+        profile.getItemRatings().put("item-1", 4.0);
+        profile.setLastActivityTimestamp(1_700_000_000_000L);
+        profile.setFirstActivityTimestamp(1_600_000_000_000L);
+        profile.setEventCount(42);
+        profile.setPurchaseCount(1);
+
+        UserProfile read = serde.deserializer().deserialize(TOPIC, serde.serializer().serialize(TOPIC, profile));
+
+        assertEquals(profile, read);
+        // Histories are ordered oldest first, and the order must survive
+        assertArrayEquals(new Object[]{"item-3", "item-1", "item-2"}, read.getRecentlyViewedItems().toArray());
+    }
+
+    @Test
+    void userEventRoundTrip() {
+        BinarySerde<UserEvent> serde = new BinarySerde<>(UserEvent.class, new UserEventCodec());
+        UserEvent event = UserEvent.builder()
+                .userId("user-1")
+                .itemId("item-1")
+                .eventType(UserEvent.EventType.RATE)
+                .timestamp(Instant.ofEpochSecond(1_700_000_000L, 123_456_789L))
+                .score(4.5)
+                .sessionId("session-1")
+                .contextInfo("mobile")
+                .build();
+        UserEvent unscored = event.toBuilder().score(null).contextInfo(null).build();
+
+        assertEquals(event, serde.deserializer().deserialize(TOPIC, serde.serializer().serialize(TOPIC, event)));
+        assertEquals(unscored, serde.deserializer().deserialize(TOPIC, serde.serializer().serialize(TOPIC, unscored)));
+    }
+
+    @Test
+    void absentFieldsStayAbsent() {
+        Item item = new Item();
+        item.setId("item-1");
+
+        Item read = itemSerde.deserializer().deserialize(TOPIC, itemSerde.serializer().serialize(TOPIC, item));
+
+        assertEquals("item-1", read.getId());
+        assertNull(read.getName());
+        assertEquals(0, read.getCategories().size());
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        Item item = sampleItem();
+
+        // A newer writer that added fields of every wire type, before and after known ones
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(BinarySerde.MAGIC);
+        writer.writeRawByte(BinarySerde.FORMAT_VERSION);
+        writer.writeLong(100, -7L);
+        new ItemCodec().write(item, writer);
+        writer.writeDouble(101, 3.5);
+        writer.writeString(102, "added later");
+        int start = writer.beginMessage(103);
+        writer.writeString(1, "nested");
+        writer.writeLong(2, 9L);
+        writer.endMessage(start);
+
+        assertEquals(item, itemSerde.deserializer().deserialize(TOPIC, writer.toByteArray()));
+    }
+
+    @Test
+    void jsonRecordsAreReadWithTheJsonFallback() {
+        Item item = sampleItem();
+        byte[] json = new JsonSerde<>(Item.class).serializer().serialize(TOPIC, item);
+
+        assertEquals(item, itemSerde.deserializer().deserialize(TOPIC, json));
+    }
+
+    @Test
+    void nullsPassThrough() {
+        assertNull(itemSerde.serializer().serialize(TOPIC, null));
+        assertNull(itemSerde.deserializer().deserialize(TOPIC, null));
+    }
+
+    @Test
+    void truncatedRecordsAreDropped() {
+        byte[] bytes = itemSerde.serializer().serialize(TOPIC, sampleItem());
+
+        assertNull(itemSerde.deserializer().deserialize(TOPIC, Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    private static Item sampleItem() {
+        Map<String, Double> features = new HashMap<>();
+        features.put("price", 19.99);
+        features.put("rating", 4.5);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("brand", "Acme");
+        return Item.builder()
+                .id("item-1")
+                .name("Widget éè")
+                .description("A widget")
+                .categories(new HashSet<>(Arrays.asList("tools", "home")))
+                .features(features)
+                .metadata(metadata)
+                .popularity(0.8)
+                .creationTimestamp(1_600_000_000_000L)
+                .lastUpdateTimestamp(1_700_000_000_000L)
+                .build();
+    }
+}